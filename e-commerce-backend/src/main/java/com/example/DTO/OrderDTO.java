@@ -1,5 +1,6 @@
 package com.example.DTO;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -17,6 +18,8 @@ public class OrderDTO {
         private LocalDateTime createdAt;
         private LocalDateTime updatedAt;
         private List<OrderItemDTO> items;
+        // Units ordered, stored when the order was placed; lists carry this instead of the items
+        private int itemCount;
         private BigDecimal subtotal;
         private BigDecimal shipping;
         private BigDecimal total;
@@ -26,6 +29,9 @@ public class OrderDTO {
         private String trackingNumber;
         private LocalDate estimatedDelivery;
         private PaymentMethodDTO paymentMethod;
+        private String paymentStatus;
+        private String paymentIntentId;
+        private String clientSecret;
     }
 
     @Data
@@ -54,6 +60,9 @@ public class OrderDTO {
         @NotNull
         private Long productId;
 
+        // Filled in responses only
+        private String productName;
+
         @NotNull
         @Min(value = 1, message = "Quantity must be at least 1")
         private int quantity;
@@ -67,6 +76,7 @@ public class OrderDTO {
     @Data
     public static class CreateOrderRequest {
         @NotEmpty
+        @Valid
         private List<OrderItemDTO> items;
         
         // Either shippingAddressId or newShippingAddress must be provided
@@ -0,0 +1,18 @@
+package com.example.DTO;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// An order item of an OrderHistoryRow with the name of its product
+@Getter
+@AllArgsConstructor
+public class OrderHistoryItemRow {
+    private Long orderId;
+    private Long productId;
+    private String productName;
+    private Integer quantity;
+    private BigDecimal priceAtPurchase;
+    private String stripePaymentIntentId;
+}
@@ -0,0 +1,40 @@
+package com.example.DTO;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+import com.example.models.OrderEntity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One order of a customer's order history with its shipping address, read as columns so
+ * that none of the order's eager associations are loaded. Items come separately as
+ * OrderHistoryItemRow for the whole page.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderHistoryRow {
+    private Long id;
+    private OrderEntity.Status status;
+    private Timestamp createdAt;
+    private Timestamp updatedAt;
+    private String trackingNumber;
+    private LocalDate estimatedDelivery;
+    private BigDecimal subtotal;
+    private BigDecimal tax;
+    private BigDecimal shippingCost;
+    private BigDecimal totalAmount;
+    private int itemCount;
+    private OrderEntity.PaymentStatus paymentStatus;
+    private String paymentIntentId;
+    private String stripeChargeId;
+    private Integer addressId;
+    private String street;
+    private String city;
+    private String state;
+    private String country;
+    private String zipCode;
+}
@@ -0,0 +1,15 @@
+package com.example.DTO.ProductDTO;
+
+import org.springframework.data.domain.Page;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class FacetedProductPage {
+    private Page<ProductResponse> products;
+    private ProductFacetCounts facets; // null while the facet index is still building
+}
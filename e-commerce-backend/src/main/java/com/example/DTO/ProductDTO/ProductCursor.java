@@ -0,0 +1,130 @@
+package com.example.DTO.ProductDTO;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Set;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.models.Product;
+import com.example.models.ProductReadModel;
+
+import lombok.Getter;
+
+/**
+ * Position in a keyset (seek) scan over products.
+ * Holds the sort key and id of the last row already returned; the next page is
+ * everything strictly after (key, id) in sort order. Sent to clients as an
+ * opaque URL-safe token.
+ */
+@Getter
+public class ProductCursor {
+
+    public static final Set<String> SORT_FIELDS = Set.of("id", "price", "createdAt", "averageRating");
+
+    // Nullable sort keys are compared through these values, in the query and in the token
+    public static final Float NULL_RATING = 0f;
+    public static final LocalDateTime NULL_CREATED_AT = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String VERSION = "v1";
+
+    private final String sortField;
+    private final boolean ascending;
+    private final String key; // null on the first page
+    private final Long lastId; // null on the first page
+
+    private ProductCursor(String sortField, boolean ascending, String key, Long lastId) {
+        this.sortField = sortField;
+        this.ascending = ascending;
+        this.key = key;
+        this.lastId = lastId;
+    }
+
+    /**
+     * Cursor for the first page, ordered by the first order of the given sort (id ascending if unsorted).
+     */
+    public static ProductCursor first(Sort sort) {
+        Sort.Order order = sort.stream().findFirst().orElse(Sort.Order.asc("id"));
+        if (!SORT_FIELDS.contains(order.getProperty())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Cursor paging supports sorting by " + SORT_FIELDS + " only");
+        }
+        return new ProductCursor(order.getProperty(), order.isAscending(), null, null);
+    }
+
+    public static ProductCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\|", -1);
+            if (parts.length != 5 || !VERSION.equals(parts[0]) || !SORT_FIELDS.contains(parts[1])) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            ProductCursor cursor = new ProductCursor(parts[1], "asc".equals(parts[2]), parts[3], Long.valueOf(parts[4]));
+            cursor.keyValue(); // validate the key format
+            return cursor;
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = String.join("|", VERSION, sortField, ascending ? "asc" : "desc", key, String.valueOf(lastId));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isFirstPage() {
+        return lastId == null;
+    }
+
+    /**
+     * Cursor positioned after the given product, keeping this cursor's sort.
+     */
+    public ProductCursor after(Product product) {
+        return after(product.getId(), product.getPrice(), product.getCreatedAt(), product.getAverageRating());
+    }
+
+    /**
+     * Cursor positioned after the given read model row, keeping this cursor's sort.
+     */
+    public ProductCursor after(ProductReadModel row) {
+        return after(row.getProductId(), row.getPrice(), row.getCreatedAt(), row.getAverageRating());
+    }
+
+    private ProductCursor after(Long id, BigDecimal price, LocalDateTime createdAt, Float averageRating) {
+        String nextKey;
+        switch (sortField) {
+            case "price":
+                nextKey = price.toPlainString();
+                break;
+            case "createdAt":
+                nextKey = (createdAt != null ? createdAt : NULL_CREATED_AT).toString();
+                break;
+            case "averageRating":
+                nextKey = String.valueOf(averageRating != null ? averageRating : NULL_RATING);
+                break;
+            default:
+                nextKey = String.valueOf(id);
+        }
+        return new ProductCursor(sortField, ascending, nextKey, id);
+    }
+
+    /**
+     * The decoded sort key, typed like the entity attribute.
+     */
+    public Comparable<?> keyValue() {
+        switch (sortField) {
+            case "price":
+                return new BigDecimal(key);
+            case "createdAt":
+                return LocalDateTime.parse(key);
+            case "averageRating":
+                return Float.valueOf(key);
+            default:
+                return Long.valueOf(key);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.DTO.ProductDTO;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * One page of a keyset scan. Pass nextCursor back as the "cursor" parameter to
+ * get the following page; it is null on the last page. No total count is computed.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+public class ProductCursorPage {
+    private List<ProductResponse> content;
+    private String nextCursor;
+    private boolean hasNext;
+}
@@ -0,0 +1,23 @@
+package com.example.DTO.ProductDTO;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Number of matching products per facet value. Each dimension is counted with
+ * every other active filter applied, so the sidebar can show how many results
+ * selecting that value would give.
+ */
+@Getter
+@Setter
+public class ProductFacetCounts {
+    private long total;
+    private Map<String, Long> categories = new LinkedHashMap<>();
+    private Map<String, Long> priceRanges = new LinkedHashMap<>(); // e.g. "25-50", "1000+"
+    private Map<String, Long> minRating = new LinkedHashMap<>(); // "4" -> products rated 4 and up
+    private long freeShipping;
+    private long fastDelivery;
+}
@@ -0,0 +1,32 @@
+package com.example.DTO.ProductDTO;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Validators of a product response, computed from the read rows behind it without
+ * loading them: the row count and the latest refreshedAt. Any write to a row, and any
+ * row added or removed, changes the weak ETag.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductListVersion {
+    private Long count;
+    private LocalDateTime lastModified;
+
+    public boolean isEmpty() {
+        return count == null || count == 0;
+    }
+
+    public String getETag() {
+        return "W/\"" + count + "-" + Long.toHexString(getLastModifiedMillis()) + "\"";
+    }
+
+    // Epoch millis, or -1 when no row has a timestamp
+    public long getLastModifiedMillis() {
+        return lastModified != null ? lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+}
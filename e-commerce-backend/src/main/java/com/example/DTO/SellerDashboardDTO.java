@@ -30,6 +30,7 @@ public class SellerDashboardDTO {
         private String userEmail;
         private String customerName;
         private List<OrderDTO.OrderItemDTO> items;
+        private int itemCount;
         private BigDecimal totalAmount;
         private BigDecimal total;
         private String status;
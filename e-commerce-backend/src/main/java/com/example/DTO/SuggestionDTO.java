@@ -0,0 +1,22 @@
+package com.example.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+
+    public enum Type {
+        PRODUCT,
+        CATEGORY,
+        STORE
+    }
+
+    private Type type;
+    private Long id;
+    private String label;
+    private String slug; // categories only
+}
@@ -1,33 +1,139 @@
 package com.example.config;
 
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.PropertySource;
+
 import com.github.benmanes.caffeine.cache.Caffeine;
-import java.util.concurrent.TimeUnit;
 
+/**
+ * Every cache is declared here with its own policy; there is no default spec, and a
+ * lookup of an undeclared cache name returns null instead of creating one.
+ *
+ * Loads through Cache.get(key, valueLoader) are single-flight: concurrent misses on one
+ * key wait for a single load. With refreshAfterWrite, a key read after the interval is
+ * reloaded in the background and readers keep the previous value until it completes.
+ *
+ * Caffeine statistics are recorded for each cache and Spring Boot binds them to
+ * Micrometer at startup (cache.gets, cache.puts, cache.evictions, cache.load.duration,
+ * tagged with the cache name). They are visible under /actuator/metrics, and the caches
+ * themselves under /actuator/caches; cache-management.properties exposes both endpoints.
+ */
 @Configuration
 @EnableCaching
+@PropertySource("classpath:cache-management.properties")
 public class CacheConfig {
 
+    /**
+     * Policy of one named cache. It is bounded either by entry count (maximumSize) or by
+     * the summed Weighted.cacheWeight() of its values (maximumWeight); the other is 0.
+     * A null duration leaves that expiry or refresh off.
+     */
+    public record CacheSpec(String name, long maximumSize, long maximumWeight,
+                            Duration expireAfterWrite, Duration refreshAfterWrite) {
+    }
+
+    /**
+     * Implemented by cached values of very different sizes, for caches bounded by weight.
+     */
+    public interface Weighted {
+        int cacheWeight();
+    }
+
+    /**
+     * Implemented by cache keys that can compute their own value. A cache with
+     * refreshAfterWrite reloads such keys in the background while still serving the
+     * old value; other keys are simply missed.
+     */
+    public interface LoadingKey {
+        Object load();
+    }
+
+    /**
+     * Binds a key to the loader of its value. Equality is the key's alone, so lookups with
+     * different loader instances hit the same entry; the first stored key keeps its loader
+     * for background refreshes.
+     */
+    public static LoadingKey loadingKey(Object key, Supplier<?> loader) {
+        return new LoaderBoundKey(key, loader);
+    }
+
+    private record LoaderBoundKey(Object key, Supplier<?> loader) implements LoadingKey {
+        @Override
+        public Object load() {
+            return loader.get();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof LoaderBoundKey bound && key.equals(bound.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return key.toString();
+        }
+    }
+
+    // Background refreshes run database reads, so they get their own small pool instead of the common ForkJoinPool
+    private static final Executor REFRESH_EXECUTOR = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static final String PRODUCT_QUERIES = "productQueries";
+    public static final String PRODUCT_BY_ID = "productById";
+
+    static final List<CacheSpec> CACHES = List.of(
+            // Product lists and pages, weighed by DTO count. Change events evict them, the TTL is only a backstop
+            new CacheSpec(PRODUCT_QUERIES, 0, 50_000, Duration.ofMinutes(30), Duration.ofMinutes(5)),
+            // Single product DTOs, read on every product page
+            new CacheSpec(PRODUCT_BY_ID, 20_000, 0, Duration.ofMinutes(30), Duration.ofMinutes(5))
+    );
+
     @Bean
     public CacheManager cacheManager() {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-            .expireAfterWrite(1, TimeUnit.HOURS)
-            .maximumSize(1000)
-            .recordStats());
+        // Turns off on-demand creation of caches with a default spec
+        cacheManager.setCacheNames(Collections.emptyList());
+        for (CacheSpec spec : CACHES) {
+            cacheManager.registerCustomCache(spec.name(), build(spec));
+        }
         return cacheManager;
     }
 
-    @Bean
-    public Caffeine caffeineConfig() {
-        return Caffeine.newBuilder()
-            .expireAfterWrite(1, TimeUnit.HOURS)
-            .maximumSize(1000)
-            .recordStats();
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> build(CacheSpec spec) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (spec.maximumWeight() > 0) {
+            builder.maximumWeight(spec.maximumWeight())
+                    .weigher((key, value) -> value instanceof Weighted weighted ? weighted.cacheWeight() : 1);
+        } else {
+            builder.maximumSize(spec.maximumSize());
+        }
+        if (spec.expireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.expireAfterWrite());
+        }
+        if (spec.refreshAfterWrite() != null) {
+            // Only keys read again after the interval are reloaded, so the refresh follows the hot keys
+            builder.refreshAfterWrite(spec.refreshAfterWrite()).executor(REFRESH_EXECUTOR);
+            return builder.build(key -> key instanceof LoadingKey loadingKey ? loadingKey.load() : null);
+        }
+        return builder.build();
     }
-} 
\ No newline at end of file
+}
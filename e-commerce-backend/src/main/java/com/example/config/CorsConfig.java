@@ -7,6 +7,8 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
 import java.util.Arrays;
 
+import com.example.security.IdempotencyFilter;
+
 @Configuration
 public class CorsConfig {
 
@@ -25,7 +27,8 @@ public class CorsConfig {
                 "X-Requested-With",
                 "Access-Control-Request-Method", 
                 "Access-Control-Request-Headers",
-                "Stripe-Signature"
+                "Stripe-Signature",
+                IdempotencyFilter.HEADER
         ));
         corsConfiguration.setExposedHeaders(Arrays.asList(
                 "Origin", 
@@ -33,7 +36,8 @@ public class CorsConfig {
                 "Accept", 
                 "Authorization",
                 "Access-Control-Allow-Origin", 
-                "Access-Control-Allow-Credentials"
+                "Access-Control-Allow-Credentials",
+                IdempotencyFilter.REPLAYED_HEADER
         ));
         corsConfiguration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         
@@ -0,0 +1,33 @@
+package com.example.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hibernate second-level and query cache, backed by Caffeine through JCache. Entities
+ * annotated with @Cache (Category, Store, ProductImage, SubCategoryRelation) get a
+ * region each; the region sizes and expiry are in hibernate-cache.conf.
+ *
+ * Statistics are on so that Spring Boot exports them to Micrometer
+ * (hibernate.second.level.cache.requests, .puts, and the query cache counters, per region).
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put("hibernate.javax.cache.provider",
+                    "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider");
+            properties.put("hibernate.javax.cache.uri", "classpath:hibernate-cache.conf");
+            // Category.subcategories is the inverse side; evict it when a child's parent changes
+            properties.put(AvailableSettings.AUTO_EVICT_COLLECTION_CACHE, true);
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+}
@@ -8,6 +8,7 @@ import java.util.Map;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,10 +18,12 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.example.DTO.ProductDTO.CreateProductRequest;
 import com.example.DTO.ProductDTO.ProductFilterRequest;
 import com.example.DTO.ProductDTO.ProductResponse;
+import com.example.services.ProductExportService;
 import com.example.services.ProductService;
 
 import jakarta.validation.Valid;
@@ -30,9 +33,11 @@ import jakarta.validation.Valid;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductExportService productExportService;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductExportService productExportService) {
         this.productService = productService;
+        this.productExportService = productExportService;
     }
 
     /**
@@ -49,9 +54,11 @@ public class ProductController {
      * Fetch all products without any filters.
      */
     @GetMapping("/all")
-    public ResponseEntity<List<ProductResponse>> getAll() {
-        // Fetches all products and returns as ProductResponse DTO
-        return ResponseEntity.ok(productService.listAllProducts());
+    public ResponseEntity<StreamingResponseBody> getAll() {
+        // Streams the catalog as it is read instead of building the whole list first
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(productExportService::writeAllProducts);
     }
 
     /**
@@ -1,9 +1,16 @@
 package com.example.controllers.Public;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,78 +19,76 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.DTO.CategoryDTO;
-import com.example.models.Category;
 import com.example.services.CategoryService;
-import com.example.repositories.SubCategoryRelationRepository;
-import com.example.models.SubCategoryRelation;
+import com.example.services.CategoryTreeSnapshot;
+
+/**
+ * Every endpoint reads one CategoryTreeSnapshot and tags the response with its version.
+ * Spring answers a matching If-None-Match with 304 Not Modified for ResponseEntity
+ * bodies that carry an ETag, so clients and CDNs revalidate instead of refetching.
+ */
 @RestController
 @RequestMapping("/api/public/categories")
 public class PublicCategoryController {
     
-    private final SubCategoryRelationRepository subCategoryRelationRepository;
+    // Caches may store the response but must revalidate it against the ETag before reuse
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
     private final CategoryService categoryService;
 
-    public PublicCategoryController(CategoryService categoryService, SubCategoryRelationRepository subCategoryRelationRepository) {
+    public PublicCategoryController(CategoryService categoryService) {
         this.categoryService = categoryService;
-        this.subCategoryRelationRepository = subCategoryRelationRepository;
     }
 
     @GetMapping
     public ResponseEntity<List<CategoryDTO>> getAllCategories() {
-        return ResponseEntity.ok(categoryService.findAllAsDTO());
+        CategoryTreeSnapshot tree = categoryService.getTreeSnapshot();
+        return ok(tree.getETag(), tree.getAll());
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<CategoryDTO> getCategoryById(@PathVariable int id) {
-        return categoryService.findByIdAsDTO(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+        CategoryTreeSnapshot tree = categoryService.getTreeSnapshot();
+        return okOrNotFound(tree.getETag(), tree.findById(id));
     }
 
     @GetMapping("/root")
     public ResponseEntity<List<CategoryDTO>> getRootCategories() {
-        return ResponseEntity.ok(categoryService.findRootCategoriesAsDTO());
+        CategoryTreeSnapshot tree = categoryService.getTreeSnapshot();
+        return ok(tree.getETag(), tree.getRoots());
     }
 
     @GetMapping("/{id}/subcategories")
     public ResponseEntity<List<CategoryDTO>> getSubcategories(@PathVariable int id) {
-        return categoryService.findById(id)
-                .map(category -> {
-                    List<SubCategoryRelation> relations = subCategoryRelationRepository.findByAncestor(category);
-                    List<CategoryDTO> subcategories = relations.stream()
-                            .filter(rel -> rel.getDepth() > 0)
-                            .map(relation -> CategoryDTO.fromEntity(relation.getDescendant()))
-                            .collect(Collectors.toList());
-                    return ResponseEntity.ok(subcategories);
-                })
-                .orElse(ResponseEntity.notFound().build());
+        CategoryTreeSnapshot tree = categoryService.getTreeSnapshot();
+        return okOrNotFound(tree.getETag(), tree.findById(id).map(category -> tree.getDescendants(id)));
     }
     
     @GetMapping("/with-products")
     public ResponseEntity<List<CategoryDTO>> getCategoriesWithProducts() {
-        List<Category> categories = categoryService.findAll();
-        List<CategoryDTO> categoriesWithProducts = categories.stream()
-                .filter(category -> category.getProducts() != null && !category.getProducts().isEmpty())
-                .map(CategoryDTO::fromEntity)
+        CategoryTreeSnapshot tree = categoryService.getTreeSnapshot();
+        Set<Integer> categoryIds = categoryService.findCategoryIdsWithProducts();
+        List<CategoryDTO> categoriesWithProducts = tree.getAll().stream()
+                .filter(category -> categoryIds.contains(category.getId()))
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(categoriesWithProducts);
+        // The result also changes when products move, so the product side is part of the tag
+        String eTag = "\"categories-" + Long.toHexString(tree.getVersion()) + "-" + digest(categoryIds) + "\"";
+        return ok(eTag, categoriesWithProducts);
     }
     
     @GetMapping("/by-slug/{slug}")
     public ResponseEntity<CategoryDTO> getCategoryBySlug(@PathVariable String slug) {
-        return categoryService.findBySlugAsDTO(slug)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+        CategoryTreeSnapshot tree = categoryService.getTreeSnapshot();
+        return okOrNotFound(tree.getETag(), tree.findBySlug(slug));
     }
 
     /**
-     * Get a category by slug with its subcategories and products.
+     * Get a category by slug with its subcategories.
      */
     @GetMapping("/by-slug/{slug}/with-subcategories")
     public ResponseEntity<CategoryDTO> getCategoryBySlugWithSubcategories(@PathVariable String slug) {
-        return categoryService.findBySlugWithSubcategories(slug)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+        CategoryTreeSnapshot tree = categoryService.getTreeSnapshot();
+        return okOrNotFound(tree.getETag(), tree.findBySlug(slug));
     }
 
     /**
@@ -94,19 +99,38 @@ public class PublicCategoryController {
         if (query == null || query.trim().isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
-        List<Category> categories = categoryService.findAll().stream()
-                .filter(category -> 
-                    category.getName().toLowerCase().contains(query.toLowerCase()) ||
-                    (category.getDescription() != null && 
-                     category.getDescription().toLowerCase().contains(query.toLowerCase())))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(CategoryDTO.fromEntities(categories));
+        CategoryTreeSnapshot tree = categoryService.getTreeSnapshot();
+        return ok(tree.getETag(), tree.search(query));
     }
 
     @GetMapping("/by-name")
     public ResponseEntity<CategoryDTO> getCategoryByName(@RequestParam String name) {
-        return categoryService.findByNameAsDTO(name)
-                .map(ResponseEntity::ok)
+        CategoryTreeSnapshot tree = categoryService.getTreeSnapshot();
+        return okOrNotFound(tree.getETag(), tree.findByName(name));
+    }
+
+    // SHA-256 of the sorted IDs; a set's hashCode is a plain sum and collides far too easily
+    private static String digest(Set<Integer> ids) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Integer id : new TreeSet<>(ids)) {
+                digest.update((id + ",").getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static <T> ResponseEntity<T> ok(String eTag, T body) {
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(REVALIDATE)
+                .body(body);
+    }
+
+    private static <T> ResponseEntity<T> okOrNotFound(String eTag, Optional<T> body) {
+        return body.map(value -> ok(eTag, value))
                 .orElse(ResponseEntity.notFound().build());
     }
 }
@@ -7,15 +7,25 @@ import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.DTO.ProductDTO.FacetedProductPage;
+import com.example.DTO.ProductDTO.ProductCursorPage;
 import com.example.DTO.ProductDTO.ProductFilterRequest;
+import com.example.DTO.ProductDTO.ProductListVersion;
 import com.example.DTO.ProductDTO.ProductResponse;
+import com.example.services.ProductExportService;
 import com.example.services.ProductService;
 import com.example.models.Product;
 import com.example.models.Category;
@@ -25,9 +35,11 @@ import com.example.models.Category;
 public class PublicProductController {
 
     private final ProductService productService;
+    private final ProductExportService productExportService;
 
-    public PublicProductController(ProductService productService) {
+    public PublicProductController(ProductService productService, ProductExportService productExportService) {
         this.productService = productService;
+        this.productExportService = productExportService;
     }
 
     /**
@@ -40,13 +52,46 @@ public class PublicProductController {
         return productService.browseProducts(filter, pageable);
     }
 
+    /**
+     * Browse with cursor (keyset) paging instead of page numbers.
+     * Sortable by id, price, createdAt or averageRating; pass the returned
+     * nextCursor as "cursor" to continue. Deep pages cost the same as the first.
+     */
+    @GetMapping("/scroll")
+    public ProductCursorPage browseProductsAfter(ProductFilterRequest filter,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "20") int size,
+                                                 Sort sort) {
+        return productService.browseProductsAfter(filter, cursor, sort, size);
+    }
+
+    /**
+     * Browse with page numbers but without the total count.
+     */
+    @GetMapping("/slice")
+    public Slice<ProductResponse> browseProductsSlice(ProductFilterRequest filter, Pageable pageable) {
+        return productService.browseProductsSlice(filter, pageable);
+    }
+
+    /**
+     * Same as browseProducts, plus the number of results for every facet value
+     * (categories, price ranges, ratings, shipping flags) under the current filter.
+     */
+    @GetMapping("/faceted")
+    public FacetedProductPage browseProductsWithFacets(ProductFilterRequest filter, Pageable pageable) {
+        return productService.browseProductsWithFacets(filter, pageable);
+    }
+
     /**
      * Fetch all products without any filters.
      * Mapped from original ProductController GET /api/products/all
      */
     @GetMapping("/all")
-    public ResponseEntity<List<ProductResponse>> getAll() {
-        return ResponseEntity.ok(productService.listAllProducts());
+    public ResponseEntity<StreamingResponseBody> getAll() {
+        // Streams the catalog as it is read instead of building the whole list first
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(productExportService::writeAllProducts);
     }
 
     /**
@@ -54,10 +99,14 @@ public class PublicProductController {
      * Mapped from original ProductController GET /api/products/{id}
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getById(@PathVariable Long id) {
+    public ResponseEntity<ProductResponse> getById(@PathVariable Long id, WebRequest request) {
+        ProductListVersion version = productService.versionOfProduct(id);
+        if (isNotModified(request, version)) {
+            return null;
+        }
         System.out.println("Fetching product with ID: " + id);
         return productService.findById(id)
-            .map(ResponseEntity::ok)
+            .map(product -> conditional(version).body(product))
             .orElse(ResponseEntity.notFound().build());
     }
     
@@ -77,27 +126,58 @@ public class PublicProductController {
      * Mapped from original ProductController GET /api/products/stores/{storeId}
      */
     @GetMapping("/stores/{storeId}")
-    public ResponseEntity<List<ProductResponse>> getByStore(@PathVariable Long storeId) {
-        return ResponseEntity.ok(productService.findByStore(storeId));
+    public ResponseEntity<List<ProductResponse>> getByStore(@PathVariable Long storeId, WebRequest request) {
+        ProductListVersion version = productService.versionOfStore(storeId);
+        if (isNotModified(request, version)) {
+            return null;
+        }
+        return conditional(version).body(productService.findByStore(storeId));
     }
 
     /**
      * Fetch products by category ID.
      */
     @GetMapping("/category/id/{categoryId}")
-    public ResponseEntity<List<ProductResponse>> getByCategory(@PathVariable Integer categoryId) {
+    public ResponseEntity<List<ProductResponse>> getByCategory(@PathVariable Integer categoryId, WebRequest request) {
+        ProductListVersion version = productService.versionOfCategory(categoryId);
+        if (isNotModified(request, version)) {
+            return null;
+        }
         System.out.println("Fetching products for category ID: " + categoryId);
         List<ProductResponse> products = productService.findByCategoryId(categoryId);
         System.out.println("Found " + products.size() + " products for category ID: " + categoryId);
-        return ResponseEntity.ok(products);
+        return conditional(version).body(products);
+    }
+
+    /**
+     * Fetch products by category ID with cursor (keyset) paging.
+     */
+    @GetMapping("/category/id/{categoryId}/scroll")
+    public ProductCursorPage getByCategoryAfter(@PathVariable Integer categoryId,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(defaultValue = "20") int size,
+                                                Sort sort) {
+        return productService.findByCategoryAfter(categoryId, cursor, sort, size);
+    }
+
+    /**
+     * Fetch products by category ID, paged without the total count.
+     */
+    @GetMapping("/category/id/{categoryId}/slice")
+    public Slice<ProductResponse> getByCategorySlice(@PathVariable Integer categoryId, Pageable pageable) {
+        return productService.findByCategorySlice(categoryId, pageable);
     }
 
     /**
      * Fetch products by category slug.
      */
     @GetMapping("/category/{slug}")
-    public ResponseEntity<List<ProductResponse>> getByCategorySlug(@PathVariable String slug) {
-        return ResponseEntity.ok(productService.findByCategorySlug(slug));
+    public ResponseEntity<List<ProductResponse>> getByCategorySlug(@PathVariable String slug, WebRequest request) {
+        ProductListVersion version = productService.versionOfCategorySlug(slug);
+        if (isNotModified(request, version)) {
+            return null;
+        }
+        return conditional(version).body(productService.findByCategorySlug(slug));
     }
 
     /**
@@ -150,6 +230,27 @@ public class PublicProductController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Checks If-None-Match / If-Modified-Since against the validators before anything is
+     * loaded. When they match, the 304 is already written and the handler returns null.
+     * Empty results are never answered with 304, so a missing product still gets its 404.
+     */
+    private static boolean isNotModified(WebRequest request, ProductListVersion version) {
+        return !version.isEmpty() && request.checkNotModified(version.getETag(), version.getLastModifiedMillis());
+    }
+
+    private static ResponseEntity.BodyBuilder conditional(ProductListVersion version) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache());
+        if (!version.isEmpty()) {
+            builder.eTag(version.getETag());
+            if (version.getLastModified() != null) {
+                builder.lastModified(version.getLastModifiedMillis());
+            }
+        }
+        return builder;
+    }
+
     // According to the template, PublicProductController could also have:
     // - GET /category/{categoryId} - Kategoriye göre ürünleri getir
     // - GET /search - Arama kriterleriyle ürün ara (browseProducts might cover this)
@@ -0,0 +1,31 @@
+package com.example.controllers.Public;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.DTO.SuggestionDTO;
+import com.example.services.SuggestionIndex;
+
+@RestController
+@RequestMapping("/api/public/suggest")
+public class PublicSuggestController {
+
+    private final SuggestionIndex suggestionIndex;
+
+    public PublicSuggestController(SuggestionIndex suggestionIndex) {
+        this.suggestionIndex = suggestionIndex;
+    }
+
+    // Typeahead over product, category and store names, served from memory
+    @GetMapping
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(suggestionIndex.suggest(q, limit));
+    }
+}
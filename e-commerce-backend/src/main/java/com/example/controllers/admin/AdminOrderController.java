@@ -10,6 +10,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.validation.Valid;
+
 import java.util.List;
 import java.util.Map;
 
@@ -37,6 +39,11 @@ public class AdminOrderController {
         return ResponseEntity.ok(orderService.getOrderStats());
     }
 
+    @GetMapping("/{orderId}")
+    public ResponseEntity<OrderResponse> getOrder(@PathVariable Long orderId) {
+        return ResponseEntity.ok(orderService.findAdminOrder(orderId));
+    }
+
     @GetMapping("/by-user/{userId}")
     public ResponseEntity<List<OrderResponse>> getOrdersByUser(@PathVariable Integer userId) {
         return ResponseEntity.ok(orderService.getOrdersByUserId(userId));
@@ -45,7 +52,7 @@ public class AdminOrderController {
     @PostMapping("/for-user/{userId}")
     public ResponseEntity<Map<String, String>> createOrderForUser(
             @PathVariable Integer userId,
-            @RequestBody CreateOrderRequest createDto) throws StripeException {
+            @Valid @RequestBody CreateOrderRequest createDto) throws StripeException {
         return ResponseEntity.ok(orderService.createOrderForUser(userId, createDto));
     }
 
@@ -53,6 +53,11 @@ public class AdminProductController extends GenericController<Product, ProductRe
         return ResponseEntity.ok(productService.toggleFastDelivery(id, fastDelivery));
     }
 
+    @PutMapping("/{id}/hot-stock")
+    public ResponseEntity<ProductResponse> toggleHotStock(@PathVariable Long id, @RequestParam boolean hotStock) {
+        return ResponseEntity.ok(productService.toggleHotStock(id, hotStock));
+    }
+
     @PutMapping("/{id}/image")
     public ResponseEntity<Object> updateProductImage(
             @PathVariable Long id,
@@ -16,14 +16,17 @@ import org.springframework.web.server.ResponseStatusException;
 import com.example.controllers.customer.CustomerReviewController.ReviewResponse;
 import com.example.models.Review;
 import com.example.repositories.ReviewRepository;
+import com.example.services.ProductService;
 
 @RestController
 @RequestMapping("/api/admin/reviews")
 public class AdminReviewController {
     private final ReviewRepository reviewRepository;
+    private final ProductService productService;
 
-    public AdminReviewController(ReviewRepository reviewRepository) {
+    public AdminReviewController(ReviewRepository reviewRepository, ProductService productService) {
         this.reviewRepository = reviewRepository;
+        this.productService = productService;
     }
 
     @GetMapping
@@ -46,9 +49,10 @@ public class AdminReviewController {
 
     @DeleteMapping("/{reviewId}")
     public void deleteReview(@PathVariable Long reviewId) {
-        if (!reviewRepository.existsById(reviewId)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Review not found");
-        }
-        reviewRepository.deleteById(reviewId);
+        Review review = reviewRepository.findById(reviewId)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Review not found"));
+        Long productId = review.getProduct().getId();
+        reviewRepository.delete(review);
+        productService.refreshAverageRating(productId);
     }
 } 
\ No newline at end of file
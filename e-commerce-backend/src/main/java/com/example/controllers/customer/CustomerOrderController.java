@@ -5,6 +5,7 @@ import com.example.DTO.OrderDTO.CreateOrderRequest;
 import com.example.DTO.OrderDTO.OrderResponse;
 import com.example.DTO.OrderDTO.RefundRequestDTO;
 import com.example.DTO.OrderDTO.RefundResponseDTO;
+import com.example.exceptions.InsufficientStockException;
 import com.example.models.OrderItem;
 import com.example.models.User;
 import com.example.models.OrderEntity;
@@ -15,10 +16,17 @@ import com.example.services.ProductService;
 import com.example.services.RefundService;
 import com.example.services.StripeService;
 import com.stripe.exception.StripeException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 import java.math.BigDecimal;
@@ -33,6 +41,7 @@ import org.slf4j.LoggerFactory;
 @PreAuthorize("isAuthenticated()")
 public class CustomerOrderController {
     private static final Logger logger = LoggerFactory.getLogger(CustomerOrderController.class);
+    private static final int MAX_PAGE_SIZE = 50;
 
     private final OrderService orderService;
     private final StripeService stripeService;
@@ -70,6 +79,22 @@ public class CustomerOrderController {
         }
     }
     
+    // Paged order history, newest first
+    @GetMapping("/history")
+    public ResponseEntity<Map<String, Object>> getOrderHistory(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        Page<OrderResponse> orders = orderService.getOrderHistoryForCurrentUser(
+                PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE)));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("orders", orders.getContent());
+        response.put("currentPage", orders.getNumber());
+        response.put("totalItems", orders.getTotalElements());
+        response.put("totalPages", orders.getTotalPages());
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<OrderResponse> getOrder(@PathVariable Long id) {
         try {
@@ -81,7 +106,7 @@ public class CustomerOrderController {
     }
     
     @PostMapping
-    public ResponseEntity<Map<String, Object>> createOrder(@RequestBody CreateOrderRequest createDto) {
+    public ResponseEntity<Map<String, Object>> createOrder(@Valid @RequestBody CreateOrderRequest createDto) {
         try {
             logger.info("Creating new order for user: {}", SecurityContextHolder.getContext().getAuthentication().getName());
             
@@ -98,21 +123,27 @@ public class CustomerOrderController {
                 ));
             }
 
-            // Create order with payment intents
+            // Create the order; its payment intent is created once it has committed
             OrderResponse order = orderService.save(createDto);
             logger.info("Order created successfully with ID: {}", order.getId());
             
-            // Return the order ID and payment intents
+            // The client polls GET /{orderId}/payment for the payment intent
             Map<String, Object> response = new HashMap<>();
             response.put("orderId", order.getId());
-            response.put("paymentIntents", order.getItems().stream()
-                .map(item -> Map.of(
-                    "paymentIntentId", item.getStripePaymentIntentId(),
-                    "clientSecret", item.getClientSecret()
-                ))
-                .collect(Collectors.toList()));
+            response.put("paymentStatus", order.getPaymentStatus());
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.accepted()
+                .location(URI.create("/api/orders/" + order.getId() + "/payment"))
+                .body(response);
+        } catch (InsufficientStockException e) {
+            logger.warn("Order creation failed: {}", e.getMessage());
+            return ResponseEntity.status(409).body(Map.of(
+                "error", "Some products are out of stock",
+                "productIds", e.getProductIds()
+            ));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Order creation failed: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             logger.error("Order creation failed", e);
             Map<String, Object> errorResponse = new HashMap<>();
@@ -126,6 +157,31 @@ public class CustomerOrderController {
         }
     }
     
+    /**
+     * Payment state of an order after checkout: 202 with a Retry-After while its payment
+     * intent is being created, then 200 with the intent in the same list shape the
+     * checkout response used to return.
+     */
+    @GetMapping("/{orderId}/payment")
+    public ResponseEntity<Map<String, Object>> getOrderPayment(@PathVariable Long orderId) {
+        OrderResponse payment = orderService.getPaymentForCurrentUser(orderId);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("orderId", payment.getId());
+        response.put("status", payment.getStatus());
+        response.put("paymentStatus", payment.getPaymentStatus());
+        if ("creating_intent".equals(payment.getPaymentStatus())) {
+            return ResponseEntity.accepted().header(HttpHeaders.RETRY_AFTER, "1").body(response);
+        }
+        if (payment.getClientSecret() != null) {
+            response.put("paymentIntents", List.of(Map.of(
+                "paymentIntentId", payment.getPaymentIntentId(),
+                "clientSecret", payment.getClientSecret()
+            )));
+        }
+        return ResponseEntity.ok(response);
+    }
+    
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, String>> cancelOrder(@PathVariable Long id) {
         try {
@@ -175,6 +231,50 @@ public class CustomerOrderController {
         }
     }
 
+    @PostMapping("/{orderId}/confirm-payment")
+    public ResponseEntity<Map<String, String>> confirmOrderPayment(
+            @PathVariable Long orderId,
+            @RequestBody Map<String, String> paymentConfirmation) {
+        try {
+            logger.info("Confirming payment for order: {}", orderId);
+            
+            // Get current user
+            String username = SecurityContextHolder.getContext().getAuthentication().getName();
+            User user = userRepository.findByEmail(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+            OrderEntity order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+
+            if (order.getUser().getId() != user.getId()) {
+                throw new RuntimeException("Order does not belong to the current user");
+            }
+
+            // Verify payment intent
+            String paymentIntentId = paymentConfirmation.get("paymentIntentId");
+            if (paymentIntentId == null || !paymentIntentId.equals(order.getStripePaymentIntentId())) {
+                throw new RuntimeException("Invalid payment intent for this order");
+            }
+
+            // Confirm payment and update order status
+            OrderDTO.OrderResponse updatedOrder = orderService.confirmPayment(paymentIntentId);
+            logger.info("Payment confirmed successfully for order: {}", orderId);
+
+            return ResponseEntity.ok(Map.of(
+                "status", "success",
+                "message", "Payment confirmed and order status updated",
+                "orderId", updatedOrder.getId()
+            ));
+        } catch (Exception e) {
+            logger.error("Error confirming payment", e);
+            return ResponseEntity.status(500).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    // Orders placed with one payment intent per item
     @PostMapping("/{orderId}/items/{itemId}/confirm-payment")
     public ResponseEntity<Map<String, String>> confirmPayment(
             @PathVariable Long orderId,
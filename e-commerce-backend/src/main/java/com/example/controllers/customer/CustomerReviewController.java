@@ -25,6 +25,7 @@ import com.example.repositories.OrderRepository;
 import com.example.repositories.ProductRepository;
 import com.example.repositories.ReviewRepository;
 import com.example.repositories.UserRepository;
+import com.example.services.ProductService;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
@@ -39,6 +40,7 @@ public class CustomerReviewController {
     private final UserRepository userRepository;
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
+    private final ProductService productService;
 
     // Data Transfer Object for creating a review
     @Data
@@ -80,11 +82,12 @@ public class CustomerReviewController {
         }
     }
 
-    public CustomerReviewController(ReviewRepository reviewRepository, UserRepository userRepository, OrderRepository orderRepository, ProductRepository productRepository) {
+    public CustomerReviewController(ReviewRepository reviewRepository, UserRepository userRepository, OrderRepository orderRepository, ProductRepository productRepository, ProductService productService) {
         this.reviewRepository = reviewRepository;
         this.userRepository = userRepository;
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
+        this.productService = productService;
     }
     
     @GetMapping("/product/{productId}")
@@ -167,6 +170,7 @@ public class CustomerReviewController {
         
         // Save the review and convert to DTO before returning
         Review savedReview = reviewRepository.save(review);
+        productService.refreshAverageRating(productId);
         return new ReviewResponse(savedReview);
     }
 
@@ -185,6 +189,7 @@ public class CustomerReviewController {
         review.setComment(reviewRequest.getComment());
         
         Review savedReview = reviewRepository.save(review);
+        productService.refreshAverageRating(productId);
         return new ReviewResponse(savedReview);
     }
 
@@ -199,6 +204,7 @@ public class CustomerReviewController {
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Review not found"));
         
         reviewRepository.delete(review);
+        productService.refreshAverageRating(productId);
         
         Map<String, Boolean> response = new HashMap<>();
         response.put("deleted", true);
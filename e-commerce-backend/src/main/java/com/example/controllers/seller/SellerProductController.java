@@ -2,6 +2,7 @@ package com.example.controllers.seller;
 
 import com.example.DTO.ProductDTO.ProductResponse;
 import com.example.DTO.ProductDTO.CreateProductRequest;
+import com.example.DTO.ProductDTO.ProductCursorPage;
 import com.example.models.Store;
 import com.example.models.User;
 import com.example.repositories.UserRepository;
@@ -9,6 +10,8 @@ import com.example.security.CustomUserDetails;
 import com.example.services.ProductService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -63,6 +66,20 @@ public class SellerProductController {
         return ResponseEntity.ok(productService.findAllByStoreId(storeId, pageable));
     }
     
+    @GetMapping("/scroll")
+    public ResponseEntity<ProductCursorPage> getSellerProductsAfter(@RequestParam(required = false) String cursor,
+                                                                    @RequestParam(defaultValue = "20") int size,
+                                                                    Sort sort) {
+        Long storeId = getCurrentSellerStoreId();
+        return ResponseEntity.ok(productService.findAllByStoreIdAfter(storeId, cursor, sort, size));
+    }
+
+    @GetMapping("/slice")
+    public ResponseEntity<Slice<ProductResponse>> getSellerProductsSlice(Pageable pageable) {
+        Long storeId = getCurrentSellerStoreId();
+        return ResponseEntity.ok(productService.findAllByStoreIdSlice(storeId, pageable));
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
         Long storeId = getCurrentSellerStoreId();
@@ -0,0 +1,7 @@
+package com.example.events;
+
+/**
+ * A category was renamed, moved or deleted.
+ */
+public record CategoryChangedEvent(Integer categoryId) {
+}
@@ -0,0 +1,8 @@
+package com.example.events;
+
+/**
+ * An outbox row was inserted. Delivered after the inserting transaction commits, so the
+ * dispatcher can start on it without waiting for its next poll.
+ */
+public record OutboxEventRecordedEvent(Long outboxEventId) {
+}
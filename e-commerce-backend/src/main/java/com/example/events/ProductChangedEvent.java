@@ -0,0 +1,9 @@
+package com.example.events;
+
+/**
+ * A product was created, updated or deleted. categoryId and storeId are the product's
+ * current values (for a delete, the values it had); previousCategoryId is set when the
+ * write moved the product out of another category.
+ */
+public record ProductChangedEvent(Long productId, Integer categoryId, Integer previousCategoryId, Long storeId) {
+}
@@ -0,0 +1,7 @@
+package com.example.events;
+
+/**
+ * The image list of a product was replaced. Only the product's own DTO changes.
+ */
+public record ProductImagesChangedEvent(Long productId) {
+}
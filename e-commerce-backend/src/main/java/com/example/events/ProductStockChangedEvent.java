@@ -0,0 +1,9 @@
+package com.example.events;
+
+import java.util.Set;
+
+/**
+ * Stock was taken or given back by orders. Only the products' own DTOs change.
+ */
+public record ProductStockChangedEvent(Set<Long> productIds) {
+}
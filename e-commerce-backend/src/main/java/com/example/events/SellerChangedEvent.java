@@ -0,0 +1,7 @@
+package com.example.events;
+
+/**
+ * A seller's name changed; it is copied into every product DTO of the seller's stores.
+ */
+public record SellerChangedEvent(Long sellerId) {
+}
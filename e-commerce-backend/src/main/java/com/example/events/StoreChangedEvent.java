@@ -0,0 +1,7 @@
+package com.example.events;
+
+/**
+ * A store was renamed or deleted.
+ */
+public record StoreChangedEvent(Long storeId) {
+}
@@ -0,0 +1,20 @@
+package com.example.exceptions;
+
+import java.util.List;
+
+/**
+ * An order asked for more units of some products than are in stock.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    private final List<Long> productIds;
+
+    public InsufficientStockException(List<Long> productIds) {
+        super("Insufficient stock for products " + productIds);
+        this.productIds = List.copyOf(productIds);
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+}
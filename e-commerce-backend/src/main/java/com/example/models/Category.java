@@ -67,9 +67,9 @@ public class Category {
     @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Category> subcategories = new ArrayList<>();
 
+    // Not cached: Product has no cache region, so a cached id list would load each product with its own select
     @OneToMany(mappedBy = "category")
     @JsonIgnore
-    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Product> products;
 }
 
@@ -0,0 +1,45 @@
+package com.example.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Units of a hot product that one application instance holds in memory, counted in
+ * products.hot_allocated as well. The count goes down as units sold from memory are
+ * flushed to stock_quantity or handed back. Rows whose heartbeat stops are reclaimed by the
+ * other instances. See HotStockInventory.
+ */
+@Entity
+@Table(name = "hot_stock_allocations",
+    uniqueConstraints = @UniqueConstraint(name = "uk_hot_stock_allocations_instance_product",
+        columnNames = {"instance_id", "product_id"}),
+    indexes = @Index(name = "idx_hot_stock_allocations_heartbeat", columnList = "heartbeat_at"))
+@Getter @Setter
+public class HotStockAllocation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "instance_id", length = 100, nullable = false)
+    private String instanceId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "allocated", nullable = false)
+    private int allocated;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+}
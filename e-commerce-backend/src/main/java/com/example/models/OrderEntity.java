@@ -4,9 +4,12 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 
 
@@ -32,6 +35,29 @@ public class OrderEntity {
     @Column(name = "stripe_charge_id", length = 255)
     private String stripeChargeId;
 
+    // One intent for the order total; null for orders paid with one intent per item
+    @Column(name = "stripe_payment_intent_id")
+    private String stripePaymentIntentId;
+
+    @Column(name = "stripe_client_secret")
+    private String stripeClientSecret;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status", length = 30)
+    private PaymentStatus paymentStatus;
+
+    /**
+     * Payment progress. An order is placed in creating_intent; the PaymentIntent is created
+     * after the order commits and moves it to awaiting_payment, and the charge to paid.
+     * failed covers both an intent that could not be created and a failed charge.
+     */
+    public enum PaymentStatus {
+        creating_intent,
+        awaiting_payment,
+        paid,
+        failed;
+    }
+
     @ManyToOne
     @JoinColumn(name = "shipping_address", nullable = false)
     private Address shippingAddress;
@@ -57,6 +83,42 @@ public class OrderEntity {
     @Column(name = "tracking_number", length = 50)
     private String trackingNumber;
 
+    // Priced once when the order is placed, see OrderPricing; never recomputed from the items
+    @Column(name = "subtotal", precision = 10, scale = 2, nullable = false)
+    private BigDecimal subtotal = BigDecimal.ZERO;
+
+    @Column(name = "tax", precision = 10, scale = 2, nullable = false)
+    private BigDecimal tax = BigDecimal.ZERO;
+
+    @Column(name = "shipping_cost", precision = 10, scale = 2, nullable = false)
+    private BigDecimal shippingCost = BigDecimal.ZERO;
+
+    @Column(name = "total_amount", precision = 10, scale = 2, nullable = false)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    @Column(name = "item_count", nullable = false)
+    private int itemCount;
+
+    // Written when the order is placed so the admin order search needs no joins
+    @Column(name = "customer_email", length = 70)
+    private String customerEmail;
+
+    @ElementCollection
+    @CollectionTable(name = "order_stores", joinColumns = @JoinColumn(name = "order_id"))
+    @Column(name = "store_id")
+    private Set<Long> storeIds = new HashSet<>();
+
+    // Lowercased words of the product and store names, searched by prefix
+    @ElementCollection
+    @CollectionTable(name = "order_product_terms", joinColumns = @JoinColumn(name = "order_id"))
+    @Column(name = "term", length = 100)
+    private Set<String> productTerms = new HashSet<>();
+
+    @ElementCollection
+    @CollectionTable(name = "order_store_terms", joinColumns = @JoinColumn(name = "order_id"))
+    @Column(name = "term", length = 100)
+    private Set<String> storeTerms = new HashSet<>();
+
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderItem> orderItems;
 }
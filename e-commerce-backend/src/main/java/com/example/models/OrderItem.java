@@ -32,6 +32,10 @@ public class OrderItem {
     @Column(name = "stripe_payment_intent_id")
     private String stripePaymentIntentId;
 
+    // Returned by Stripe when the intent is created; only the order's owner is ever shown it
+    @Column(name = "stripe_client_secret")
+    private String stripeClientSecret;
+
     @Column(name = "stripe_charge_id")
     private String stripeChargeId;
 
@@ -0,0 +1,45 @@
+package com.example.models;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * One slot of the running count of orders in a status, with the sum of their stored
+ * totals. The figures for a status are the sum over its slots; a single slot may go
+ * negative. See OrderStatusCounters.
+ */
+@Entity
+@Table(name = "order_status_counts",
+    uniqueConstraints = @UniqueConstraint(name = "uk_order_status_counts_status_slot",
+        columnNames = {"status", "slot"}))
+@Getter @Setter
+public class OrderStatusCount {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 50, nullable = false)
+    private OrderEntity.Status status;
+
+    @Column(name = "slot", nullable = false)
+    private int slot;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(name = "total_amount", precision = 14, scale = 2, nullable = false)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+}
@@ -5,9 +5,13 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -25,6 +29,7 @@ import lombok.Setter;
 
 @Entity
 @Table(name = "products")
+@DynamicUpdate
 @Getter @Setter
 @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 public class Product {
@@ -64,6 +69,16 @@ public class Product {
     @Column(name = "fast_delivery", nullable = false)
     private boolean fastDelivery = false;
 
+    // Sold from in-memory counters during flash sales, see HotStockInventory
+    @Column(name = "hot_stock", nullable = false)
+    private boolean hotStock = false;
+
+    // Units held by HotStockInventory blocks; only ever changed with SQL increments
+    @JsonIgnore
+    @Column(name = "hot_allocated", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private int hotAllocated;
+
     // pre-calculated rating values for removing useless join queries
     @Column(name = "average_rating")
     private Float averageRating;
@@ -1,12 +1,15 @@
 package com.example.models;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Getter;
 import lombok.Setter;
 
 @Entity
 @Table(name = "product_images")
 @Getter @Setter
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class ProductImage {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
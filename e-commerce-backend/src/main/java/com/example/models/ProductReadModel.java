@@ -0,0 +1,91 @@
+package com.example.models;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Denormalized copy of a product as the API returns it: store, seller and category
+ * names and the image URLs are stored on the row, so product listings are read from
+ * this table alone. Maintained by ProductReadModelService in the same transaction as
+ * the product, store, category and user writes it depends on.
+ */
+@Entity
+@Table(name = "product_read_model", indexes = {
+    @Index(name = "idx_prm_category", columnList = "category_id"),
+    @Index(name = "idx_prm_store", columnList = "store_id"),
+    @Index(name = "idx_prm_seller", columnList = "seller_id")
+})
+@Getter @Setter
+public class ProductReadModel {
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "title", length = 80, nullable = false)
+    private String title;
+
+    @Column(name = "description", columnDefinition = "TEXT")
+    private String description;
+
+    @Column(name = "price", precision = 10, scale = 2, nullable = false)
+    private BigDecimal price;
+
+    @Column(name = "stock_quantity", nullable = false)
+    private int stockQuantity;
+
+    @Column(name = "average_rating")
+    private Float averageRating;
+
+    @Column(name = "free_shipping", nullable = false)
+    private boolean freeShipping;
+
+    @Column(name = "fast_delivery", nullable = false)
+    private boolean fastDelivery;
+
+    @Column(name = "category_id")
+    private Integer categoryId;
+
+    @Column(name = "category_name", length = 120)
+    private String categoryName;
+
+    @Column(name = "category_slug", length = 150)
+    private String categorySlug;
+
+    @Column(name = "store_id")
+    private Long storeId;
+
+    @Column(name = "store_name", length = 20)
+    private String storeName;
+
+    @Column(name = "seller_id")
+    private Long sellerId;
+
+    @Column(name = "seller_name")
+    private String sellerName;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "image_urls")
+    private List<String> imageUrls;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Last write to this row from any source; the HTTP validators are derived from it
+    @Column(name = "refreshed_at")
+    private LocalDateTime refreshedAt;
+}
@@ -0,0 +1,74 @@
+package com.example.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Units of one product held for one order. The units are taken from the product's stock
+ * when the reservation is made; releasing the reservation gives them back, committing it
+ * (the order was paid) keeps them taken. See StockReservationService.
+ *
+ * Reservations of hot products are served from an instance's in-memory block instead
+ * (hotInstanceId) and reach products.stock_quantity later, when the instance flushes them.
+ */
+@Entity
+@Table(name = "stock_reservations", indexes = {
+    @Index(name = "idx_stock_reservations_order", columnList = "order_id, status"),
+    @Index(name = "idx_stock_reservations_expiry", columnList = "status, expires_at"),
+    @Index(name = "idx_stock_reservations_unflushed", columnList = "hot_instance_id, stock_flushed")
+})
+@Getter @Setter
+public class StockReservation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private Status status;
+
+    // An active reservation still unpaid at this time is released
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "resolved_at")
+    private LocalDateTime resolvedAt;
+
+    // Instance whose hot stock block the units came from; null when taken from stock_quantity
+    @Column(name = "hot_instance_id", length = 100)
+    private String hotInstanceId;
+
+    // False while the units of a hot reservation are still to be written to stock_quantity
+    @Column(name = "stock_flushed", nullable = false)
+    private boolean stockFlushed = true;
+
+    public enum Status {
+        ACTIVE,
+        COMMITTED,
+        RELEASED
+    }
+}
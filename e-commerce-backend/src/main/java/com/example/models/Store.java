@@ -1,6 +1,8 @@
 package com.example.models;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.Getter;
 import lombok.Setter;
 import java.sql.Timestamp;
@@ -9,6 +11,7 @@ import java.util.List;
 @Entity
 @Table(name = "stores")
 @Getter @Setter
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Store {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
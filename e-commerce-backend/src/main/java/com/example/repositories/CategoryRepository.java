@@ -1,19 +1,24 @@
 package com.example.repositories;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.example.models.Category;
 import com.example.repositories.generic.GenericRepository;
 
+import jakarta.persistence.QueryHint;
+
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CategoryRepository extends GenericRepository<Category, Integer> {
     
-    // Find a category by its slug
+    // Find a category by its slug; the result is kept in the query cache until the categories table changes
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Category> findBySlug(String slug);
     
     // Find all root categories (categories without a parent)
@@ -32,4 +37,9 @@ public interface CategoryRepository extends GenericRepository<Category, Integer>
     
     // Find categories by name containing keyword
     List<Category> findByNameContainingIgnoreCase(String keyword);
+
+    // Flat scalar rows for CategoryTreeSnapshot: id, name, slug, imageUrl, description, active, parent id
+    @Query("SELECT c.id, c.name, c.slug, c.imageUrl, c.description, c.active, p.id " +
+           "FROM Category c LEFT JOIN c.parentCategory p")
+    List<Object[]> findTreeRows();
 }
\ No newline at end of file
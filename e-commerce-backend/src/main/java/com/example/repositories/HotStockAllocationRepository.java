@@ -0,0 +1,40 @@
+package com.example.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.models.HotStockAllocation;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface HotStockAllocationRepository extends JpaRepository<HotStockAllocation, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM HotStockAllocation a WHERE a.instanceId = :instanceId")
+    List<HotStockAllocation> findByInstanceIdForUpdate(@Param("instanceId") String instanceId);
+
+    @Query("SELECT a.productId FROM HotStockAllocation a WHERE a.instanceId = :instanceId")
+    List<Long> findProductIdsByInstanceId(@Param("instanceId") String instanceId);
+
+    @Query("SELECT DISTINCT a.instanceId FROM HotStockAllocation a WHERE a.heartbeatAt < :before")
+    List<String> findStaleInstanceIds(@Param("before") LocalDateTime before);
+
+    // Adds delta (negative to give units back); 0 if the instance holds no row for the product
+    @Modifying
+    @Query("UPDATE HotStockAllocation a SET a.allocated = a.allocated + :delta, a.heartbeatAt = :now " +
+           "WHERE a.instanceId = :instanceId AND a.productId = :productId")
+    int adjust(@Param("instanceId") String instanceId, @Param("productId") Long productId,
+               @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE HotStockAllocation a SET a.heartbeatAt = :now WHERE a.instanceId = :instanceId")
+    int heartbeat(@Param("instanceId") String instanceId, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,53 @@
+package com.example.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.models.IdempotencyRecord;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByOwnerAndIdempotencyKey(String owner, String idempotencyKey);
+
+    // Takes over a request whose lock lapsed; 0 if it finished or another instance took it first
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.lockedUntil = :lockedUntil WHERE r.id = :id " +
+           "AND r.status = com.example.models.IdempotencyRecord.Status.IN_PROGRESS AND r.lockedUntil < :now")
+    int takeOver(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    // Extends the locks of requests still running on this instance
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.lockedUntil = :lockedUntil WHERE r.id IN :ids " +
+           "AND r.status = com.example.models.IdempotencyRecord.Status.IN_PROGRESS")
+    int renew(@Param("ids") Collection<Long> ids, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = com.example.models.IdempotencyRecord.Status.COMPLETED, " +
+           "r.responseStatus = :responseStatus, r.responseContentType = :contentType, r.responseLocation = :location, " +
+           "r.responseBody = :body, r.expiresAt = :expiresAt WHERE r.id = :id")
+    int complete(@Param("id") Long id, @Param("responseStatus") int responseStatus, @Param("contentType") String contentType,
+                 @Param("location") String location, @Param("body") String body, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Forgets a request that failed, so that a retry runs it again
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.status = com.example.models.IdempotencyRecord.Status.IN_PROGRESS")
+    int abandon(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
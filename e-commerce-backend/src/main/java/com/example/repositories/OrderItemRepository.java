@@ -1,6 +1,8 @@
 package com.example.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.example.models.OrderItem;
@@ -13,4 +15,12 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByOrder_Id(Long orderId);
     List<OrderItem> findByProduct_Id(Long productId);
     Optional<OrderItem> findByStripePaymentIntentId(String paymentIntentId);
+
+    // Pairs of products bought in the same order, with the number of such orders, most shared first
+    @Query("SELECT a.product.id, b.product.id, COUNT(DISTINCT a.order.id) FROM OrderItem a, OrderItem b " +
+           "WHERE a.order = b.order AND a.product.id < b.product.id " +
+           "AND a.order.status <> com.example.models.OrderEntity.Status.cancelled " +
+           "GROUP BY a.product.id, b.product.id " +
+           "ORDER BY COUNT(DISTINCT a.order.id) DESC")
+    List<Object[]> countCoPurchases(Pageable pageable);
 }
\ No newline at end of file
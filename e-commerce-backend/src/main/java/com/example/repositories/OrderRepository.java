@@ -2,13 +2,19 @@ package com.example.repositories;
 
 // import org.springframework.data.jpa.repository.JpaRepository; // No longer directly needed
 import com.example.repositories.generic.GenericRepository; // Import GenericRepository
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.DTO.OrderHistoryItemRow;
+import com.example.DTO.OrderHistoryRow;
 import com.example.models.OrderEntity;
 import com.example.models.OrderItem;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,8 +22,30 @@ import java.util.Optional;
 public interface OrderRepository extends GenericRepository<OrderEntity, Long> { // Extend GenericRepository
     List<OrderEntity> findByUser_Id(int userId);
 
-    @Query("SELECT o FROM OrderEntity o JOIN o.orderItems oi JOIN oi.product p JOIN p.store s WHERE s.seller.id = :sellerId ORDER BY o.createdAt DESC")
+    // Order history, newest first: one query for a page of orders, one for all their items
+
+    @Query(value = "SELECT new com.example.DTO.OrderHistoryRow(o.id, o.status, o.createdAt, o.updatedAt, " +
+                   "o.trackingNumber, o.estimatedDelivery, o.subtotal, o.tax, o.shippingCost, o.totalAmount, o.itemCount, " +
+                   "o.paymentStatus, o.stripePaymentIntentId, o.stripeChargeId, " +
+                   "a.id, a.street, a.city, a.state, a.country, a.zipCode) " +
+                   "FROM OrderEntity o JOIN o.shippingAddress a WHERE o.user.email = :email " +
+                   "ORDER BY o.createdAt DESC, o.id DESC",
+           countQuery = "SELECT COUNT(o) FROM OrderEntity o WHERE o.user.email = :email")
+    Page<OrderHistoryRow> findHistoryByUserEmail(@Param("email") String email, Pageable pageable);
+
+    @Query("SELECT new com.example.DTO.OrderHistoryItemRow(oi.order.id, p.id, p.name, oi.quantity, oi.priceAtPurchase, " +
+           "oi.stripePaymentIntentId) FROM OrderItem oi JOIN oi.product p WHERE oi.order.id IN :orderIds ORDER BY oi.orderItemId")
+    List<OrderHistoryItemRow> findHistoryItemsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("SELECT DISTINCT o FROM OrderEntity o JOIN o.orderItems oi JOIN oi.product p JOIN p.store s WHERE s.seller.id = :sellerId ORDER BY o.createdAt DESC")
     List<OrderEntity> findBySellerIdOrderByCreatedAtDesc(@Param("sellerId") int sellerId);
+
+    // Seller dashboard figures, aggregated in SQL: a seller earns only their own lines of an order
+    @Query("SELECT COALESCE(SUM(oi.priceAtPurchase * oi.quantity), 0) FROM OrderItem oi WHERE oi.product.store.seller.id = :sellerId")
+    BigDecimal sumRevenueBySellerId(@Param("sellerId") int sellerId);
+
+    @Query("SELECT COUNT(DISTINCT oi.order.id) FROM OrderItem oi WHERE oi.product.store.seller.id = :sellerId")
+    long countOrdersBySellerId(@Param("sellerId") int sellerId);
     @Query("SELECT o FROM OrderEntity o JOIN o.orderItems oi JOIN oi.product p JOIN p.store s WHERE s.seller.id = :sellerId")
     List<OrderEntity> findOrdersBySellerId(@Param("sellerId") int sellerId);
 
@@ -27,22 +55,13 @@ public interface OrderRepository extends GenericRepository<OrderEntity, Long> {
     @Query("SELECT oi FROM OrderItem oi WHERE oi.stripePaymentIntentId = :paymentIntentId")
     Optional<OrderItem> findByStripePaymentIntentId(@Param("paymentIntentId") String paymentIntentId);
 
+    @Query("SELECT o FROM OrderEntity o WHERE o.stripePaymentIntentId = :paymentIntentId")
+    Optional<OrderEntity> findOrderByStripePaymentIntentId(@Param("paymentIntentId") String paymentIntentId);
+
     @Query("SELECT COUNT(oi) > 0 FROM OrderEntity o JOIN o.orderItems oi WHERE o.user.id = :userId AND oi.product.id = :productId AND o.status IN ('delivered', 'shipped', 'processing')")
     boolean existsByUserIdAndProductId(@Param("userId") int userId, @Param("productId") Long productId);
     
-    // Order stats counting methods
-    @Query("SELECT COUNT(o) FROM OrderEntity o WHERE o.status = 'pending'")
-    long countPendingOrders();
-    
-    @Query("SELECT COUNT(o) FROM OrderEntity o WHERE o.status = 'processing'")
-    long countProcessingOrders();
-    
-    @Query("SELECT COUNT(o) FROM OrderEntity o WHERE o.status = 'shipped'")
-    long countShippedOrders();
-    
-    @Query("SELECT COUNT(o) FROM OrderEntity o WHERE o.status = 'delivered'")
-    long countDeliveredOrders();
-    
-    @Query("SELECT COUNT(o) FROM OrderEntity o WHERE o.status = 'cancelled'")
-    long countCancelledOrders();
-}
\ No newline at end of file
+    // Status, order count, total amount: what OrderStatusCounters keeps, counted from the orders
+    @Query("SELECT o.status, COUNT(o), COALESCE(SUM(o.totalAmount), 0) FROM OrderEntity o WHERE o.status IS NOT NULL GROUP BY o.status")
+    List<Object[]> countAndSumByStatus();
+}
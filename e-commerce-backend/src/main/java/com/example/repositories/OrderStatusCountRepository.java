@@ -0,0 +1,28 @@
+package com.example.repositories;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.models.OrderEntity;
+import com.example.models.OrderStatusCount;
+
+@Repository
+public interface OrderStatusCountRepository extends JpaRepository<OrderStatusCount, Long> {
+
+    // 0 if the slot row does not exist
+    @Modifying
+    @Query("UPDATE OrderStatusCount c SET c.orderCount = c.orderCount + :orders, c.totalAmount = c.totalAmount + :amount " +
+           "WHERE c.status = :status AND c.slot = :slot")
+    int add(@Param("status") OrderEntity.Status status, @Param("slot") int slot,
+            @Param("orders") long orders, @Param("amount") BigDecimal amount);
+
+    // Status, order count, total amount
+    @Query("SELECT c.status, SUM(c.orderCount), SUM(c.totalAmount) FROM OrderStatusCount c GROUP BY c.status")
+    List<Object[]> sumByStatus();
+}
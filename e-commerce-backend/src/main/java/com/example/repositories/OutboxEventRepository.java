@@ -0,0 +1,66 @@
+package com.example.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.models.OutboxEvent;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Pending events that are due, and processing events whose claim has lapsed
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.status IN (com.example.models.OutboxEvent.Status.PENDING, " +
+           "com.example.models.OutboxEvent.Status.PROCESSING) AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Takes the event for one dispatcher until claimedUntil; 0 if another one got it first
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = com.example.models.OutboxEvent.Status.PROCESSING, " +
+           "e.nextAttemptAt = :claimedUntil WHERE e.id = :id AND e.status IN " +
+           "(com.example.models.OutboxEvent.Status.PENDING, com.example.models.OutboxEvent.Status.PROCESSING) " +
+           "AND e.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("claimedUntil") LocalDateTime claimedUntil);
+
+    // Hands a claimed event back, due immediately, when it could not be queued
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = com.example.models.OutboxEvent.Status.PENDING, " +
+           "e.nextAttemptAt = :now WHERE e.id = :id AND e.status = com.example.models.OutboxEvent.Status.PROCESSING")
+    int release(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // The updates below record the outcome of a run, and only while the claim that started it
+    // is still held: 0 if it lapsed and the event was claimed again, which then owns the outcome
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = com.example.models.OutboxEvent.Status.DONE, " +
+           "e.processedAt = :processedAt, e.lastError = NULL WHERE e.id = :id " +
+           "AND e.status = com.example.models.OutboxEvent.Status.PROCESSING AND e.nextAttemptAt = :claimedUntil")
+    int complete(@Param("id") Long id, @Param("claimedUntil") LocalDateTime claimedUntil,
+                 @Param("processedAt") LocalDateTime processedAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = com.example.models.OutboxEvent.Status.PENDING, " +
+           "e.attempts = :attempts, e.lastError = :lastError, e.nextAttemptAt = :nextAttemptAt WHERE e.id = :id " +
+           "AND e.status = com.example.models.OutboxEvent.Status.PROCESSING AND e.nextAttemptAt = :claimedUntil")
+    int retry(@Param("id") Long id, @Param("claimedUntil") LocalDateTime claimedUntil, @Param("attempts") int attempts,
+              @Param("lastError") String lastError, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = com.example.models.OutboxEvent.Status.FAILED, " +
+           "e.attempts = :attempts, e.lastError = :lastError, e.processedAt = :processedAt WHERE e.id = :id " +
+           "AND e.status = com.example.models.OutboxEvent.Status.PROCESSING AND e.nextAttemptAt = :claimedUntil")
+    int fail(@Param("id") Long id, @Param("claimedUntil") LocalDateTime claimedUntil, @Param("attempts") int attempts,
+             @Param("lastError") String lastError, @Param("processedAt") LocalDateTime processedAt);
+}
@@ -17,4 +17,7 @@ public interface ProductImageRepository extends JpaRepository<ProductImage, Long
     @Modifying
     @Query("DELETE FROM ProductImage pi WHERE pi.product.id = :productId")
     void deleteAllByProductId(@Param("productId") Long productId);
+
+    @Query("SELECT pi.imageUrl FROM ProductImage pi WHERE pi.product.id = :productId ORDER BY pi.id")
+    List<String> findImageUrlsByProductId(@Param("productId") Long productId);
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+package com.example.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.DTO.ProductDTO.ProductListVersion;
+import com.example.models.ProductReadModel;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface ProductReadModelRepository extends JpaRepository<ProductReadModel, Long> {
+
+    List<ProductReadModel> findByStoreIdOrderByProductId(Long storeId);
+
+    List<ProductReadModel> findByCategoryIdOrderByProductId(Integer categoryId);
+
+    List<ProductReadModel> findAllByOrderByProductId();
+
+    // Products anywhere in the subtree of the category with the given slug, joined through the closure table
+    @Query("SELECT r FROM ProductReadModel r WHERE r.categoryId IN (SELECT c.id FROM Category c WHERE c.slug = :slug OR EXISTS " +
+           "(SELECT 1 FROM SubCategoryRelation scr WHERE scr.descendant = c AND scr.ancestor.slug = :slug)) ORDER BY r.productId")
+    List<ProductReadModel> findInCategorySubtree(@Param("slug") String slug);
+
+    // Same matching as ProductRepository.searchByKeyword, on the denormalized columns
+    @Query("SELECT r FROM ProductReadModel r WHERE LOWER(r.title) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+           "OR LOWER(r.description) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
+           "OR LOWER(r.categoryName) LIKE LOWER(CONCAT('%', :keyword, '%')) ORDER BY r.productId")
+    List<ProductReadModel> searchByKeyword(@Param("keyword") String keyword);
+
+    @Query("SELECT DISTINCT r.categoryId FROM ProductReadModel r WHERE r.categoryId IS NOT NULL")
+    Set<Integer> findCategoryIdsWithProducts();
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM ProductReadModel r ORDER BY r.productId")
+    Stream<ProductReadModel> streamAll();
+
+    // Validators (row count, latest refreshedAt) of the rows behind a response, without reading the rows
+
+    @Query("SELECT new com.example.DTO.ProductDTO.ProductListVersion(COUNT(r), MAX(r.refreshedAt)) " +
+           "FROM ProductReadModel r WHERE r.productId = :productId")
+    ProductListVersion findVersionByProductId(@Param("productId") Long productId);
+
+    @Query("SELECT new com.example.DTO.ProductDTO.ProductListVersion(COUNT(r), MAX(r.refreshedAt)) " +
+           "FROM ProductReadModel r WHERE r.storeId = :storeId")
+    ProductListVersion findVersionByStoreId(@Param("storeId") Long storeId);
+
+    @Query("SELECT new com.example.DTO.ProductDTO.ProductListVersion(COUNT(r), MAX(r.refreshedAt)) " +
+           "FROM ProductReadModel r WHERE r.categoryId IN :categoryIds")
+    ProductListVersion findVersionByCategoryIds(@Param("categoryIds") Collection<Integer> categoryIds);
+
+    // Fan-out of renames to every product row that copies the value
+
+    @Modifying
+    @Query("UPDATE ProductReadModel r SET r.storeName = :storeName, r.refreshedAt = :now WHERE r.storeId = :storeId")
+    int updateStoreName(@Param("storeId") Long storeId, @Param("storeName") String storeName,
+                        @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE ProductReadModel r SET r.categoryName = :name, r.categorySlug = :slug, r.refreshedAt = :now " +
+           "WHERE r.categoryId = :categoryId")
+    int updateCategory(@Param("categoryId") Integer categoryId, @Param("name") String name, @Param("slug") String slug,
+                       @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE ProductReadModel r SET r.sellerName = :sellerName, r.refreshedAt = :now WHERE r.sellerId = :sellerId")
+    int updateSellerName(@Param("sellerId") Long sellerId, @Param("sellerName") String sellerName,
+                         @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE ProductReadModel r SET r.categoryId = NULL, r.categoryName = NULL, r.categorySlug = NULL, " +
+           "r.refreshedAt = :now WHERE r.categoryId = :categoryId")
+    int clearCategory(@Param("categoryId") Integer categoryId, @Param("now") LocalDateTime now);
+
+    // Mirrors a stock change made directly on products (order reservations)
+    @Modifying
+    @Query("UPDATE ProductReadModel r SET r.stockQuantity = r.stockQuantity + :delta, r.refreshedAt = :now " +
+           "WHERE r.productId = :productId")
+    int adjustStock(@Param("productId") Long productId, @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM ProductReadModel r WHERE r.storeId = :storeId")
+    int deleteByStoreId(@Param("storeId") Long storeId);
+}
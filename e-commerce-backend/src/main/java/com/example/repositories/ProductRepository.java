@@ -4,7 +4,6 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
@@ -15,9 +14,8 @@ import com.example.models.Product;
 import com.example.repositories.generic.GenericRepository;
 
 @Repository
-public interface ProductRepository extends GenericRepository<Product, Long> {
+public interface ProductRepository extends GenericRepository<Product, Long>, ProductRepositoryCustom {
     List<Product> findByStore_Id(Long storeId);
-    Page<Product> findByStore_Id(Long storeId, Pageable pageable);
 
     @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.images LEFT JOIN FETCH p.category WHERE p.store.id = :storeId")
     List<Product> findByStoreIdWithImagesAndCategory(@Param("storeId") Long storeId);
@@ -26,17 +24,18 @@ public interface ProductRepository extends GenericRepository<Product, Long> {
     List<Product> findLowStockProductsBySellerId(int sellerId);
 
     // Updated to support pagination and Integer parameter
-    @Cacheable(value = "products", key = "#categoryId")
     Page<Product> findByCategory_Id(Integer categoryId, Pageable pageable);
     
+    // IDs of the products in one category (not its subcategories), for reindexing them after a category write
+    @Query("SELECT p.id FROM Product p WHERE p.category.id = :categoryId")
+    List<Long> findIdsByCategoryId(@Param("categoryId") Integer categoryId);
+
     // Method to find products by category ID without pagination
     @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.images LEFT JOIN FETCH p.category WHERE p.category.id = :categoryId AND p.category IS NOT NULL")
-    @Cacheable(value = "products", key = "#categoryId")
     List<Product> findByCategoryId(@Param("categoryId") Integer categoryId);
     
     // Method to find products by category slug with improved query
     @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.images LEFT JOIN FETCH p.category WHERE p.category.slug = :slug AND p.category IS NOT NULL")
-    @Cacheable(value = "products", key = "#slug")
     List<Product> findByCategorySlug(@Param("slug") String slug);
     
     // This method will be replaced by a combination of CategoryService.getAllDescendantIds and a new findByCategoryIdsIn method.
@@ -44,7 +43,6 @@ public interface ProductRepository extends GenericRepository<Product, Long> {
     //        "WHERE c.slug = :slug " +
     //        "OR c.parentCategory.slug = :slug " +
     //        "OR EXISTS (SELECT 1 FROM Category sub WHERE sub.slug = :slug AND sub.id = c.parentCategory.id)")
-    // @Cacheable(value = "products", key = "#slug + '_with_subcategories'")
     // List<Product> findByCategorySlugWithSubcategories(@Param("slug") String slug);
 
     // New method to find products by a list of category IDs
@@ -62,16 +60,13 @@ public interface ProductRepository extends GenericRepository<Product, Long> {
            "OR LOWER(p.category.description) LIKE LOWER(CONCAT('%', :query, '%'))")
     List<Product> searchByKeyword(@Param("query") String query);
     
-    // New method to search products by both category and keyword with subcategories
-    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.images LEFT JOIN FETCH p.category c " +
+    // Search products by keyword within a category subtree (any depth, via the closure table); IDs, rows come from the read model
+    @Query("SELECT DISTINCT p.id FROM Product p LEFT JOIN p.category c " +
            "WHERE (LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) " +
            "OR LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
            "AND (c.slug = :categorySlug " +
-           "OR c.parentCategory.slug = :categorySlug " +
-           "OR EXISTS (SELECT 1 FROM Category sub WHERE sub.parentCategory.slug = :categorySlug AND sub.id = c.id) " +
-           "OR EXISTS (SELECT 1 FROM Category sub WHERE sub.slug = :categorySlug AND c.parentCategory.id = sub.id) " +
-           "OR EXISTS (SELECT 1 FROM Category sub WHERE sub.parentCategory.slug = :categorySlug AND c.parentCategory.id = sub.id))")
-    List<Product> searchByCategoryAndKeyword(@Param("categorySlug") String categorySlug, @Param("keyword") String keyword);
+           "OR EXISTS (SELECT 1 FROM SubCategoryRelation scr WHERE scr.descendant = c AND scr.ancestor.slug = :categorySlug))")
+    List<Long> searchIdsByCategoryAndKeyword(@Param("categorySlug") String categorySlug, @Param("keyword") String keyword);
 
     // Method to broadly search for products by category name, handling variations
     @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.images LEFT JOIN FETCH p.category " +
@@ -86,16 +81,29 @@ public interface ProductRepository extends GenericRepository<Product, Long> {
     @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.images LEFT JOIN FETCH p.category")
     List<Product> findAllWithImages();
 
-    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.images LEFT JOIN FETCH p.category WHERE p.store.id = :storeId")
-    Page<Product> findByStoreIdWithImagesAndCategory(@Param("storeId") Long storeId, Pageable pageable);
+    // Paged reads go through ProductRepositoryCustom.findPageWithImages (ID page first, then fetch join)
 
-    // Enhanced search method with pagination
-    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.images LEFT JOIN FETCH p.category " +
-           "WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :query, '%')) " +
-           "OR LOWER(p.description) LIKE LOWER(CONCAT('%', :query, '%')) " +
-           "OR LOWER(p.category.name) LIKE LOWER(CONCAT('%', :query, '%')) " +
-           "OR LOWER(p.category.description) LIKE LOWER(CONCAT('%', :query, '%'))")
-    Page<Product> searchByKeywordWithPagination(@Param("query") String query, Pageable pageable);
+    // Text fields for the in-memory search index, read in id order so the build can resume after the last id
+    @Query("SELECT p.id, p.name, p.description, c.name, c.description FROM Product p LEFT JOIN p.category c " +
+           "WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findSearchDocumentsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Facet values for the in-memory facet index, read in id order like findSearchDocumentsAfter
+    @Query("SELECT p.id, c.name, p.price, p.averageRating, p.freeShipping, p.fastDelivery FROM Product p " +
+           "LEFT JOIN p.category c WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findFacetDocumentsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Name and ranking signals for the typeahead suggestion index, read in id order
+    @Query("SELECT p.id, p.name, p.totalSales, p.averageRating FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findSuggestionDocumentsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Category, name and sales for the related-products index, read in id order
+    @Query("SELECT p.id, c.id, p.name, p.totalSales FROM Product p LEFT JOIN p.category c " +
+           "WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findRelatedDocumentsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT p.id FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
 
     // Find products by multiple category IDs
     @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.images LEFT JOIN FETCH p.category WHERE p.category.id IN :categoryIds")
@@ -0,0 +1,47 @@
+package com.example.repositories;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.example.models.Product;
+
+/**
+ * Product queries that Spring Data's derived and specification methods cannot express.
+ *
+ * Paged reads run in two phases: first the page of product IDs is selected with the
+ * database doing the LIMIT, then those IDs are loaded with images and category in one
+ * fetch-join query. Combining JOIN FETCH of a collection with a Pageable directly makes
+ * Hibernate paginate in memory over every matching row.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Two-phase equivalent of findAll(spec, pageable); products come with images and category.
+     */
+    Page<Product> findPageWithImages(Specification<Product> spec, Pageable pageable);
+
+    /**
+     * Like findPageWithImages but reads one extra ID instead of running a count query.
+     * Ordering set by the specification is kept when the pageable is unsorted.
+     */
+    Slice<Product> findSlice(Specification<Product> spec, Pageable pageable);
+
+    /**
+     * Phase one of findPageWithImages on its own: the page of matching product IDs.
+     */
+    Page<Long> findIdPage(Specification<Product> spec, Pageable pageable);
+
+    /**
+     * Phase one of findSlice on its own: the slice of matching product IDs.
+     */
+    Slice<Long> findIdSlice(Specification<Product> spec, Pageable pageable);
+
+    /**
+     * Loads the given IDs with images and category in one query, in the order of the list.
+     */
+    List<Product> findAllWithImagesInOrder(List<Long> ids);
+}
@@ -0,0 +1,131 @@
+package com.example.repositories;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import com.example.models.Product;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<Product> findPageWithImages(Specification<Product> spec, Pageable pageable) {
+        Page<Long> ids = findIdPage(spec, pageable);
+        return new PageImpl<>(findAllWithImagesInOrder(ids.getContent()), pageable, ids.getTotalElements());
+    }
+
+    @Override
+    public Slice<Product> findSlice(Specification<Product> spec, Pageable pageable) {
+        Slice<Long> ids = findIdSlice(spec, pageable);
+        return new SliceImpl<>(findAllWithImagesInOrder(ids.getContent()), pageable, ids.hasNext());
+    }
+
+    @Override
+    public Page<Long> findIdPage(Specification<Product> spec, Pageable pageable) {
+        List<Long> ids = findIds(spec, pageable, pageable.isPaged() ? pageable.getPageSize() : -1);
+        return PageableExecutionUtils.getPage(ids, pageable, () -> count(spec));
+    }
+
+    @Override
+    public Slice<Long> findIdSlice(Specification<Product> spec, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(findIds(spec, pageable, -1), pageable, false);
+        }
+        List<Long> ids = findIds(spec, pageable, pageable.getPageSize() + 1);
+        boolean hasNext = ids.size() > pageable.getPageSize();
+        if (hasNext) {
+            ids = ids.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(ids, pageable, hasNext);
+    }
+
+    @Override
+    public List<Product> findAllWithImagesInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Product> products = entityManager.createQuery(
+                "SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.images LEFT JOIN FETCH p.category WHERE p.id IN :ids",
+                Product.class)
+                .setParameter("ids", ids)
+                .getResultList();
+
+        Map<Long, Product> byId = new HashMap<>();
+        for (Product product : products) {
+            byId.put(product.getId(), product);
+        }
+        List<Product> ordered = new ArrayList<>(byId.size());
+        for (Long id : ids) {
+            Product product = byId.get(id);
+            if (product != null) {
+                ordered.add(product);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Phase one: the IDs of the requested page, with the database applying ORDER BY,
+     * OFFSET and LIMIT. Ordering set by the specification is kept when the pageable
+     * is unsorted. A negative limit reads all rows.
+     */
+    private List<Long> findIds(Specification<Product> spec, Pageable pageable, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, criteriaBuilder) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(root.get("id"));
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, criteriaBuilder));
+        }
+
+        TypedQuery<Long> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+        }
+        if (limit >= 0) {
+            typedQuery.setMaxResults(limit);
+        }
+        return typedQuery.getResultList();
+    }
+
+    private long count(Specification<Product> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, criteriaBuilder) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(criteriaBuilder.count(root));
+        query.orderBy(Collections.emptyList());
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -2,6 +2,7 @@ package com.example.repositories;
 
 import com.example.models.Refund;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,4 +15,7 @@ public interface RefundRepository extends JpaRepository<Refund, Long> {
     List<Refund> findByOrderItem_Order_User_Id(Integer userId);
     List<Refund> findByOrderItem_Order_Id(Long orderId);
     Optional<Refund> findByStripeRefundId(String stripeRefundId);
+
+    @Query("SELECT COUNT(DISTINCT r.orderItem.order.id) FROM Refund r WHERE r.status = com.example.models.Refund.RefundStatus.COMPLETED")
+    long countRefundedOrders();
 } 
\ No newline at end of file
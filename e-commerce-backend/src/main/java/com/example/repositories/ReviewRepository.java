@@ -4,6 +4,8 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.models.Review;
 
@@ -18,6 +20,10 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     // Check if a review exists
     boolean existsByProductIdAndUserId(Long productId, int userId);
     
+    // Mean rating of the product's reviews, null when it has none
+    @Query("SELECT AVG(r.rating) FROM Review r WHERE r.product.id = :productId")
+    Double findAverageRatingByProductId(@Param("productId") Long productId);
+
     // Sorting methods
     List<Review> findByProductIdOrderByRatingDesc(Long productId);
     List<Review> findByProductIdOrderByRatingAsc(Long productId);
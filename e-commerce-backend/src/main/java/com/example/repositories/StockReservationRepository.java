@@ -0,0 +1,54 @@
+package com.example.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.models.StockReservation;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findByOrderIdAndStatus(Long orderId, StockReservation.Status status);
+
+    @Query("SELECT DISTINCT r.orderId FROM StockReservation r WHERE r.status = com.example.models.StockReservation.Status.ACTIVE " +
+           "AND r.expiresAt <= :now")
+    List<Long> findExpiredOrderIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Moves an active reservation to its final status; 0 if it was already resolved
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :status, r.resolvedAt = :now WHERE r.id = :id " +
+           "AND r.status = com.example.models.StockReservation.Status.ACTIVE")
+    int resolve(@Param("id") Long id, @Param("status") StockReservation.Status status, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = com.example.models.StockReservation.Status.COMMITTED, " +
+           "r.resolvedAt = :now WHERE r.orderId = :orderId AND r.status = com.example.models.StockReservation.Status.ACTIVE")
+    int commitByOrderId(@Param("orderId") Long orderId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT r.id FROM StockReservation r WHERE r.hotInstanceId = :instanceId AND r.stockFlushed = false")
+    List<Long> findUnflushedIds(@Param("instanceId") String instanceId, Pageable pageable);
+
+    // Locks by primary key only, so flushing does not block new reservations being inserted
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.id IN :ids AND r.stockFlushed = false")
+    List<StockReservation> findUnflushedForUpdate(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.stockFlushed = true WHERE r.id IN :ids")
+    int markFlushed(@Param("ids") List<Long> ids);
+
+    // 0 if the reservation was flushed already
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.stockFlushed = true WHERE r.id = :id AND r.stockFlushed = false")
+    int markFlushed(@Param("id") Long id);
+}
@@ -1,6 +1,7 @@
 package com.example.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.example.models.Store;
@@ -12,4 +13,8 @@ import java.util.List;
 public interface StoreRepository extends GenericRepository<Store, Long> {
     List<Store> findBySeller_Id(int sellerId);
 
+    // Name and ranking signals for the typeahead suggestion index
+    @Query("SELECT s.id, s.storeName, s.totalSales, s.averageRating FROM Store s")
+    List<Object[]> findSuggestionDocuments();
+
 }
\ No newline at end of file
@@ -29,6 +29,10 @@ public interface SubCategoryRelationRepository extends JpaRepository<SubCategory
     @Query("SELECT scr FROM SubCategoryRelation scr WHERE scr.ancestor = :ancestor AND scr.descendant = :descendant")
     SubCategoryRelation findPath(@Param("ancestor") Category ancestor, @Param("descendant") Category descendant);
     
+    // The whole closure table as (ancestor id, descendant id, depth)
+    @Query("SELECT scr.ancestor.id, scr.descendant.id, scr.depth FROM SubCategoryRelation scr")
+    List<Object[]> findAllEdges();
+    
     // Delete relations involving a specific category
     void deleteByAncestorOrDescendant(Category category, Category sameCategory);
 } 
\ No newline at end of file
@@ -1,23 +1,133 @@
 package com.example.repositories.specifications;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.domain.Specification;
 
+import com.example.DTO.ProductDTO.ProductCursor;
 import com.example.DTO.ProductDTO.ProductFilterRequest;
+import com.example.models.Category;
 import com.example.models.Product;
 
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 
 public class ProductSpecification {
 
+    public static Specification<Product> hasIdIn(Collection<Long> ids) {
+        return (root, query, criteriaBuilder) -> root.get("id").in(ids);
+    }
+
+    /**
+     * Case-insensitive substring match on name, description, category name or category description.
+     */
+    public static Specification<Product> matchesKeyword(String keyword) {
+        return (root, query, criteriaBuilder) -> {
+            String pattern = "%" + keyword.toLowerCase() + "%";
+            Join<Product, Category> category = root.join("category", JoinType.LEFT);
+            return criteriaBuilder.or(
+                    criteriaBuilder.like(criteriaBuilder.lower(root.get("name")), pattern),
+                    criteriaBuilder.like(criteriaBuilder.lower(root.get("description")), pattern),
+                    criteriaBuilder.like(criteriaBuilder.lower(category.get("name")), pattern),
+                    criteriaBuilder.like(criteriaBuilder.lower(category.get("description")), pattern));
+        };
+    }
+
+    public static Specification<Product> inCategory(Integer categoryId) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("category").get("id"), categoryId);
+    }
+
+    public static Specification<Product> inStore(Long storeId) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("store").get("id"), storeId);
+    }
+
+    /**
+     * Keyset condition: rows strictly after the cursor's (key, id) in its sort order,
+     * i.e. (key > ? OR (key = ? AND id > ?)), flipped for descending sorts.
+     * Also sets the matching ORDER BY key, id so the scan and the condition agree.
+     */
+    public static Specification<Product> seek(ProductCursor cursor) {
+        return (root, query, criteriaBuilder) -> {
+            Path<Long> id = root.get("id");
+            Expression<?> key = keysetKey(root, criteriaBuilder, cursor.getSortField());
+            if (cursor.isAscending()) {
+                query.orderBy(criteriaBuilder.asc(key), criteriaBuilder.asc(id));
+            } else {
+                query.orderBy(criteriaBuilder.desc(key), criteriaBuilder.desc(id));
+            }
+
+            if (cursor.isFirstPage()) {
+                return criteriaBuilder.conjunction();
+            }
+            switch (cursor.getSortField()) {
+                case "price":
+                    return after(criteriaBuilder, root.<BigDecimal>get("price"),
+                            (BigDecimal) cursor.keyValue(), id, cursor);
+                case "createdAt":
+                    return after(criteriaBuilder, criteriaBuilder.coalesce(root.<LocalDateTime>get("createdAt"), ProductCursor.NULL_CREATED_AT),
+                            (LocalDateTime) cursor.keyValue(), id, cursor);
+                case "averageRating":
+                    return after(criteriaBuilder, criteriaBuilder.coalesce(root.<Float>get("averageRating"), ProductCursor.NULL_RATING),
+                            (Float) cursor.keyValue(), id, cursor);
+                default:
+                    return cursor.isAscending()
+                            ? criteriaBuilder.greaterThan(id, cursor.getLastId())
+                            : criteriaBuilder.lessThan(id, cursor.getLastId());
+            }
+        };
+    }
+
+    private static Expression<?> keysetKey(Root<Product> root, CriteriaBuilder criteriaBuilder, String sortField) {
+        switch (sortField) {
+            case "price":
+                return root.get("price");
+            case "createdAt":
+                return criteriaBuilder.coalesce(root.<LocalDateTime>get("createdAt"), ProductCursor.NULL_CREATED_AT);
+            case "averageRating":
+                return criteriaBuilder.coalesce(root.<Float>get("averageRating"), ProductCursor.NULL_RATING);
+            default:
+                return root.get("id");
+        }
+    }
+
+    private static <Y extends Comparable<? super Y>> Predicate after(CriteriaBuilder criteriaBuilder, Expression<Y> key,
+                                                                      Y value, Path<Long> id, ProductCursor cursor) {
+        if (cursor.isAscending()) {
+            return criteriaBuilder.or(
+                    criteriaBuilder.greaterThan(key, value),
+                    criteriaBuilder.and(criteriaBuilder.equal(key, value), criteriaBuilder.greaterThan(id, cursor.getLastId())));
+        }
+        return criteriaBuilder.or(
+                criteriaBuilder.lessThan(key, value),
+                criteriaBuilder.and(criteriaBuilder.equal(key, value), criteriaBuilder.lessThan(id, cursor.getLastId())));
+    }
+
     public static Specification<Product> filterBy(ProductFilterRequest filter) {
+        return filterBy(filter, null);
+    }
+
+    /**
+     * Same filters, but when searchCandidateIds is given (IDs already matched by the
+     * search index) the "search" parameter is applied as an ID restriction instead
+     * of per-word LIKE predicates.
+     */
+    public static Specification<Product> filterBy(ProductFilterRequest filter, Collection<Long> searchCandidateIds) {
         return (root, query, criteriaBuilder) -> {
             Predicate predicate = criteriaBuilder.conjunction(); // Default predicate: `true`
 
-            // Handle "search" parameter for title & description
-            if (filter.getSearch() != null && !filter.getSearch().isBlank()) {
+            if (searchCandidateIds != null) {
+                predicate = criteriaBuilder.and(predicate, root.get("id").in(searchCandidateIds));
+            } else if (filter.getSearch() != null && !filter.getSearch().isBlank()) {
+                // Handle "search" parameter for title & description
                 String[] searchWords = filter.getSearch().trim().toLowerCase().split("\\s+"); // Split by spaces
                 List<Predicate> searchPredicates = new ArrayList<>();
 
@@ -26,11 +26,13 @@ public class SecurityConfig {
 
     private final JwtFilter jwtFilter;
     private final AdminOverrideFilter adminOverrideFilter;
+    private final IdempotencyFilter idempotencyFilter;
     private final CustomUserDetailsService userDetailsService;
 
-    public SecurityConfig(JwtFilter jwtFilter, AdminOverrideFilter adminOverrideFilter, CustomUserDetailsService userDetailsService) {
+    public SecurityConfig(JwtFilter jwtFilter, AdminOverrideFilter adminOverrideFilter, IdempotencyFilter idempotencyFilter, CustomUserDetailsService userDetailsService) {
         this.jwtFilter = jwtFilter;
         this.adminOverrideFilter = adminOverrideFilter;
+        this.idempotencyFilter = idempotencyFilter;
         this.userDetailsService = userDetailsService;
     }
 
@@ -46,8 +48,8 @@ public class SecurityConfig {
             "http://127.0.0.1:8080"
         ));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type", "X-Requested-With", "X-Role-Override", "X-Admin-Override"));
-        configuration.setExposedHeaders(Arrays.asList("Authorization"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type", "X-Requested-With", "X-Role-Override", "X-Admin-Override", IdempotencyFilter.HEADER));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Location", "Retry-After", IdempotencyFilter.REPLAYED_HEADER));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L); // 1 hour
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -67,6 +69,8 @@ public class SecurityConfig {
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 .requestMatchers("/api/seller/**").hasRole("SELLER")
                 .requestMatchers("/api/customer/**").hasRole("USER")
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .requestMatchers(
                         "/v3/api-docs/**",
                         "/swagger-ui/**",
@@ -79,6 +83,8 @@ public class SecurityConfig {
         // Add filters in the correct order
         http.addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
         http.addFilterAfter(adminOverrideFilter, JwtFilter.class);
+        // Needs the authenticated user: keys are per user
+        http.addFilterAfter(idempotencyFilter, AdminOverrideFilter.class);
 
         return http.build();
     }
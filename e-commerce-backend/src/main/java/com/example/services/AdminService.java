@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +22,8 @@ public class AdminService {
     private final ProductRepository productRepository;
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
+    private final RefundRepository refundRepository;
+    private final OrderStatusCounters orderStatusCounters;
     
     /**
      * Get admin dashboard statistics
@@ -39,18 +42,30 @@ public class AdminService {
     }
     
     /**
-     * Get order statistics
+     * Get order statistics. Counts and revenue come from the status counters; revenue is
+     * the stored total of the paid orders (processing, shipped and delivered).
      */
     public OrderStats getOrderStats() {
+        Map<OrderEntity.Status, OrderStatusCounters.StatusTotals> totals = orderStatusCounters.totals();
         OrderStats stats = new OrderStats();
-        stats.setPendingOrders(120L);
-        stats.setProcessingOrders(85L);
-        stats.setShippedOrders(75L);
-        stats.setDeliveredOrders(2800L);
-        stats.setCancelledOrders(420L);
-        stats.setRefundedOrders(100L);
-        stats.setTotalRevenue(BigDecimal.valueOf(250000.0));
-        stats.setAverageOrderValue(BigDecimal.valueOf(80.0));
+        stats.setPendingOrders(totals.get(OrderEntity.Status.pending).orders());
+        stats.setProcessingOrders(totals.get(OrderEntity.Status.processing).orders());
+        stats.setShippedOrders(totals.get(OrderEntity.Status.shipped).orders());
+        stats.setDeliveredOrders(totals.get(OrderEntity.Status.delivered).orders());
+        stats.setCancelledOrders(totals.get(OrderEntity.Status.cancelled).orders());
+        stats.setRefundedOrders(refundRepository.countRefundedOrders());
+
+        long paidOrders = 0;
+        BigDecimal revenue = BigDecimal.ZERO;
+        for (OrderEntity.Status status : List.of(OrderEntity.Status.processing, OrderEntity.Status.shipped,
+                OrderEntity.Status.delivered)) {
+            paidOrders += totals.get(status).orders();
+            revenue = revenue.add(totals.get(status).amount());
+        }
+        stats.setTotalRevenue(revenue);
+        stats.setAverageOrderValue(paidOrders > 0
+                ? revenue.divide(BigDecimal.valueOf(paidOrders), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO);
         return stats;
     }
     
@@ -2,7 +2,7 @@ package com.example.services;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -10,6 +10,7 @@ import org.springframework.transaction.annotation.Transactional;
 import com.example.DTO.CategoryDTO;
 import com.example.models.Category;
 import com.example.repositories.CategoryRepository;
+import com.example.repositories.ProductRepository;
 import com.example.models.SubCategoryRelation;
 import com.example.repositories.SubCategoryRelationRepository;
 
@@ -19,13 +20,40 @@ public class CategoryService {
     private final CategoryRepository categoryRepository;
     private final SubCategoryRelationService subCategoryRelationService;
     private final SubCategoryRelationRepository relationRepository;
+    private final SuggestionIndex suggestionIndex;
+    private final ProductReadModelService productReadModelService;
+    private final CategoryTreeCache categoryTreeCache;
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
 
     public CategoryService(CategoryRepository categoryRepository, 
                           SubCategoryRelationService subCategoryRelationService,
-                          SubCategoryRelationRepository relationRepository) {
+                          SubCategoryRelationRepository relationRepository,
+                          SuggestionIndex suggestionIndex,
+                          ProductReadModelService productReadModelService,
+                          CategoryTreeCache categoryTreeCache,
+                          ProductRepository productRepository,
+                          ProductSearchIndex productSearchIndex,
+                          ProductFacetIndex productFacetIndex) {
         this.categoryRepository = categoryRepository;
         this.subCategoryRelationService = subCategoryRelationService;
         this.relationRepository = relationRepository;
+        this.suggestionIndex = suggestionIndex;
+        this.productReadModelService = productReadModelService;
+        this.categoryTreeCache = categoryTreeCache;
+        this.productRepository = productRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.productFacetIndex = productFacetIndex;
+    }
+
+    /**
+     * The current in-memory category tree. The *AsDTO reads below are served from it;
+     * callers that need several lookups or the ETag should take one snapshot and use it
+     * throughout so they see a single version.
+     */
+    public CategoryTreeSnapshot getTreeSnapshot() {
+        return categoryTreeCache.current();
     }
 
     public List<Category> findAll() {
@@ -33,10 +61,7 @@ public class CategoryService {
     }
     
     public List<CategoryDTO> findAllAsDTO() {
-        List<Category> categories = categoryRepository.findAll();
-        return categories.stream()
-                .map(CategoryDTO::fromEntity)
-                .collect(Collectors.toList());
+        return categoryTreeCache.current().getAll();
     }
     
     public Optional<Category> findById(int id) {
@@ -44,8 +69,7 @@ public class CategoryService {
     }
     
     public Optional<CategoryDTO> findByIdAsDTO(int id) {
-        return categoryRepository.findById(id)
-                .map(CategoryDTO::fromEntity);
+        return categoryTreeCache.current().findById(id);
     }
 
     public Optional<Category> findBySlug(String slug) {
@@ -53,38 +77,28 @@ public class CategoryService {
     }
 
     public Optional<CategoryDTO> findBySlugAsDTO(String slug) {
-        return categoryRepository.findBySlug(slug)
-                .map(CategoryDTO::fromEntity);
+        return categoryTreeCache.current().findBySlug(slug);
     }
     
     public List<Category> findRootCategories() {
-        return categoryRepository.findAll().stream()
-                .filter(c -> c.getParentCategory() == null)
-                .collect(Collectors.toList());
+        return categoryRepository.findRootCategories();
     }
     
     public List<CategoryDTO> findRootCategoriesAsDTO() {
-        return findRootCategories().stream()
-                .map(CategoryDTO::fromEntity)
-                .collect(Collectors.toList());
+        return categoryTreeCache.current().getRoots();
     }
 
     /**
-     * Find a category by slug and include its subcategories and products.
+     * Find a category by slug and include its subcategories.
+     * Snapshot DTOs always carry their subcategories, so this is the same lookup as findBySlugAsDTO.
      */
-    @Transactional(readOnly = true)
     public Optional<CategoryDTO> findBySlugWithSubcategories(String slug) {
-        return categoryRepository.findBySlug(slug)
-                .map(category -> {
-                    CategoryDTO dto = CategoryDTO.fromEntity(category);
-                    // Include subcategories
-                    if (category.getSubcategories() != null) {
-                        dto.setSubcategories(category.getSubcategories().stream()
-                                .map(CategoryDTO::fromEntity)
-                                .collect(Collectors.toList()));
-                    }
-                    return dto;
-                });
+        return categoryTreeCache.current().findBySlug(slug);
+    }
+
+    // IDs of the categories that have at least one product assigned directly
+    public Set<Integer> findCategoryIdsWithProducts() {
+        return productReadModelService.findCategoryIdsWithProducts();
     }
 
     @Transactional
@@ -108,6 +122,8 @@ public class CategoryService {
             relationRepository.save(selfRelation);
         }
         
+        suggestionIndex.indexCategory(savedCategory);
+        categoryTreeCache.refresh();
         return savedCategory;
     }
     
@@ -139,6 +155,8 @@ public class CategoryService {
             subCategoryRelationService.buildRelationship(savedCategory, savedCategory, 0);
         }
         
+        suggestionIndex.indexCategory(savedCategory);
+        categoryTreeCache.refresh();
         return CategoryDTO.fromEntity(savedCategory);
     }
 
@@ -188,6 +206,10 @@ public class CategoryService {
             }
         }
         
+        suggestionIndex.indexCategory(updatedCategory);
+        productReadModelService.categoryChanged(updatedCategory);
+        reindexProducts(updatedCategory.getId(), updatedCategory);
+        categoryTreeCache.refresh();
         return updatedCategory;
     }
     
@@ -248,6 +270,10 @@ public class CategoryService {
             }
         }
         
+        suggestionIndex.indexCategory(updatedCategory);
+        productReadModelService.categoryChanged(updatedCategory);
+        reindexProducts(updatedCategory.getId(), updatedCategory);
+        categoryTreeCache.refresh();
         return CategoryDTO.fromEntity(updatedCategory);
     }
 
@@ -259,42 +285,39 @@ public class CategoryService {
         // First remove all subcategory relationships
         subCategoryRelationService.removeSubcategoryRelations(category);
         
+        // Its products are read before they lose the category
+        reindexProducts(id, null);
+
         // Then delete the category
         categoryRepository.deleteById(id);
+        productReadModelService.categoryDeleted(id);
+        suggestionIndex.removeCategory(id);
+        categoryTreeCache.refresh();
     }
     
+    // The product indexes copy the category name (the facet index keys its bitmaps by it) and
+    // description into each product's entry
+    private void reindexProducts(int categoryId, Category category) {
+        List<Long> productIds = productRepository.findIdsByCategoryId(categoryId);
+        productSearchIndex.categoryChanged(productIds, category);
+        productFacetIndex.categoryChanged(productIds, category != null ? category.getName() : null);
+    }
+
     // Helper method to generate a URL-friendly slug from a name
     
-    @Transactional(readOnly = true)
-    public java.util.Set<Integer> getAllDescendantIds(String slug) {
-        java.util.Set<Integer> ids = new java.util.HashSet<>();
-        Optional<Category> categoryOpt = findBySlug(slug);
-        if (categoryOpt.isPresent()) {
-            collectDescendantIds(categoryOpt.get(), ids);
-        }
-        return ids;
+    // The category and every descendant, from the category tree snapshot (empty for an unknown slug)
+    public Set<Integer> getAllDescendantIds(String slug) {
+        CategoryTreeSnapshot tree = categoryTreeCache.current();
+        return tree.findBySlug(slug)
+                .map(category -> tree.getSubtreeIds(category.getId()))
+                .orElse(Set.of());
     }
 
-    @Transactional(readOnly = true)
     public Optional<CategoryDTO> findByNameAsDTO(String categoryName) {
         // The categoryName parameter from the URL will be URL-decoded by Spring MVC
         // e.g., "Living%20Room%20Furniture" becomes "Living Room Furniture"
-        List<Category> categories = categoryRepository.findByNameContainingIgnoreCase(categoryName);
-        
-        // Prioritize exact match on name
-        return categories.stream()
-                .filter(c -> c.getName().equalsIgnoreCase(categoryName))
-                .findFirst()
-                .map(CategoryDTO::fromEntity);
-    }
-
-    private void collectDescendantIds(Category category, java.util.Set<Integer> ids) {
-        ids.add(category.getId());
-        if (category.getSubcategories() != null) {
-            for (Category subCategory : category.getSubcategories()) {
-                collectDescendantIds(subCategory, ids);
-            }
-        }
+        // Exact, case-insensitive match on name
+        return categoryTreeCache.current().findByName(categoryName);
     }
 
     private String generateSlug(String name) {
@@ -0,0 +1,66 @@
+package com.example.services;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.repositories.CategoryRepository;
+
+/**
+ * Holds the current CategoryTreeSnapshot. Readers get whatever snapshot is published;
+ * CategoryService writes call refresh(), which rebuilds from the categories table after
+ * the write transaction commits and swaps the new snapshot in with one volatile write.
+ */
+@Component
+public class CategoryTreeCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryTreeCache.class);
+
+    private final CategoryRepository categoryRepository;
+
+    private volatile CategoryTreeSnapshot snapshot;
+
+    public CategoryTreeCache(CategoryRepository categoryRepository) {
+        this.categoryRepository = categoryRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        rebuild();
+    }
+
+    public CategoryTreeSnapshot current() {
+        CategoryTreeSnapshot current = snapshot;
+        return current != null ? current : initial();
+    }
+
+    // Requests arriving before the first build wait for one shared build instead of each starting their own
+    private synchronized CategoryTreeSnapshot initial() {
+        return snapshot != null ? snapshot : rebuild();
+    }
+
+    /**
+     * Rebuilds once the surrounding transaction has committed, or right away outside one.
+     * A rolled back write leaves the published snapshot untouched.
+     */
+    public void refresh() {
+        AfterCommit.run(this::rebuild);
+    }
+
+    // Rebuilds run one at a time so an older read cannot be published over a newer one
+    private synchronized CategoryTreeSnapshot rebuild() {
+        List<CategoryTreeSnapshot.Row> rows = categoryRepository.findTreeRows().stream()
+                .map(row -> new CategoryTreeSnapshot.Row((Integer) row[0], (String) row[1], (String) row[2],
+                        (String) row[3], (String) row[4], (Boolean) row[5], (Integer) row[6]))
+                .collect(Collectors.toList());
+        CategoryTreeSnapshot next = CategoryTreeSnapshot.build(rows);
+        snapshot = next;
+        logger.debug("Category tree snapshot {} published with {} categories", next.getETag(), rows.size());
+        return next;
+    }
+}
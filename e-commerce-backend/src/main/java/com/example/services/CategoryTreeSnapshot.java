@@ -0,0 +1,174 @@
+package com.example.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import com.example.DTO.CategoryDTO;
+
+/**
+ * One immutable version of the category tree, with id, slug and name indexes.
+ * The DTOs are shared by every request that reads this version and are never modified
+ * after construction; a category write builds and publishes a new snapshot instead.
+ *
+ * The version is a 64-bit hash of every category's fields, so it is the same on every
+ * instance and across restarts for the same tree, and it is used as the HTTP ETag.
+ */
+public final class CategoryTreeSnapshot {
+
+    /**
+     * One categories row as read for a rebuild.
+     */
+    public record Row(int id, String name, String slug, String imageUrl, String description,
+                      Boolean active, Integer parentId) {
+    }
+
+    private final long version;
+    private final String eTag;
+    private final List<CategoryDTO> all;
+    private final List<CategoryDTO> roots;
+    private final Map<Integer, CategoryDTO> byId;
+    private final Map<String, CategoryDTO> bySlug;
+    private final Map<String, CategoryDTO> byName;
+    private final Map<Integer, List<CategoryDTO>> descendants;
+    private final Map<Integer, Set<Integer>> subtreeIds;
+
+    private CategoryTreeSnapshot(long version, List<CategoryDTO> all, List<CategoryDTO> roots,
+                                 Map<Integer, CategoryDTO> byId, Map<String, CategoryDTO> bySlug,
+                                 Map<String, CategoryDTO> byName, Map<Integer, List<CategoryDTO>> descendants,
+                                 Map<Integer, Set<Integer>> subtreeIds) {
+        this.version = version;
+        this.eTag = "\"categories-" + Long.toHexString(version) + "\"";
+        this.all = all;
+        this.roots = roots;
+        this.byId = byId;
+        this.bySlug = bySlug;
+        this.byName = byName;
+        this.descendants = descendants;
+        this.subtreeIds = subtreeIds;
+    }
+
+    public static CategoryTreeSnapshot build(List<Row> rows) {
+        List<Row> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparingInt(Row::id));
+
+        Map<Integer, CategoryDTO> byId = new LinkedHashMap<>();
+        Map<Integer, List<CategoryDTO>> children = new HashMap<>();
+        long version = 17;
+        for (Row row : sorted) {
+            CategoryDTO dto = new CategoryDTO(row.id(), row.name(), row.slug(), row.imageUrl(), row.description(),
+                    row.active(), row.parentId(), new ArrayList<>());
+            byId.put(row.id(), dto);
+            version = 31 * version + Objects.hash(row.id(), row.name(), row.slug(), row.imageUrl(),
+                    row.description(), row.active(), row.parentId());
+        }
+
+        List<CategoryDTO> roots = new ArrayList<>();
+        for (CategoryDTO dto : byId.values()) {
+            CategoryDTO parent = dto.getParentCategoryId() != null ? byId.get(dto.getParentCategoryId()) : null;
+            if (parent != null) {
+                children.computeIfAbsent(parent.getId(), k -> new ArrayList<>()).add(dto);
+            } else if (dto.getParentCategoryId() == null) {
+                roots.add(dto);
+            }
+        }
+        for (CategoryDTO dto : byId.values()) {
+            dto.setSubcategories(List.copyOf(children.getOrDefault(dto.getId(), Collections.emptyList())));
+        }
+
+        Map<String, CategoryDTO> bySlug = new HashMap<>();
+        Map<String, CategoryDTO> byName = new HashMap<>();
+        Map<Integer, List<CategoryDTO>> descendants = new HashMap<>();
+        Map<Integer, Set<Integer>> subtreeIds = new HashMap<>();
+        for (CategoryDTO dto : byId.values()) {
+            if (dto.getSlug() != null) {
+                bySlug.putIfAbsent(dto.getSlug(), dto);
+            }
+            if (dto.getName() != null) {
+                byName.putIfAbsent(dto.getName().toLowerCase(Locale.ROOT), dto);
+            }
+            List<CategoryDTO> subtree = new ArrayList<>();
+            Set<Integer> ids = new HashSet<>();
+            ids.add(dto.getId());
+            collectDescendants(dto, subtree, ids);
+            descendants.put(dto.getId(), List.copyOf(subtree));
+            subtreeIds.put(dto.getId(), Set.copyOf(ids));
+        }
+
+        return new CategoryTreeSnapshot(version, List.copyOf(byId.values()), List.copyOf(roots),
+                Collections.unmodifiableMap(byId), Collections.unmodifiableMap(bySlug),
+                Collections.unmodifiableMap(byName), Collections.unmodifiableMap(descendants),
+                Collections.unmodifiableMap(subtreeIds));
+    }
+
+    private static void collectDescendants(CategoryDTO category, List<CategoryDTO> into, Set<Integer> seen) {
+        for (CategoryDTO child : category.getSubcategories()) {
+            // Guards against a cycle in parent_category_id
+            if (seen.add(child.getId())) {
+                into.add(child);
+                collectDescendants(child, into, seen);
+            }
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public List<CategoryDTO> getAll() {
+        return all;
+    }
+
+    public List<CategoryDTO> getRoots() {
+        return roots;
+    }
+
+    public Optional<CategoryDTO> findById(int id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    public Optional<CategoryDTO> findBySlug(String slug) {
+        return Optional.ofNullable(bySlug.get(slug));
+    }
+
+    // Exact, case-insensitive name match
+    public Optional<CategoryDTO> findByName(String name) {
+        return name == null ? Optional.empty() : Optional.ofNullable(byName.get(name.toLowerCase(Locale.ROOT)));
+    }
+
+    // All descendants at any depth, parents before children
+    public List<CategoryDTO> getDescendants(int id) {
+        return descendants.getOrDefault(id, Collections.emptyList());
+    }
+
+    // IDs of the category and all of its descendants
+    public Set<Integer> getSubtreeIds(int id) {
+        return subtreeIds.getOrDefault(id, Collections.emptySet());
+    }
+
+    // Case-insensitive substring match on name or description
+    public List<CategoryDTO> search(String query) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        List<CategoryDTO> matches = new ArrayList<>();
+        for (CategoryDTO dto : all) {
+            if ((dto.getName() != null && dto.getName().toLowerCase(Locale.ROOT).contains(needle))
+                    || (dto.getDescription() != null && dto.getDescription().toLowerCase(Locale.ROOT).contains(needle))) {
+                matches.add(dto);
+            }
+        }
+        return matches;
+    }
+}
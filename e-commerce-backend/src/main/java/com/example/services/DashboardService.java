@@ -17,7 +17,6 @@ import com.example.DTO.OrderDTO.OrderItemDTO;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.stream.Collectors;
-import java.util.Comparator;
 
 @Service
 public class DashboardService {
@@ -47,12 +46,7 @@ public class DashboardService {
             dashboardData.setSummary(summary);
 
             // Fetch recent orders
-            List<OrderEntity> allOrders = orderRepository.findAll();
-
-            List<RecentOrderDTO> recentOrders = allOrders.stream()
-                    .filter(order -> order.getOrderItems().stream()
-                            .anyMatch(item -> item.getProduct().getStore().getSeller().getId() == sellerIdInt))
-                    .sorted(Comparator.comparing(OrderEntity::getCreatedAt).reversed())
+            List<RecentOrderDTO> recentOrders = orderRepository.findBySellerIdOrderByCreatedAtDesc(sellerIdInt).stream()
                     .map(this::mapToRecentOrderDTO)
                     .collect(Collectors.toList());
             dashboardData.setRecentOrders(recentOrders);
@@ -76,21 +70,11 @@ public class DashboardService {
         DashboardSummaryDTO summary = new DashboardSummaryDTO();
 
         // Calculate total revenue
-        List<OrderEntity> sellerOrders = orderRepository.findOrdersBySellerId(sellerIdInt);
-        BigDecimal totalRevenue = sellerOrders.stream()
-                .flatMap(order -> order.getOrderItems().stream())
-                .filter(item -> item.getProduct().getStore().getSeller().getId() == sellerIdInt)
-                .map(item -> item.getPriceAtPurchase().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
+        BigDecimal totalRevenue = orderRepository.sumRevenueBySellerId(sellerIdInt);
         summary.setTotalRevenue(totalRevenue.intValue());
 
         // Calculate total orders
-        long totalOrders = sellerOrders.stream()
-                .filter(order -> order.getOrderItems().stream()
-                        .anyMatch(item -> item.getProduct().getStore().getSeller().getId() == sellerIdInt))
-                .count();
-        summary.setTotalOrders((int) totalOrders);
+        summary.setTotalOrders((int) orderRepository.countOrdersBySellerId(sellerIdInt));
 
 
         return summary;
@@ -111,11 +95,9 @@ public class DashboardService {
         //         .map(this::mapToOrderItemDTO)
         //         .collect(Collectors.toList()));
 
-        BigDecimal totalAmount = orderEntity.getOrderItems().stream()
-                .map(item -> item.getPriceAtPurchase().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        dto.setTotalAmount(totalAmount);
+        // Stored when the order was placed
+        dto.setItemCount(orderEntity.getItemCount());
+        dto.setTotalAmount(orderEntity.getTotalAmount());
         dto.setStatus(orderEntity.getStatus() != null ? orderEntity.getStatus().name() : null);
         dto.setSellerName("Seller Store Name");
         dto.setDateUpdated(orderEntity.getUpdatedAt() != null ? new java.util.Date(orderEntity.getUpdatedAt().getTime()) : null);
@@ -0,0 +1,367 @@
+package com.example.services;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.models.HotStockAllocation;
+import com.example.models.StockReservation;
+import com.example.repositories.HotStockAllocationRepository;
+import com.example.repositories.StockReservationRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Opt-in stock handling for flash sales on products flagged hot_stock. Even a conditional
+ * decrement queues every buyer of such a product behind one row lock, so instead this
+ * instance takes a block of units from the product at a time (products.hot_allocated,
+ * recorded per instance in hot_stock_allocations) and sells them from a StripedStockCounter
+ * without touching the row. Reservations served from memory are written as usual but
+ * marked unflushed; every second the units they sold are subtracted from stock_quantity
+ * (and from the block) in one batch per product.
+ *
+ * stock_quantity - hot_allocated is what is left for the regular conditional decrement, so
+ * units held in memory are never sold twice. Memory is only a cache of the block: the
+ * reservation rows say what was sold from it. On restart, and for instances whose
+ * heartbeat has stopped, unflushed reservations are written back and whatever remains of
+ * their blocks is returned, so no units are lost either. The instance ID must therefore
+ * survive a restart; it defaults to the host name.
+ *
+ * The heartbeat is the instance's lease on its blocks. Units are only served from memory
+ * while the last heartbeat is younger than half the stale-after period, so an instance that
+ * cannot reach the database stops selling well before its peers reclaim its blocks. An
+ * instance that finds its blocks reclaimed anyway (the heartbeat updates no row) drops its
+ * counters, and units are only handed back from blocks that are still recorded as its own.
+ */
+@Component
+public class HotStockInventory {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotStockInventory.class);
+
+    private static final String HOT_PRODUCT_IDS = "SELECT product_id FROM products WHERE hot_stock = TRUE";
+    private static final String FREE_UNITS =
+            "SELECT stock_quantity - hot_allocated FROM products WHERE product_id = ? AND hot_stock = TRUE";
+    private static final String ALLOCATE =
+            "UPDATE products SET hot_allocated = hot_allocated + ? " +
+            "WHERE product_id = ? AND hot_stock = TRUE AND stock_quantity - hot_allocated >= ?";
+    private static final String UNALLOCATE = "UPDATE products SET hot_allocated = hot_allocated - ? WHERE product_id = ?";
+    private static final String FLUSH_SOLD =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, hot_allocated = hot_allocated - ? WHERE product_id = ?";
+
+    private static final int FLUSH_BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HotStockAllocationRepository allocationRepository;
+    private final StockReservationRepository reservationRepository;
+    private final ProductReadModelService readModelService;
+    // Blocks are allocated while an order transaction is open; they must not wait for it
+    private final TransactionTemplate newTransaction;
+    private final String instanceId;
+    private final int blockSize;
+    private final int stripeCount;
+    private final Duration staleAfter;
+    private final long leaseNanos;
+
+    private final Map<Long, StripedStockCounter> counters = new ConcurrentHashMap<>();
+    private volatile Set<Long> hotProductIds = Set.of();
+    // Until the blocks left over from before a restart are reconciled nothing is served from memory
+    private volatile boolean reconciled;
+    // System.nanoTime() until which the last heartbeat lets this instance sell from memory
+    private volatile long leaseExpiresAt;
+
+    public HotStockInventory(JdbcTemplate jdbcTemplate,
+                             HotStockAllocationRepository allocationRepository,
+                             StockReservationRepository reservationRepository,
+                             ProductReadModelService readModelService,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${inventory.hot-stock.instance-id:${HOSTNAME:}}") String instanceId,
+                             @Value("${inventory.hot-stock.block-size:50}") int blockSize,
+                             @Value("${inventory.hot-stock.stripes:8}") int stripeCount,
+                             @Value("${inventory.hot-stock.stale-after:PT10M}") Duration staleAfter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.allocationRepository = allocationRepository;
+        this.reservationRepository = reservationRepository;
+        this.readModelService = readModelService;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.instanceId = instanceId.isBlank() ? localHostName() : instanceId;
+        this.blockSize = blockSize;
+        this.stripeCount = stripeCount;
+        this.staleAfter = staleAfter;
+        this.leaseNanos = staleAfter.toNanos() / 2;
+    }
+
+    private static String localHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Cannot determine the host name; set inventory.hot-stock.instance-id", e);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        refresh();
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public boolean isHot(Long productId) {
+        return reconciled && System.nanoTime() - leaseExpiresAt < 0 && hotProductIds.contains(productId);
+    }
+
+    /**
+     * Takes units of a hot product from memory, allocating a new block when the counter
+     * runs dry. False means the units are not served from memory and the caller takes them
+     * from stock_quantity instead, which only ever sees the unallocated units.
+     */
+    public boolean take(Long productId, int units) {
+        if (!isHot(productId)) {
+            return false;
+        }
+        StripedStockCounter counter = counters.computeIfAbsent(productId, id -> new StripedStockCounter(stripeCount));
+        return counter.take(units) || refillAndTake(productId, counter, units);
+    }
+
+    // One refill per product at a time; buyers arriving meanwhile take from the new block
+    private boolean refillAndTake(Long productId, StripedStockCounter counter, int units) {
+        synchronized (counter) {
+            if (counter.take(units)) {
+                return true;
+            }
+            if (counter.isClosed()) {
+                return false;
+            }
+            Integer granted = newTransaction.execute(status -> allocate(productId, units));
+            if (granted == null || granted == 0) {
+                return false;
+            }
+            // Drains hold the same monitor, so the counter is still open
+            counter.add(granted - units);
+            return true;
+        }
+    }
+
+    private int allocate(Long productId, int units) {
+        List<Integer> free = jdbcTemplate.queryForList(FREE_UNITS, Integer.class, productId);
+        if (free.isEmpty()) {
+            return 0;
+        }
+        int grant = Math.min(Math.max(blockSize, units), free.get(0));
+        if (grant < units || jdbcTemplate.update(ALLOCATE, grant, productId, grant) == 0) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (allocationRepository.adjust(instanceId, productId, grant, now) == 0) {
+            HotStockAllocation allocation = new HotStockAllocation();
+            allocation.setInstanceId(instanceId);
+            allocation.setProductId(productId);
+            allocation.setAllocated(grant);
+            allocation.setHeartbeatAt(now);
+            allocationRepository.save(allocation);
+        }
+        return grant;
+    }
+
+    // Units taken by an order that did not commit
+    public void giveBack(Long productId, int units) {
+        StripedStockCounter counter = counters.get(productId);
+        if (counter == null || !counter.add(units)) {
+            newTransaction.executeWithoutResult(status -> unallocate(instanceId, productId, units));
+        }
+    }
+
+    /**
+     * Releases a hot reservation whose units were not flushed yet. They never left
+     * stock_quantity, so they only go back from the block to the unallocated units. Runs in
+     * the caller's transaction; false if the reservation was flushed meanwhile, in which
+     * case the caller returns its units to stock_quantity as usual.
+     */
+    public boolean releaseUnflushed(StockReservation reservation) {
+        if (reservation.getHotInstanceId() == null || reservation.isStockFlushed()
+                || reservationRepository.markFlushed(reservation.getId()) == 0) {
+            return false;
+        }
+        unallocate(reservation.getHotInstanceId(), reservation.getProductId(), reservation.getQuantity());
+        return true;
+    }
+
+    // Units only go back to the product while the owner's block still records them
+    private void unallocate(String owner, Long productId, int units) {
+        if (allocationRepository.adjust(owner, productId, -units, LocalDateTime.now()) > 0) {
+            jdbcTemplate.update(UNALLOCATE, units, productId);
+        }
+    }
+
+    // This instance's heartbeat, then the write-behind of the units sold from memory
+    @Scheduled(initialDelay = 1_000, fixedDelay = 1_000)
+    public void flush() {
+        if (!reconciled) {
+            return;
+        }
+        heartbeat();
+        try {
+            newTransaction.executeWithoutResult(status -> fold(instanceId, LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            logger.warn("Flushing hot stock failed, retrying: {}", e.toString());
+        }
+    }
+
+    // In a transaction of its own, so a failing flush does not let the lease lapse
+    private void heartbeat() {
+        long started = System.nanoTime();
+        Set<Long> owned;
+        try {
+            owned = newTransaction.execute(status -> {
+                allocationRepository.heartbeat(instanceId, LocalDateTime.now());
+                return Set.copyOf(allocationRepository.findProductIdsByInstanceId(instanceId));
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Hot stock heartbeat failed: {}", e.toString());
+            return;
+        }
+        counters.forEach((productId, counter) -> {
+            // Reclaimed by a peer: the units in memory are no longer ours to sell. A block being
+            // allocated right now is recorded before the drain gets the counter's monitor
+            if (!owned.contains(productId) && counters.remove(productId, counter)
+                    && returnDrained(productId, counter) > 0) {
+                logger.warn("Hot stock block of product {} is no longer held by instance {}, dropped it", productId, instanceId);
+            }
+        });
+        leaseExpiresAt = started + leaseNanos;
+    }
+
+    // Picks up flag changes, hands back blocks of products no longer hot and reclaims dead instances
+    @Scheduled(initialDelay = 30_000, fixedDelay = 30_000)
+    public void refresh() {
+        if (!reconciled) {
+            try {
+                // Memory was lost with the previous run: write back what it sold, return the rest
+                reconcile(instanceId);
+                leaseExpiresAt = System.nanoTime() + leaseNanos;
+                reconciled = true;
+            } catch (RuntimeException e) {
+                logger.error("Reconciling hot stock of instance {} failed, serving hot products from the database", instanceId, e);
+                return;
+            }
+        }
+
+        Set<Long> hot = Set.copyOf(jdbcTemplate.queryForList(HOT_PRODUCT_IDS, Long.class));
+        hotProductIds = hot;
+        counters.forEach((productId, counter) -> {
+            if (!hot.contains(productId) && counters.remove(productId, counter)) {
+                returnDrained(productId, counter);
+            }
+        });
+
+        LocalDateTime staleBefore = LocalDateTime.now().minus(staleAfter);
+        for (String owner : allocationRepository.findStaleInstanceIds(staleBefore)) {
+            if (owner.equals(instanceId)) {
+                continue;
+            }
+            try {
+                reconcile(owner);
+                logger.info("Reclaimed hot stock of stale instance {}", owner);
+            } catch (RuntimeException e) {
+                logger.error("Reclaiming hot stock of instance {} failed", owner, e);
+            }
+        }
+    }
+
+    private void reconcile(String owner) {
+        newTransaction.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            while (fold(owner, now)) {
+                // until every unflushed reservation of the owner is written back
+            }
+            List<HotStockAllocation> allocations = allocationRepository.findByInstanceIdForUpdate(owner);
+            for (HotStockAllocation allocation : allocations) {
+                if (allocation.getAllocated() > 0) {
+                    jdbcTemplate.update(UNALLOCATE, allocation.getAllocated(), allocation.getProductId());
+                }
+            }
+            allocationRepository.deleteAll(allocations);
+        });
+    }
+
+    /**
+     * Subtracts the units of the owner's unflushed reservations from stock_quantity and from
+     * the owner's blocks. Reservations are locked by ID so concurrent releases and other
+     * reclaimers see each of them flushed exactly once. False when there was nothing left.
+     */
+    private boolean fold(String owner, LocalDateTime now) {
+        List<Long> ids = reservationRepository.findUnflushedIds(owner, PageRequest.of(0, FLUSH_BATCH_SIZE));
+        if (ids.isEmpty()) {
+            return false;
+        }
+        Map<Long, Integer> sold = new TreeMap<>();
+        List<Long> flushed = new ArrayList<>();
+        for (StockReservation reservation : reservationRepository.findUnflushedForUpdate(ids)) {
+            sold.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum);
+            flushed.add(reservation.getId());
+        }
+        if (flushed.isEmpty()) {
+            return true;
+        }
+
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(sold.entrySet());
+        jdbcTemplate.batchUpdate(FLUSH_SOLD, lines, lines.size(), (statement, line) -> {
+            statement.setInt(1, line.getValue());
+            statement.setInt(2, line.getValue());
+            statement.setLong(3, line.getKey());
+        });
+        Map<Long, Integer> deltas = new HashMap<>();
+        sold.forEach((productId, units) -> {
+            allocationRepository.adjust(owner, productId, -units, now);
+            deltas.put(productId, -units);
+        });
+        reservationRepository.markFlushed(flushed);
+        readModelService.stockChanged(deltas);
+        return true;
+    }
+
+    private int returnDrained(Long productId, StripedStockCounter counter) {
+        int drained = counter.drain();
+        if (drained > 0) {
+            newTransaction.executeWithoutResult(status -> unallocate(instanceId, productId, drained));
+        }
+        return drained;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!reconciled) {
+            return;
+        }
+        try {
+            counters.forEach(this::returnDrained);
+            counters.clear();
+            flush();
+        } catch (RuntimeException e) {
+            // Left for the next start of this instance, or for the others once the heartbeat lapses
+            logger.warn("Handing back hot stock on shutdown failed: {}", e.toString());
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.models.IdempotencyRecord;
+import com.example.repositories.IdempotencyRecordRepository;
+
+/**
+ * Keyed store of in-flight and completed requests sent with an Idempotency-Key header.
+ * The first request for a key records itself as in progress; duplicates wait for it,
+ * up to the wait timeout, and are then given its response instead of running again.
+ *
+ * Duplicates arriving at the same instance wait on an in-memory per-key lock; across
+ * instances the unique (owner, key) row is the lock and duplicates poll it. A request
+ * that fails with a server error is forgotten so a retry runs it again. Completed
+ * responses are kept for the TTL.
+ *
+ * While a request runs, its instance renews the lock every HEARTBEAT_INTERVAL_MS, so only
+ * a request whose instance stopped renewing for the lock timeout is taken over and run again.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final long POLL_INTERVAL_MILLIS = 200;
+    // Well inside the default lock timeout, so a missed heartbeat or two does not lose the lock
+    private static final long HEARTBEAT_INTERVAL_MS = 15_000;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final Duration ttl;
+    private final Duration lockTimeout;
+    private final Duration waitTimeout;
+
+    // Requests running on this instance, by owner and key
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    // Records claimed by those requests, whose locks the heartbeat renews
+    private final Set<Long> claimed = ConcurrentHashMap.newKeySet();
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              @Value("${idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${idempotency.lock-timeout:PT1M}") Duration lockTimeout,
+                              @Value("${idempotency.wait-timeout:PT10S}") Duration waitTimeout) {
+        this.recordRepository = recordRepository;
+        this.ttl = ttl;
+        this.lockTimeout = lockTimeout;
+        this.waitTimeout = waitTimeout;
+    }
+
+    public enum Outcome {
+        // Run the request, then complete or abandon the claim
+        PROCEED,
+        // Answer with the stored response
+        REPLAY,
+        // The key was used for a different request
+        MISMATCH,
+        // The first request is still running after the wait timeout
+        IN_PROGRESS
+    }
+
+    public static final class Claim {
+        private final Outcome outcome;
+        private final IdempotencyRecord record;
+        private final String lockKey;
+        private final CompletableFuture<Void> lock;
+
+        private Claim(Outcome outcome, IdempotencyRecord record, String lockKey, CompletableFuture<Void> lock) {
+            this.outcome = outcome;
+            this.record = record;
+            this.lockKey = lockKey;
+            this.lock = lock;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public IdempotencyRecord getRecord() {
+            return record;
+        }
+    }
+
+    public Claim begin(String owner, String key, String requestHash) {
+        String lockKey = owner + '\n' + key;
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            CompletableFuture<Void> lock = new CompletableFuture<>();
+            CompletableFuture<Void> running = inFlight.putIfAbsent(lockKey, lock);
+            if (running != null) {
+                // A duplicate on this instance is running; wait for it, then read its result
+                if (!await(running, deadline)) {
+                    return new Claim(Outcome.IN_PROGRESS, null, null, null);
+                }
+                continue;
+            }
+
+            Claim claim;
+            try {
+                claim = claimRecord(owner, key, requestHash, lockKey, lock);
+            } catch (RuntimeException e) {
+                unlock(lockKey, lock);
+                throw e;
+            }
+            if (claim.outcome == Outcome.PROCEED) {
+                claimed.add(claim.record.getId());
+                return claim;
+            }
+            unlock(lockKey, lock);
+            if (claim.outcome != Outcome.IN_PROGRESS || System.nanoTime() >= deadline) {
+                return claim;
+            }
+            // Running on another instance
+            if (!sleep(Math.min(POLL_INTERVAL_MILLIS, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()) + 1))) {
+                return claim;
+            }
+        }
+    }
+
+    private Claim claimRecord(String owner, String key, String requestHash, String lockKey, CompletableFuture<Void> lock) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<IdempotencyRecord> existing = recordRepository.findByOwnerAndIdempotencyKey(owner, key);
+        if (existing.isPresent() && existing.get().getExpiresAt().isBefore(now)) {
+            recordRepository.delete(existing.get());
+            existing = Optional.empty();
+        }
+        if (existing.isEmpty()) {
+            IdempotencyRecord record = new IdempotencyRecord();
+            record.setOwner(owner);
+            record.setIdempotencyKey(key);
+            record.setRequestHash(requestHash);
+            record.setStatus(IdempotencyRecord.Status.IN_PROGRESS);
+            record.setCreatedAt(now);
+            record.setLockedUntil(now.plus(lockTimeout));
+            record.setExpiresAt(now.plus(ttl));
+            try {
+                return new Claim(Outcome.PROCEED, recordRepository.saveAndFlush(record), lockKey, lock);
+            } catch (DataIntegrityViolationException e) {
+                // Another instance recorded the key first
+                existing = recordRepository.findByOwnerAndIdempotencyKey(owner, key);
+                if (existing.isEmpty()) {
+                    return new Claim(Outcome.IN_PROGRESS, null, lockKey, lock);
+                }
+            }
+        }
+
+        IdempotencyRecord record = existing.get();
+        if (!record.getRequestHash().equals(requestHash)) {
+            return new Claim(Outcome.MISMATCH, record, lockKey, lock);
+        }
+        if (record.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+            return new Claim(Outcome.REPLAY, record, lockKey, lock);
+        }
+        if (record.getLockedUntil().isBefore(now)
+                && recordRepository.takeOver(record.getId(), now, now.plus(lockTimeout)) == 1) {
+            logger.warn("Idempotency key {} of {} was abandoned by its first request, running it again", key, owner);
+            return new Claim(Outcome.PROCEED, record, lockKey, lock);
+        }
+        return new Claim(Outcome.IN_PROGRESS, record, lockKey, lock);
+    }
+
+    // Stores the response of a claimed request for its duplicates
+    public void complete(Claim claim, int status, String contentType, String location, String body) {
+        claimed.remove(claim.record.getId());
+        try {
+            recordRepository.complete(claim.record.getId(), status, contentType, location, body,
+                    LocalDateTime.now().plus(ttl));
+        } finally {
+            unlock(claim.lockKey, claim.lock);
+        }
+    }
+
+    // Forgets a claimed request that failed, so that a retry runs it again
+    public void abandon(Claim claim) {
+        claimed.remove(claim.record.getId());
+        try {
+            recordRepository.abandon(claim.record.getId());
+        } finally {
+            unlock(claim.lockKey, claim.lock);
+        }
+    }
+
+    @Scheduled(initialDelay = HEARTBEAT_INTERVAL_MS, fixedDelay = HEARTBEAT_INTERVAL_MS)
+    public void heartbeat() {
+        if (claimed.isEmpty()) {
+            return;
+        }
+        try {
+            recordRepository.renew(Set.copyOf(claimed), LocalDateTime.now().plus(lockTimeout));
+        } catch (RuntimeException e) {
+            // The locks hold until the lock timeout; the next heartbeat tries again
+            logger.warn("Could not renew idempotency locks", e);
+        }
+    }
+
+    @Scheduled(initialDelay = 600_000, fixedDelay = 3_600_000)
+    public void deleteExpired() {
+        int deleted = recordRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    private void unlock(String lockKey, CompletableFuture<Void> lock) {
+        inFlight.remove(lockKey, lock);
+        lock.complete(null);
+    }
+
+    private static boolean await(CompletableFuture<Void> running, long deadline) {
+        try {
+            running.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
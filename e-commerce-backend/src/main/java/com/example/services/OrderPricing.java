@@ -0,0 +1,57 @@
+package com.example.services;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.models.OrderEntity;
+import com.example.models.OrderItem;
+
+/**
+ * Prices an order when it is placed: the subtotal of its lines, a flat shipping cost unless
+ * the subtotal is over the free-shipping threshold, and tax on the subtotal. The amounts are
+ * stored on the order, so the total shown in every list is the total that was charged, and
+ * a later change of rates does not reprice orders already placed.
+ */
+@Component
+public class OrderPricing {
+
+    private final BigDecimal taxRate;
+    private final BigDecimal freeShippingThreshold;
+    private final BigDecimal shippingCost;
+
+    public OrderPricing(@Value("${orders.pricing.tax-rate:0.08}") BigDecimal taxRate,
+                        @Value("${orders.pricing.free-shipping-threshold:100}") BigDecimal freeShippingThreshold,
+                        @Value("${orders.pricing.shipping-cost:10}") BigDecimal shippingCost) {
+        this.taxRate = taxRate;
+        this.freeShippingThreshold = freeShippingThreshold;
+        this.shippingCost = shippingCost;
+    }
+
+    // Sets the order's amounts and item count from its items
+    public void price(OrderEntity order) {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        int itemCount = 0;
+        List<OrderItem> items = order.getOrderItems();
+        if (items != null) {
+            for (OrderItem item : items) {
+                subtotal = subtotal.add(item.getPriceAtPurchase().multiply(BigDecimal.valueOf(item.getQuantity())));
+                itemCount += item.getQuantity();
+            }
+        }
+        subtotal = subtotal.setScale(2, RoundingMode.HALF_UP);
+
+        BigDecimal shipping = subtotal.compareTo(freeShippingThreshold) > 0 ? BigDecimal.ZERO : shippingCost;
+        shipping = shipping.setScale(2, RoundingMode.HALF_UP);
+        BigDecimal tax = subtotal.multiply(taxRate).setScale(2, RoundingMode.HALF_UP);
+
+        order.setSubtotal(subtotal);
+        order.setShippingCost(shipping);
+        order.setTax(tax);
+        order.setTotalAmount(subtotal.add(shipping).add(tax));
+        order.setItemCount(itemCount);
+    }
+}
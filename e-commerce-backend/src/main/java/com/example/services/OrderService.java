@@ -1,6 +1,8 @@
 package com.example.services;
 
 import com.example.DTO.OrderDTO; // For OrderItemDTO.product conversion
+import com.example.DTO.OrderHistoryItemRow;
+import com.example.DTO.OrderHistoryRow;
 import com.example.DTO.admin.AdminOrderDTO;
 import com.example.models.OrderEntity;
 import com.example.models.OrderItem;
@@ -12,34 +14,44 @@ import com.example.services.generic.GenericServiceImpl;
 import com.stripe.exception.StripeException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Join;
-import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import org.springframework.security.core.context.SecurityContextHolder;
 
-import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Optional;
+import java.util.Set;
 
 
 import com.example.models.PaymentMethod;
-import com.stripe.model.PaymentIntent;
 import com.example.models.Address;
-import com.example.services.NotificationService;
+import com.example.services.outbox.OutboxService;
 
 @Service
 public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.OrderResponse, OrderDTO.CreateOrderRequest, Long> {
 
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+    private static final int SEARCH_TERM_LENGTH = 100;
+
     private final AddressRepository addressRepository;
 
     private final OrderRepository orderRepository;
@@ -47,7 +59,10 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
     private final StoreRepository storeRepository;   // For filtering by store name/id
     private final UserRepository userRepository;     // For filtering by customer email/id
     private final StripeService stripeService;
-    private final NotificationService notificationService;
+    private final OutboxService outboxService;
+    private final StockReservationService stockReservationService;
+    private final OrderPricing orderPricing;
+    private final OrderStatusCounters orderStatusCounters;
 
     @Autowired
     public OrderService(OrderRepository orderRepository,
@@ -56,7 +71,10 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
                         UserRepository userRepository,
                         StripeService stripeService,
                         RefundRepository refundRepository, AddressRepository addressRepository,
-                        NotificationService notificationService) {
+                        OutboxService outboxService,
+                        StockReservationService stockReservationService,
+                        OrderPricing orderPricing,
+                        OrderStatusCounters orderStatusCounters) {
         super(orderRepository);
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
@@ -64,7 +82,10 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
         this.userRepository = userRepository;
         this.stripeService = stripeService;
         this.addressRepository = addressRepository;
-        this.notificationService = notificationService;
+        this.outboxService = outboxService;
+        this.stockReservationService = stockReservationService;
+        this.orderPricing = orderPricing;
+        this.orderStatusCounters = orderStatusCounters;
     }
 
     @Override
@@ -79,6 +100,7 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
             OrderEntity order = new OrderEntity();
             order.setUser(user);
             order.setStatus(OrderEntity.Status.pending);
+            order.setPaymentStatus(OrderEntity.PaymentStatus.creating_intent);
             order.setCreatedAt(new java.sql.Timestamp(System.currentTimeMillis()));
             order.setEstimatedDelivery(LocalDate.now().plusDays(7));
             order.setTrackingNumber(generateTrackingNumber());
@@ -121,9 +143,10 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
             
             order.setShippingAddress(shippingAddress);
             
-            // Process each order item and create payment intents
+            // Process each order item
             List<OrderItem> orderItems = new ArrayList<>();
             for (OrderDTO.OrderItemDTO itemDto : createDto.getItems()) {
+                requirePositiveQuantity(itemDto);
                 Product product = productRepository.findById(itemDto.getProductId())
                         .orElseThrow(() -> new RuntimeException("Product not found"));
 
@@ -132,36 +155,19 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
                 orderItem.setProduct(product);
                 orderItem.setQuantity(itemDto.getQuantity());
                 orderItem.setPriceAtPurchase(product.getPrice());
-
-                try {
-                    // Create a payment intent for this item
-                    Map<String, String> paymentIntent;
-                    
-                    // Check if user has a valid Stripe customer ID
-                    if (user.getStripeCustomerId() != null && !user.getStripeCustomerId().isEmpty()) {
-                        // Use customer ID for the payment intent
-                        paymentIntent = stripeService.createPaymentIntent(
-                            user.getStripeCustomerId(),
-                            product.getPrice().multiply(BigDecimal.valueOf(itemDto.getQuantity())).longValue(),
-                            "usd"
-                        );
-                    } else {
-                        // Create payment intent without customer ID
-                        paymentIntent = stripeService.createPaymentIntentWithoutCustomer(
-                            product.getPrice().multiply(BigDecimal.valueOf(itemDto.getQuantity())).longValue(),
-                            "usd"
-                        );
-                    }
-
-                    orderItem.setStripePaymentIntentId(paymentIntent.get("paymentIntentId"));
-                    orderItems.add(orderItem);
-                } catch (StripeException e) {
-                    throw new RuntimeException("Failed to create payment intent: " + e.getMessage(), e);
-                }
+                orderItems.add(orderItem);
             }
 
             order.setOrderItems(orderItems);
-            return convertToDto(orderRepository.save(order));
+            orderPricing.price(order);
+            indexForSearch(order);
+
+            // The PaymentIntent is created after commit; the client polls getPaymentForCurrentUser for its secret
+            OrderEntity savedOrder = orderRepository.save(order);
+            orderStatusCounters.created(savedOrder);
+            stockReservationService.reserve(savedOrder.getId(), quantitiesByProduct(orderItems));
+            outboxService.requestPaymentIntent(savedOrder.getId());
+            return convertToDto(savedOrder, true);
         } catch (Exception e) {
             if (e instanceof RuntimeException) {
                 throw (RuntimeException) e;
@@ -170,8 +176,44 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
         }
     }
 
+    /**
+     * Converts without the payment client secrets, which only the order's owner may see.
+     * Conversion never calls Stripe, so listing orders makes no outbound requests.
+     */
     @Override
     protected OrderDTO.OrderResponse convertToDto(OrderEntity entity) {
+        return convertToDto(entity, false);
+    }
+
+    private OrderDTO.OrderResponse convertToDto(OrderEntity entity, boolean includeClientSecret) {
+        OrderDTO.OrderResponse dto = convertToSummaryDto(entity, includeClientSecret);
+        if (dto == null) return null;
+
+        List<OrderDTO.OrderItemDTO> itemDtos = new ArrayList<>();
+        
+        try {
+            if (entity.getOrderItems() != null) {
+                for (OrderItem item : entity.getOrderItems()) {
+                    if (item != null) {
+                        OrderDTO.OrderItemDTO itemDto = convertOrderItemToDto(item, includeClientSecret);
+                        if (itemDto != null) {
+                            itemDtos.add(itemDto);
+                        }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // Log the error but don't fail the entire conversion
+            System.err.println("Error processing order items: " + e.getMessage());
+            e.printStackTrace();
+        }
+        
+        dto.setItems(itemDtos);
+        return dto;
+    }
+
+    // Everything but the items, read from the order row alone
+    private OrderDTO.OrderResponse convertToSummaryDto(OrderEntity entity, boolean includeClientSecret) {
         if (entity == null) return null;
         OrderDTO.OrderResponse dto = new OrderDTO.OrderResponse();
         dto.setId(entity.getId() != null ? entity.getId().toString() : null);
@@ -196,51 +238,19 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
         dto.setTrackingNumber(entity.getTrackingNumber());
         dto.setEstimatedDelivery(entity.getEstimatedDelivery());
         
-        // Calculate totals
-        BigDecimal subtotal = BigDecimal.ZERO;
-        List<OrderDTO.OrderItemDTO> itemDtos = new ArrayList<>();
-        
-        try {
-            if (entity.getOrderItems() != null) {
-                for (OrderItem item : entity.getOrderItems()) {
-                    if (item != null) {
-                        OrderDTO.OrderItemDTO itemDto = convertOrderItemToDto(item);
-                        if (itemDto != null) {
-                            itemDtos.add(itemDto);
-                            
-                            // Add to subtotal
-                            if (item.getPriceAtPurchase() != null && item.getQuantity() > 0) {
-                                subtotal = subtotal.add(
-                                    item.getPriceAtPurchase().multiply(BigDecimal.valueOf(item.getQuantity()))
-                                );
-                            }
-                        }
-                    }
-                }
-            }
-        } catch (Exception e) {
-            // Log the error but don't fail the entire conversion
-            System.err.println("Error processing order items: " + e.getMessage());
-            e.printStackTrace();
+        // Set financial details, as priced when the order was placed
+        dto.setItemCount(entity.getItemCount());
+        dto.setSubtotal(entity.getSubtotal());
+        dto.setShipping(entity.getShippingCost());
+        dto.setTax(entity.getTax());
+        dto.setTotal(entity.getTotalAmount());
+
+        dto.setPaymentStatus(entity.getPaymentStatus() != null ? entity.getPaymentStatus().name() : null);
+        dto.setPaymentIntentId(entity.getStripePaymentIntentId());
+        if (includeClientSecret) {
+            dto.setClientSecret(entity.getStripeClientSecret());
         }
         
-        dto.setItems(itemDtos);
-        
-        // Set financial details
-        dto.setSubtotal(subtotal);
-        // Apply shipping cost calculation (simplified example)
-        BigDecimal shipping = subtotal.compareTo(BigDecimal.valueOf(100)) > 0 ? 
-                           BigDecimal.ZERO : BigDecimal.valueOf(10);
-        dto.setShipping(shipping);
-        
-        // Apply tax calculation (simplified example - 8%)
-        BigDecimal tax = subtotal.multiply(BigDecimal.valueOf(0.08)).setScale(2, java.math.RoundingMode.HALF_UP);
-        dto.setTax(tax);
-        
-        // Calculate total
-        BigDecimal total = subtotal.add(shipping).add(tax);
-        dto.setTotal(total);
-        
         // Add payment method info if available
         if (entity.getStripeChargeId() != null) {
             OrderDTO.PaymentMethodDTO paymentMethodDTO = new OrderDTO.PaymentMethodDTO();
@@ -251,20 +261,17 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
         return dto;
     }
 
-    private OrderDTO.OrderItemDTO convertOrderItemToDto(OrderItem item) {
+    private OrderDTO.OrderItemDTO convertOrderItemToDto(OrderItem item, boolean includeClientSecret) {
         if (item == null) return null;
         OrderDTO.OrderItemDTO dto = new OrderDTO.OrderItemDTO();
         dto.setProductId(item.getProduct().getId());
+        dto.setProductName(item.getProduct().getName());
         dto.setQuantity(item.getQuantity());
         dto.setPriceAtPurchase(item.getPriceAtPurchase());
         dto.setStripePaymentIntentId(item.getStripePaymentIntentId());
-        // Get client secret from Stripe service
-        try {
-            PaymentIntent paymentIntent = stripeService.getPaymentIntent(item.getStripePaymentIntentId());
-            dto.setClientSecret(paymentIntent.getClientSecret());
-        } catch (StripeException e) {
-            // Log error but don't fail the request
-            System.err.println("Error getting payment intent client secret: " + e.getMessage());
+        // Stored when the intent was created, so no Stripe round trip per item
+        if (includeClientSecret) {
+            dto.setClientSecret(item.getStripeClientSecret());
         }
         return dto;
     }
@@ -281,8 +288,17 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
         throw new UnsupportedOperationException("Manual conversion is handled in specific update methods");
     }
 
+    /**
+     * Admin and seller order search, newest first unless the pageable is sorted. Every filter
+     * is a condition on orders itself, on the columns written when the order was placed, or
+     * a subquery on order_stores and order_items, so the count query never joins and needs
+     * no DISTINCT.
+     */
+    @Transactional(readOnly = true)
     public Page<OrderDTO.OrderResponse> findAllAdminOrders(AdminOrderDTO.AdminOrderFilterRequest filter, Pageable pageable) {
-        // Implementation of complex filtering using JPA Specifications
+        if (pageable.getSort().isUnsorted()) {
+            pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), NEWEST_FIRST);
+        }
         Specification<OrderEntity> spec = (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
 
@@ -293,15 +309,7 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
                 predicates.add(criteriaBuilder.equal(root.get("user").get("id"), filter.getCustomerId()));
             }
             if (filter.getCustomerEmail() != null && !filter.getCustomerEmail().isBlank()) {
-                // This requires a join or a subquery if searching user by email directly in OrderEntity spec
-                // For simplicity, could fetch user by email first then filter by ID, or add more complex spec
-                 User user = userRepository.findByEmail(filter.getCustomerEmail()).orElse(null);
-                 if (user != null) {
-                    predicates.add(criteriaBuilder.equal(root.get("user").get("id"), user.getId()));
-                 } else {
-                    // No user found with that email, so no orders will match this criterion
-                    predicates.add(criteriaBuilder.disjunction()); // effectively a "false" condition
-                 }
+                predicates.add(criteriaBuilder.equal(root.get("customerEmail"), filter.getCustomerEmail().trim()));
             }
             if (filter.getOrderStatus() != null && !filter.getOrderStatus().isBlank()) {
                 try {
@@ -313,51 +321,55 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
                 }
             }
             if (filter.getMinOrderDate() != null) {
-                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("createdAt"), filter.getMinOrderDate()));
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("createdAt"), Timestamp.valueOf(filter.getMinOrderDate())));
             }
             if (filter.getMaxOrderDate() != null) {
-                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("createdAt"), filter.getMaxOrderDate()));
+                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("createdAt"), Timestamp.valueOf(filter.getMaxOrderDate())));
             }
-            
-            // Filtering by storeId, storeName, productId, productName requires joins in OrderItem
-            // This can get complex with JPA specifications. Consider dedicated repository methods or simplifying.
-            // For now, let's add placeholders for direct ID filters if available on OrderEntity or easily joinable.
-
-            // Example: If orders are directly associated with a primary store (not through items)
-            // if (filter.getStoreId() != null) {
-            //     predicates.add(criteriaBuilder.equal(root.get("store").get("id"), filter.getStoreId()));
-            // }
-
-            // Filtering by product ID/Name or Store ID/Name through OrderItems is more involved.
-            // It typically requires a subquery or a join on orderItems, then product/store.
-            // This part will be developed further.
-            if (filter.getProductId() != null || (filter.getProductName() != null && !filter.getProductName().isBlank()) ||
-                filter.getStoreId() != null || (filter.getStoreName() != null && !filter.getStoreName().isBlank())) {
-                
-                query.distinct(true); // Ensure distinct orders if multiple items match
-                Join<OrderEntity, OrderItem> orderItemJoin = root.join("orderItems", JoinType.INNER);
-
-                if (filter.getProductId() != null) {
-                    predicates.add(criteriaBuilder.equal(orderItemJoin.get("product").get("id"), filter.getProductId()));
-                }
-                if (filter.getProductName() != null && !filter.getProductName().isBlank()) {
-                    predicates.add(criteriaBuilder.like(criteriaBuilder.lower(orderItemJoin.get("product").get("name")),
-                            "%" + filter.getProductName().toLowerCase() + "%"));
-                }
-                if (filter.getStoreId() != null) {
-                    predicates.add(criteriaBuilder.equal(orderItemJoin.get("product").get("store").get("id"), filter.getStoreId()));
-                }
-                if (filter.getStoreName() != null && !filter.getStoreName().isBlank()) {
-                     predicates.add(criteriaBuilder.like(criteriaBuilder.lower(orderItemJoin.get("product").get("store").get("storeName")),
-                            "%" + filter.getStoreName().toLowerCase() + "%"));
-                }
+            if (filter.getStoreId() != null) {
+                predicates.add(criteriaBuilder.isMember(filter.getStoreId(), root.<Set<Long>>get("storeIds")));
+            }
+            if (filter.getProductId() != null) {
+                Subquery<Long> items = query.subquery(Long.class);
+                Root<OrderItem> item = items.from(OrderItem.class);
+                items.select(item.get("orderItemId"))
+                        .where(criteriaBuilder.equal(item.get("order"), root),
+                               criteriaBuilder.equal(item.get("product").get("id"), filter.getProductId()));
+                predicates.add(criteriaBuilder.exists(items));
+            }
+            if (filter.getProductName() != null && !filter.getProductName().isBlank()) {
+                predicates.addAll(termPredicates(root, query, criteriaBuilder, "productTerms", filter.getProductName()));
+            }
+            if (filter.getStoreName() != null && !filter.getStoreName().isBlank()) {
+                predicates.addAll(termPredicates(root, query, criteriaBuilder, "storeTerms", filter.getStoreName()));
             }
 
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
-        return findAll(spec, pageable); // Leverages GenericServiceImpl's findAll(spec, pageable)
+        // Item counts come from the stored column, so no order's items are loaded
+        return orderRepository.findAll(spec, pageable).map(order -> convertToSummaryDto(order, false));
     }
 
+    // Every word searched for has to start one of the words indexed for the order
+    private static List<Predicate> termPredicates(Root<OrderEntity> root, CriteriaQuery<?> query,
+                                                  CriteriaBuilder criteriaBuilder, String terms, String search) {
+        List<Predicate> predicates = new ArrayList<>();
+        for (String word : new LinkedHashSet<>(ProductSearchIndex.tokenize(search))) {
+            Subquery<Integer> matches = query.subquery(Integer.class);
+            Root<OrderEntity> order = matches.correlate(root);
+            Join<OrderEntity, String> term = order.join(terms);
+            matches.select(criteriaBuilder.literal(1))
+                    .where(criteriaBuilder.like(term, truncate(word, SEARCH_TERM_LENGTH) + "%"));
+            predicates.add(criteriaBuilder.exists(matches));
+        }
+        if (predicates.isEmpty()) {
+            // Only punctuation: nothing can match
+            predicates.add(criteriaBuilder.disjunction());
+        }
+        return predicates;
+    }
+
+    @Transactional
     public OrderDTO.OrderResponse updateOrderStatus(Long orderId, AdminOrderDTO.UpdateOrderStatusRequest request) {
         OrderEntity order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId)); // Replace with custom exception
@@ -365,7 +377,11 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
         try {
             OrderEntity.Status oldStatus = order.getStatus();
             OrderEntity.Status newStatus = OrderEntity.Status.valueOf(request.getNewStatus().toLowerCase());
-            order.setStatus(newStatus);
+            orderStatusCounters.transition(order, newStatus);
+            if (newStatus == OrderEntity.Status.cancelled && oldStatus != OrderEntity.Status.cancelled) {
+                stockReservationService.release(orderId);
+                cancelPayments(order);
+            }
             
             // Create a notification for the user about the order status change
             if (order.getUser() != null && !oldStatus.equals(newStatus)) {
@@ -375,7 +391,7 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
                     oldStatus.name(), 
                     newStatus.name()
                 );
-                notificationService.createNotification(Long.valueOf(order.getUser().getId()), notificationMessage);
+                outboxService.notifyUser(Long.valueOf(order.getUser().getId()), notificationMessage);
             }
             
         } catch (IllegalArgumentException e) {
@@ -388,51 +404,76 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
 
     @Transactional
     public List<OrderDTO.OrderResponse> getOrdersForCurrentUser() {
-        try {
-            // Get the current authenticated user's email
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            if (username == null || username.isEmpty()) {
-                throw new RuntimeException("User not authenticated");
-            }
-            
-            // Find the user by email
-            User user = userRepository.findByEmail(username)
-                    .orElseThrow(() -> new RuntimeException("User not found with email: " + username));
-            
-            // Find all orders for the user with eager loading to prevent LazyInitializationException
-            List<OrderEntity> userOrders = orderRepository.findByUser_Id(user.getId());
-            
-            // Initialize the collections to prevent LazyInitializationException
-            userOrders.forEach(order -> {
-                if (order.getOrderItems() != null) {
-                    order.getOrderItems().size(); // This forces initialization of the collection
-                    // Initialize product for each order item
-                    order.getOrderItems().forEach(item -> {
-                        if (item.getProduct() != null) {
-                            item.getProduct().getName(); // Force initialization
-                            // Initialize other necessary properties
-                        }
-                    });
-                }
-                // Initialize other necessary collections or properties
-                if (order.getShippingAddress() != null) {
-                    order.getShippingAddress().getStreet(); // Force initialization
-                }
-            });
-            
-            // Convert each order entity to DTO
-            List<OrderDTO.OrderResponse> orderDtos = userOrders.stream()
-                    .map(this::convertToDto)
-                    .collect(Collectors.toList());
-            
-            System.out.println("Retrieved " + orderDtos.size() + " orders for user: " + username);
-            
-            return orderDtos;
-        } catch (Exception e) {
-            System.err.println("Error retrieving orders for current user: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Failed to retrieve orders: " + e.getMessage(), e);
+        return getOrderHistoryForCurrentUser(Pageable.unpaged()).getContent();
+    }
+
+    /**
+     * A page of the current user's orders, newest first, with items, product names and
+     * shipping addresses. Reads columns rather than entities: one query for the page of
+     * orders, one for all their items, and a count when the page is not the last.
+     */
+    @Transactional(readOnly = true)
+    public Page<OrderDTO.OrderResponse> getOrderHistoryForCurrentUser(Pageable pageable) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        if (username == null || username.isEmpty()) {
+            throw new RuntimeException("User not authenticated");
+        }
+
+        Page<OrderHistoryRow> orders = orderRepository.findHistoryByUserEmail(username, pageable);
+        if (orders.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, orders.getTotalElements());
+        }
+        List<Long> orderIds = orders.getContent().stream().map(OrderHistoryRow::getId).toList();
+        Map<Long, List<OrderHistoryItemRow>> itemsByOrder = orderRepository.findHistoryItemsByOrderIds(orderIds).stream()
+                .collect(Collectors.groupingBy(OrderHistoryItemRow::getOrderId));
+        return orders.map(row -> convertToDto(row, itemsByOrder.getOrDefault(row.getId(), List.of())));
+    }
+
+    private OrderDTO.OrderResponse convertToDto(OrderHistoryRow row, List<OrderHistoryItemRow> items) {
+        OrderDTO.OrderResponse dto = new OrderDTO.OrderResponse();
+        dto.setId(row.getId().toString());
+        dto.setStatus(row.getStatus() != null ? row.getStatus().name() : null);
+        dto.setCreatedAt(row.getCreatedAt() != null ? row.getCreatedAt().toLocalDateTime() : null);
+        dto.setUpdatedAt(row.getUpdatedAt() != null ? row.getUpdatedAt().toLocalDateTime() : null);
+
+        OrderDTO.ShippingAddressDTO addressDTO = new OrderDTO.ShippingAddressDTO();
+        addressDTO.setId(row.getAddressId());
+        addressDTO.setStreet(row.getStreet());
+        addressDTO.setCity(row.getCity());
+        addressDTO.setState(row.getState());
+        addressDTO.setCountry(row.getCountry());
+        addressDTO.setZipCode(row.getZipCode());
+        dto.setShippingAddress(addressDTO);
+
+        dto.setTrackingNumber(row.getTrackingNumber());
+        dto.setEstimatedDelivery(row.getEstimatedDelivery());
+
+        List<OrderDTO.OrderItemDTO> itemDtos = new ArrayList<>();
+        for (OrderHistoryItemRow item : items) {
+            OrderDTO.OrderItemDTO itemDto = new OrderDTO.OrderItemDTO();
+            itemDto.setProductId(item.getProductId());
+            itemDto.setProductName(item.getProductName());
+            itemDto.setQuantity(item.getQuantity());
+            itemDto.setPriceAtPurchase(item.getPriceAtPurchase());
+            itemDto.setStripePaymentIntentId(item.getStripePaymentIntentId());
+            itemDtos.add(itemDto);
         }
+        dto.setItems(itemDtos);
+
+        dto.setItemCount(row.getItemCount());
+        dto.setSubtotal(row.getSubtotal());
+        dto.setShipping(row.getShippingCost());
+        dto.setTax(row.getTax());
+        dto.setTotal(row.getTotalAmount());
+
+        dto.setPaymentStatus(row.getPaymentStatus() != null ? row.getPaymentStatus().name() : null);
+        dto.setPaymentIntentId(row.getPaymentIntentId());
+        if (row.getStripeChargeId() != null) {
+            OrderDTO.PaymentMethodDTO paymentMethodDTO = new OrderDTO.PaymentMethodDTO();
+            paymentMethodDTO.setType("stripe");
+            dto.setPaymentMethod(paymentMethodDTO);
+        }
+        return dto;
     }
 
     @Transactional
@@ -462,7 +503,26 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
             order.getShippingAddress().getStreet(); // Force initialization
         }
         
-        return convertToDto(order);
+        // The owner may still need the secrets to finish paying for a pending order
+        boolean awaitingPayment = order.getStatus() == OrderEntity.Status.pending;
+        if (awaitingPayment) {
+            backfillClientSecrets(order);
+        }
+        return convertToDto(order, awaitingPayment);
+    }
+
+    // Items created before the secret was stored fetch it from Stripe once and keep it
+    private void backfillClientSecrets(OrderEntity order) {
+        for (OrderItem item : order.getOrderItems()) {
+            if (item.getStripeClientSecret() == null && item.getStripePaymentIntentId() != null) {
+                try {
+                    item.setStripeClientSecret(stripeService.getPaymentIntent(item.getStripePaymentIntentId()).getClientSecret());
+                } catch (StripeException e) {
+                    // Log error but don't fail the request
+                    System.err.println("Error getting payment intent client secret: " + e.getMessage());
+                }
+            }
+        }
     }
 
     @Transactional
@@ -482,44 +542,21 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
             throw new RuntimeException("Only pending orders can be cancelled");
         }
         
-        order.setStatus(OrderEntity.Status.cancelled);
+        orderStatusCounters.transition(order, OrderEntity.Status.cancelled);
         orderRepository.save(order);
+        stockReservationService.release(orderId);
+        cancelPayments(order);
         
         // Create a notification for the user about their cancelled order
         String notificationMessage = String.format("You have cancelled your order #%d.", orderId);
-        notificationService.createNotification(Long.valueOf(user.getId()), notificationMessage);
+        outboxService.notifyUser(Long.valueOf(user.getId()), notificationMessage);
     }
 
     public Map<String, Object> findAllAdminOrders(AdminOrderDTO.AdminOrderFilterRequest filter, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<OrderEntity> ordersPage = orderRepository.findAll((root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
-            
-            if (filter.getOrderId() != null) {
-                predicates.add(cb.equal(root.get("id"), filter.getOrderId()));
-            }
-            if (filter.getCustomerId() != null) {
-                predicates.add(cb.equal(root.get("user").get("id"), filter.getCustomerId()));
-            }
-            if (filter.getOrderStatus() != null) {
-                predicates.add(cb.equal(root.get("status"), OrderEntity.Status.valueOf(filter.getOrderStatus())));
-            }
-            if (filter.getMinOrderDate() != null) {
-                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), filter.getMinOrderDate()));
-            }
-            if (filter.getMaxOrderDate() != null) {
-                predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), filter.getMaxOrderDate()));
-            }
-            
-            return cb.and(predicates.toArray(new Predicate[0]));
-        }, pageable);
-
-        List<OrderDTO.OrderResponse> orders = ordersPage.getContent().stream()
-            .map(this::convertToDto)
-            .collect(Collectors.toList());
+        Page<OrderDTO.OrderResponse> ordersPage = findAllAdminOrders(filter, PageRequest.of(page, size, NEWEST_FIRST));
 
         Map<String, Object> response = new HashMap<>();
-        response.put("orders", orders);
+        response.put("orders", ordersPage.getContent());
         response.put("currentPage", ordersPage.getNumber());
         response.put("totalItems", ordersPage.getTotalElements());
         response.put("totalPages", ordersPage.getTotalPages());
@@ -527,6 +564,14 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
         return response;
     }
 
+    // One order with its items, for the detail view behind the admin order list
+    @Transactional(readOnly = true)
+    public OrderDTO.OrderResponse findAdminOrder(Long orderId) {
+        OrderEntity order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+        return convertToDto(order);
+    }
+
     public List<OrderDTO.OrderResponse> getOrdersByUserId(Integer userId) {
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new RuntimeException("User not found"));
@@ -537,13 +582,14 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
     }
 
     @Transactional
-    public Map<String, String> createOrderForUser(Integer userId, OrderDTO.CreateOrderRequest createDto) throws StripeException {
+    public Map<String, String> createOrderForUser(Integer userId, OrderDTO.CreateOrderRequest createDto) {
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new RuntimeException("User not found"));
 
         OrderEntity order = new OrderEntity();
         order.setUser(user);
         order.setStatus(OrderEntity.Status.pending);
+        order.setPaymentStatus(OrderEntity.PaymentStatus.creating_intent);
         order.setCreatedAt(new java.sql.Timestamp(System.currentTimeMillis()));
         order.setShippingAddress(addressRepository.findById(createDto.getShippingAddressId())
             .orElseThrow(() -> new RuntimeException("Shipping address not found")));
@@ -552,6 +598,7 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
 
         List<OrderItem> orderItems = new ArrayList<>();
         for (OrderDTO.OrderItemDTO itemDto : createDto.getItems()) {
+            requirePositiveQuantity(itemDto);
             Product product = productRepository.findById(itemDto.getProductId())
                     .orElseThrow(() -> new RuntimeException("Product not found: " + itemDto.getProductId()));
 
@@ -561,37 +608,166 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
             orderItem.setQuantity(itemDto.getQuantity());
             orderItem.setPriceAtPurchase(product.getPrice());
 
-            // Create payment intent for this item
-            Map<String, String> paymentIntent;
-            
-            // Check if user has a valid Stripe customer ID
-            if (user.getStripeCustomerId() != null && !user.getStripeCustomerId().isEmpty()) {
-                // Use customer ID for the payment intent
-                paymentIntent = stripeService.createPaymentIntent(
-                    user.getStripeCustomerId(),
-                    product.getPrice().multiply(BigDecimal.valueOf(itemDto.getQuantity())).longValue(),
-                    "usd"
-                );
-            } else {
-                // Create payment intent without customer ID
-                paymentIntent = stripeService.createPaymentIntentWithoutCustomer(
-                    product.getPrice().multiply(BigDecimal.valueOf(itemDto.getQuantity())).longValue(),
-                    "usd"
-                );
-            }
-            orderItem.setStripePaymentIntentId(paymentIntent.get("paymentIntentId"));
-
             orderItems.add(orderItem);
         }
         order.setOrderItems(orderItems);
+        orderPricing.price(order);
+        indexForSearch(order);
 
         OrderEntity savedOrder = orderRepository.save(order);
+        orderStatusCounters.created(savedOrder);
+        stockReservationService.reserve(savedOrder.getId(), quantitiesByProduct(orderItems));
+        outboxService.requestPaymentIntent(savedOrder.getId());
         return Map.of(
             "orderId", savedOrder.getId().toString(),
-            "paymentIntentId", orderItems.get(0).getStripePaymentIntentId()
+            "paymentStatus", savedOrder.getPaymentStatus().name()
         );
     }
 
+    // What the admin order search filters on instead of joining the order's items
+    private static void indexForSearch(OrderEntity order) {
+        Set<String> productTerms = new HashSet<>();
+        Set<String> storeTerms = new HashSet<>();
+        Set<Long> storeIds = new HashSet<>();
+        for (OrderItem item : order.getOrderItems()) {
+            Product product = item.getProduct();
+            addTerms(productTerms, product.getName());
+            addTerms(storeTerms, product.getStore().getStoreName());
+            storeIds.add(product.getStore().getId());
+        }
+        order.setCustomerEmail(order.getUser().getEmail());
+        order.setProductTerms(productTerms);
+        order.setStoreTerms(storeTerms);
+        order.setStoreIds(storeIds);
+    }
+
+    private static void addTerms(Set<String> terms, String text) {
+        for (String token : ProductSearchIndex.tokenize(text)) {
+            terms.add(truncate(token, SEARCH_TERM_LENGTH));
+        }
+    }
+
+    // Checked per line: lines of one product are summed before stock is taken, which could hide a negative one
+    private static void requirePositiveQuantity(OrderDTO.OrderItemDTO itemDto) {
+        if (itemDto.getQuantity() < 1) {
+            throw new IllegalArgumentException("Quantity for product " + itemDto.getProductId() + " must be at least 1");
+        }
+    }
+
+    private static String truncate(String value, int length) {
+        return value.length() > length ? value.substring(0, length) : value;
+    }
+
+    // Lines of the same product are reserved together
+    private static Map<Long, Integer> quantitiesByProduct(List<OrderItem> items) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (OrderItem item : items) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    /**
+     * What the PaymentIntent of an order is created with: the user's Stripe customer, if
+     * any, and the order total in cents.
+     */
+    public record PaymentIntentRequest(String customerId, long amountInCents) {
+    }
+
+    /**
+     * Reads what is needed to create the order's single PaymentIntent, or empty if the order
+     * no longer needs one (it already has one, or it was cancelled in the meantime). Items keep
+     * no intent of their own; when the payment succeeds each item is given the order's charge,
+     * and RefundService refunds an item up to its own line amount from it.
+     */
+    @Transactional(readOnly = true)
+    public Optional<PaymentIntentRequest> preparePaymentIntent(Long orderId) {
+        OrderEntity order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+        if (order.getStatus() != OrderEntity.Status.pending
+                || order.getStripePaymentIntentId() != null
+                || order.getPaymentStatus() != OrderEntity.PaymentStatus.creating_intent) {
+            return Optional.empty();
+        }
+        long amountInCents = order.getTotalAmount()
+                .movePointRight(2).setScale(0, java.math.RoundingMode.HALF_UP).longValueExact();
+        return Optional.of(new PaymentIntentRequest(order.getUser().getStripeCustomerId(), amountInCents));
+    }
+
+    /**
+     * Stores a newly created intent on the order. False if the order no longer wants it,
+     * because it was cancelled while the intent was being created; the caller cancels the
+     * intent so it cannot be paid.
+     */
+    @Transactional
+    public boolean attachPaymentIntent(Long orderId, String paymentIntentId, String clientSecret) {
+        OrderEntity order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+        if (paymentIntentId.equals(order.getStripePaymentIntentId())) {
+            // Attached by an earlier run whose outcome was not recorded
+            return true;
+        }
+        if (order.getStatus() != OrderEntity.Status.pending
+                || order.getPaymentStatus() != OrderEntity.PaymentStatus.creating_intent) {
+            return false;
+        }
+        order.setStripePaymentIntentId(paymentIntentId);
+        order.setStripeClientSecret(clientSecret);
+        order.setPaymentStatus(OrderEntity.PaymentStatus.awaiting_payment);
+        orderRepository.save(order);
+        return true;
+    }
+
+    // The intent could not be created after all retries: the order cannot be paid for
+    @Transactional
+    public void failPaymentIntent(Long orderId) {
+        OrderEntity order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+        if (order.getPaymentStatus() != OrderEntity.PaymentStatus.creating_intent) {
+            return;
+        }
+        order.setPaymentStatus(OrderEntity.PaymentStatus.failed);
+        orderStatusCounters.transition(order, OrderEntity.Status.cancelled);
+        orderRepository.save(order);
+        stockReservationService.release(orderId);
+
+        String notificationMessage = String.format(
+            "We could not start the payment for order #%d, so it has been cancelled. Please try placing it again.",
+            orderId
+        );
+        outboxService.notifyUser(Long.valueOf(order.getUser().getId()), notificationMessage);
+    }
+
+    /**
+     * The payment state of one of the current user's orders, polled by the client after
+     * checkout until the PaymentIntent exists and its client secret can be returned.
+     */
+    @Transactional(readOnly = true)
+    public OrderDTO.OrderResponse getPaymentForCurrentUser(Long orderId) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        User user = userRepository.findByEmail(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        OrderEntity order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+
+        if (order.getUser().getId() != user.getId()) {
+            throw new RuntimeException("Order does not belong to user");
+        }
+
+        OrderDTO.OrderResponse dto = new OrderDTO.OrderResponse();
+        dto.setId(order.getId().toString());
+        dto.setStatus(order.getStatus() != null ? order.getStatus().name() : null);
+        dto.setPaymentStatus(order.getPaymentStatus() != null ? order.getPaymentStatus().name() : null);
+        dto.setPaymentIntentId(order.getStripePaymentIntentId());
+        // A cancelled order keeps its intent ID but must not be paid
+        if (order.getStatus() == OrderEntity.Status.pending
+                && order.getPaymentStatus() == OrderEntity.PaymentStatus.awaiting_payment) {
+            dto.setClientSecret(order.getStripeClientSecret());
+        }
+        return dto;
+    }
+
     @Transactional
     public void deleteOrder(Long orderId) {
         OrderEntity order = orderRepository.findById(orderId)
@@ -603,6 +779,10 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
             throw new RuntimeException("Cannot delete delivered or shipped orders");
         }
         
+        stockReservationService.release(orderId);
+        cancelPayments(order);
+        // Takes the order out of its status's counters
+        orderStatusCounters.transition(order, null);
         orderRepository.delete(order);
     }
 
@@ -628,28 +808,126 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
         return orderItem.getOrder().getId().equals(orderId);
     }
 
+    /**
+     * Finds the order paid by a PaymentIntent, whether it is the order's own intent or,
+     * for orders placed with one intent per item, the intent of one of its items.
+     */
+    private Optional<OrderEntity> findOrderByPaymentIntentId(String paymentIntentId) {
+        Optional<OrderEntity> order = orderRepository.findOrderByStripePaymentIntentId(paymentIntentId);
+        if (order.isPresent()) {
+            return order;
+        }
+        return orderRepository.findByStripePaymentIntentId(paymentIntentId).map(OrderItem::getOrder);
+    }
+
+    /**
+     * Records a succeeded charge of the order's own PaymentIntent, from confirmPayment or the
+     * charge.succeeded webhook, whichever comes first. The order and each of its items take
+     * the charge ID, which RefundService refunds the items from.
+     */
+    @Transactional
+    public OrderEntity recordOrderPayment(OrderEntity order, String chargeId) {
+        if (order.getStripeChargeId() != null) {
+            return order;
+        }
+        order.setStripeChargeId(chargeId);
+        if (order.getStatus() != OrderEntity.Status.pending) {
+            // The charge ID is kept so a second confirmation of this charge is ignored
+            refundLatePayment(order, chargeId);
+            return orderRepository.save(order);
+        }
+        order.setPaymentStatus(OrderEntity.PaymentStatus.paid);
+        for (OrderItem item : order.getOrderItems()) {
+            item.setStripeChargeId(chargeId);
+        }
+        orderStatusCounters.transition(order, OrderEntity.Status.processing);
+        stockReservationService.commit(order.getId());
+
+        // Create a notification for the user about their payment confirmation
+        String notificationMessage = String.format("Payment for order #%d has been confirmed. Your order is now being processed.", order.getId());
+        outboxService.notifyUser(Long.valueOf(order.getUser().getId()), notificationMessage);
+        return orderRepository.save(order);
+    }
+
+    /**
+     * A charge that succeeded for an order that is no longer pending: it was cancelled or
+     * expired while the customer was paying and its stock has been released, so the charge
+     * is refunded instead of fulfilled.
+     */
+    @Transactional
+    public void refundLatePayment(OrderEntity order, String chargeId) {
+        outboxService.refundPayment(order.getId(), chargeId);
+
+        String notificationMessage = String.format(
+            "Your payment for order #%d arrived after the order was cancelled and will be refunded.",
+            order.getId()
+        );
+        outboxService.notifyUser(Long.valueOf(order.getUser().getId()), notificationMessage);
+    }
+
+    /**
+     * Stops payment of an order that is being cancelled or deleted: its unpaid intents are
+     * cancelled at Stripe once this transaction commits, and on an order paid per item the
+     * items already paid are refunded.
+     */
+    private void cancelPayments(OrderEntity order) {
+        if (order.getStripePaymentIntentId() != null && order.getStripeChargeId() == null) {
+            outboxService.cancelPaymentIntent(order.getId(), order.getStripePaymentIntentId());
+        }
+        if (order.getPaymentStatus() == OrderEntity.PaymentStatus.paid || order.getOrderItems() == null) {
+            return;
+        }
+        for (OrderItem item : order.getOrderItems()) {
+            String itemIntentId = item.getStripePaymentIntentId();
+            if (itemIntentId == null || itemIntentId.equals(order.getStripePaymentIntentId())) {
+                continue;
+            }
+            if (item.getStripeChargeId() == null) {
+                outboxService.cancelPaymentIntent(order.getId(), itemIntentId);
+            } else {
+                outboxService.refundPayment(order.getId(), item.getStripeChargeId());
+            }
+        }
+    }
+
     @Transactional
     public OrderDTO.OrderResponse confirmPayment(String paymentIntentId) {
         try {
+            Optional<OrderEntity> paidOrder = orderRepository.findOrderByStripePaymentIntentId(paymentIntentId);
+            if (paidOrder.isPresent()) {
+                String chargeId = stripeService.confirmPaymentIntent(paymentIntentId);
+                return convertToDto(recordOrderPayment(paidOrder.get(), chargeId));
+            }
+
+            // Orders placed with one intent per item
             OrderItem orderItem = orderRepository.findByStripePaymentIntentId(paymentIntentId)
                     .orElseThrow(() -> new RuntimeException("Order item not found for payment intent: " + paymentIntentId));
             
             String chargeId = stripeService.confirmPaymentIntent(paymentIntentId);
+            OrderEntity order = orderItem.getOrder();
+            if (chargeId.equals(orderItem.getStripeChargeId())) {
+                return convertToDto(order);
+            }
+            if (order.getStatus() != OrderEntity.Status.pending) {
+                refundLatePayment(order, chargeId);
+                return convertToDto(order);
+            }
             orderItem.setStripeChargeId(chargeId);
             
             // Check if all items in the order are paid
-            OrderEntity order = orderItem.getOrder();
             boolean allItemsPaid = order.getOrderItems().stream()
                     .allMatch(item -> item.getStripeChargeId() != null);
             
             // If all items are paid, update order status
             if (allItemsPaid) {
-                order.setStatus(OrderEntity.Status.processing);
+                orderStatusCounters.transition(order, OrderEntity.Status.processing);
                 order.setStripeChargeId(chargeId);
+                order.setPaymentStatus(OrderEntity.PaymentStatus.paid);
+                stockReservationService.commit(order.getId());
                 
                 // Create a notification for the user about their payment confirmation
                 String notificationMessage = String.format("Payment for order #%d has been confirmed. Your order is now being processed.", order.getId());
-                notificationService.createNotification(Long.valueOf(order.getUser().getId()), notificationMessage);
+                outboxService.notifyUser(Long.valueOf(order.getUser().getId()), notificationMessage);
             }
             
             orderRepository.save(order);
@@ -662,22 +940,22 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
     @Transactional
     public OrderDTO.OrderResponse handlePaymentFailure(String paymentIntentId) {
         try {
-            OrderItem orderItem = orderRepository.findByStripePaymentIntentId(paymentIntentId)
-                    .orElseThrow(() -> new RuntimeException("Order item not found for payment intent: " + paymentIntentId));
-            
-            // Get the parent order
-            OrderEntity order = orderItem.getOrder();
+            OrderEntity order = findOrderByPaymentIntentId(paymentIntentId)
+                    .orElseThrow(() -> new RuntimeException("Order not found for payment intent: " + paymentIntentId));
             
             // Mark the order as cancelled due to payment failure
             if (order.getStatus() == OrderEntity.Status.pending) {
-                order.setStatus(OrderEntity.Status.cancelled);
+                orderStatusCounters.transition(order, OrderEntity.Status.cancelled);
+                order.setPaymentStatus(OrderEntity.PaymentStatus.failed);
+                stockReservationService.release(order.getId());
+                cancelPayments(order);
                 
                 // Notify the user that payment has failed
                 String notificationMessage = String.format(
                     "Payment for order #%d has failed. Please update your payment information or contact customer support.", 
                     order.getId()
                 );
-                notificationService.createNotification(Long.valueOf(order.getUser().getId()), notificationMessage);
+                outboxService.notifyUser(Long.valueOf(order.getUser().getId()), notificationMessage);
             }
             
             // Save the updated order
@@ -688,6 +966,37 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
         }
     }
 
+    /**
+     * Called by StockReservationExpiryJob for an order whose reservations expired. An order
+     * still unpaid is cancelled and its units returned; one that was paid in the meantime
+     * keeps them.
+     */
+    @Transactional
+    public void expireReservations(Long orderId) {
+        OrderEntity order = orderRepository.findById(orderId).orElse(null);
+        if (order == null) {
+            stockReservationService.release(orderId);
+            return;
+        }
+        if (order.getPaymentStatus() == OrderEntity.PaymentStatus.paid) {
+            stockReservationService.commit(orderId);
+            return;
+        }
+        stockReservationService.release(orderId);
+        if (order.getStatus() == OrderEntity.Status.pending) {
+            orderStatusCounters.transition(order, OrderEntity.Status.cancelled);
+            order.setPaymentStatus(OrderEntity.PaymentStatus.failed);
+            orderRepository.save(order);
+            cancelPayments(order);
+
+            String notificationMessage = String.format(
+                "Order #%d was not paid in time and has been cancelled.",
+                orderId
+            );
+            outboxService.notifyUser(Long.valueOf(order.getUser().getId()), notificationMessage);
+        }
+    }
+
     /**
      * Find an order by payment intent ID
      * @param paymentIntentId Stripe payment intent ID
@@ -701,19 +1010,8 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
             throw new IllegalArgumentException("Payment intent ID cannot be null or empty");
         }
         
-        // Try to find the order item
-        Optional<OrderItem> orderItemOpt = orderRepository.findByStripePaymentIntentId(paymentIntentId);
-        
-        if (orderItemOpt.isEmpty()) {
-            throw new RuntimeException("No order item found with payment intent ID: " + paymentIntentId);
-        }
-        
-        OrderItem orderItem = orderItemOpt.get();
-        OrderEntity order = orderItem.getOrder();
-        
-        if (order == null) {
-            throw new RuntimeException("Order item with payment intent ID " + paymentIntentId + " has no associated order");
-        }
+        OrderEntity order = findOrderByPaymentIntentId(paymentIntentId)
+                .orElseThrow(() -> new RuntimeException("No order found with payment intent ID: " + paymentIntentId));
         
         // Initialize collections to prevent LazyInitializationException
         if (order.getOrderItems() != null) {
@@ -733,12 +1031,13 @@ public class OrderService extends GenericServiceImpl<OrderEntity, OrderDTO.Order
     }
 
     public Map<String, Object> getOrderStats() {
-        // Get counts of orders by status
-        long pendingCount = orderRepository.countPendingOrders();
-        long processingCount = orderRepository.countProcessingOrders();
-        long shippedCount = orderRepository.countShippedOrders();
-        long deliveredCount = orderRepository.countDeliveredOrders();
-        long cancelledCount = orderRepository.countCancelledOrders();
+        // Get counts of orders by status, kept up to date by OrderStatusCounters
+        Map<OrderEntity.Status, OrderStatusCounters.StatusTotals> totals = orderStatusCounters.totals();
+        long pendingCount = totals.get(OrderEntity.Status.pending).orders();
+        long processingCount = totals.get(OrderEntity.Status.processing).orders();
+        long shippedCount = totals.get(OrderEntity.Status.shipped).orders();
+        long deliveredCount = totals.get(OrderEntity.Status.delivered).orders();
+        long cancelledCount = totals.get(OrderEntity.Status.cancelled).orders();
         
         // Calculate total orders
         long totalOrders = pendingCount + processingCount + shippedCount + deliveredCount + cancelledCount;
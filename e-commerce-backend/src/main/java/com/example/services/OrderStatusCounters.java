@@ -0,0 +1,185 @@
+package com.example.services;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.models.OrderEntity;
+import com.example.models.OrderStatusCount;
+import com.example.repositories.OrderRepository;
+import com.example.repositories.OrderStatusCountRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Order statistics without counting orders. Placing an order and every change of its
+ * status go through here, in the transaction that makes the change, and move the order and
+ * its stored total from one status's counters to the other's; the counters commit or roll
+ * back with the order. Reading the statistics sums a few rows however many orders there are.
+ *
+ * Each status has several slot rows and a change picks one at random, so concurrent
+ * checkouts increment different rows instead of queueing on one row lock. A nightly job
+ * compares the counters with a GROUP BY over orders and corrects any drift.
+ */
+@Service
+public class OrderStatusCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusCounters.class);
+
+    // Rows are locked in this order by every change, so two changes cannot deadlock
+    private static final Comparator<OrderEntity.Status> LOCK_ORDER = Comparator.comparing(OrderEntity.Status::name);
+
+    private final OrderStatusCountRepository countRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int slots;
+
+    public OrderStatusCounters(OrderStatusCountRepository countRepository,
+                               OrderRepository orderRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${orders.status-counts.slots:8}") int slots) {
+        this.countRepository = countRepository;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.slots = slots;
+    }
+
+    /**
+     * Number of orders in a status and the sum of their totals.
+     */
+    public record StatusTotals(long orders, BigDecimal amount) {
+        public static final StatusTotals NONE = new StatusTotals(0, BigDecimal.ZERO);
+    }
+
+    // Creates the slot rows that do not exist yet, so that changes only ever update rows
+    @PostConstruct
+    public void createSlots() {
+        Set<String> existing = new HashSet<>();
+        for (OrderStatusCount row : countRepository.findAll()) {
+            existing.add(row.getStatus().name() + '/' + row.getSlot());
+        }
+        for (OrderEntity.Status status : OrderEntity.Status.values()) {
+            for (int slot = 0; slot < slots; slot++) {
+                if (existing.contains(status.name() + '/' + slot)) {
+                    continue;
+                }
+                OrderStatusCount row = new OrderStatusCount();
+                row.setStatus(status);
+                row.setSlot(slot);
+                try {
+                    transactionTemplate.executeWithoutResult(tx -> countRepository.saveAndFlush(row));
+                } catch (DataIntegrityViolationException e) {
+                    // Created by another instance starting at the same time
+                }
+            }
+        }
+    }
+
+    // Counts a newly placed order, once its status and total are set
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void created(OrderEntity order) {
+        add(order.getStatus(), 1, order.getTotalAmount());
+    }
+
+    // Sets the order's status and moves it to the new status's counters; null for an order being deleted
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void transition(OrderEntity order, OrderEntity.Status newStatus) {
+        OrderEntity.Status oldStatus = order.getStatus();
+        order.setStatus(newStatus);
+        if (oldStatus == newStatus) {
+            return;
+        }
+        BigDecimal amount = order.getTotalAmount();
+        if (oldStatus == null) {
+            add(newStatus, 1, amount);
+        } else if (newStatus == null) {
+            add(oldStatus, -1, amount.negate());
+        } else if (LOCK_ORDER.compare(oldStatus, newStatus) < 0) {
+            add(oldStatus, -1, amount.negate());
+            add(newStatus, 1, amount);
+        } else {
+            add(newStatus, 1, amount);
+            add(oldStatus, -1, amount.negate());
+        }
+    }
+
+    private void add(OrderEntity.Status status, long orders, BigDecimal amount) {
+        if (status == null) {
+            return;
+        }
+        int slot = ThreadLocalRandom.current().nextInt(slots);
+        if (countRepository.add(status, slot, orders, amount) == 0) {
+            // Slots are created at startup; verify corrects the count
+            logger.warn("No order status counter for {} slot {}; the change will be corrected by the nightly check", status, slot);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Map<OrderEntity.Status, StatusTotals> totals() {
+        Map<OrderEntity.Status, StatusTotals> totals = new EnumMap<>(OrderEntity.Status.class);
+        for (OrderEntity.Status status : OrderEntity.Status.values()) {
+            totals.put(status, StatusTotals.NONE);
+        }
+        totals.putAll(toTotals(countRepository.sumByStatus()));
+        return totals;
+    }
+
+    // Rows of status, order count, total amount
+    private static Map<OrderEntity.Status, StatusTotals> toTotals(Iterable<Object[]> rows) {
+        Map<OrderEntity.Status, StatusTotals> totals = new EnumMap<>(OrderEntity.Status.class);
+        for (Object[] row : rows) {
+            totals.put((OrderEntity.Status) row[0], new StatusTotals(((Number) row[1]).longValue(), (BigDecimal) row[2]));
+        }
+        return totals;
+    }
+
+    /**
+     * Compares the counters with the orders themselves and corrects them. Both are read in
+     * one repeatable-read transaction, so they come from the same snapshot: a change either
+     * committed before it, in both the order and the counters, or is not seen at all, and no
+     * row is locked while the orders are grouped. The correction is added to the counters
+     * as a difference, so changes committed since the snapshot are kept.
+     */
+    @Scheduled(cron = "${orders.status-counts.verify-cron:0 30 3 * * *}")
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    public void verify() {
+        Map<OrderEntity.Status, StatusTotals> counted = toTotals(countRepository.sumByStatus());
+        Map<OrderEntity.Status, StatusTotals> actual = toTotals(orderRepository.countAndSumByStatus());
+
+        int corrected = 0;
+        for (OrderEntity.Status status : OrderEntity.Status.values()) {
+            StatusTotals expected = actual.getOrDefault(status, StatusTotals.NONE);
+            StatusTotals current = counted.getOrDefault(status, StatusTotals.NONE);
+            if (current.orders() == expected.orders() && current.amount().compareTo(expected.amount()) == 0) {
+                continue;
+            }
+
+            logger.warn("Order status counters for {} were {} orders ({}), corrected to {} orders ({})",
+                    status, current.orders(), current.amount(), expected.orders(), expected.amount());
+            if (countRepository.add(status, 0, expected.orders() - current.orders(),
+                    expected.amount().subtract(current.amount())) == 0) {
+                logger.warn("No order status counter for {} slot 0; it is created on the next start", status);
+            }
+            corrected++;
+        }
+        if (corrected == 0) {
+            logger.info("Order status counters match the orders");
+        }
+    }
+}
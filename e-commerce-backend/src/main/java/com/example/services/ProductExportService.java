@@ -0,0 +1,63 @@
+package com.example.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.models.ProductReadModel;
+import com.example.repositories.ProductReadModelRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Writes the whole catalog as a JSON array of ProductResponse without holding it in memory.
+ * Rows are read from a forward-only stream over product_read_model (one row per product,
+ * images included) and written as they arrive; every BATCH_SIZE rows the output is flushed
+ * and the written rows are detached, so heap use does not grow with the catalog size.
+ */
+@Service
+public class ProductExportService {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final ProductReadModelRepository readModelRepository;
+    private final ProductReadModelService readModelService;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ProductExportService(ProductReadModelRepository readModelRepository,
+                                ProductReadModelService readModelService,
+                                ObjectMapper objectMapper) {
+        this.readModelRepository = readModelRepository;
+        this.readModelService = readModelService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(readOnly = true)
+    public void writeAllProducts(OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(out);
+             Stream<ProductReadModel> rows = readModelRepository.streamAll()) {
+            generator.writeStartArray();
+            int written = 0;
+            Iterator<ProductReadModel> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                ProductReadModel row = iterator.next();
+                generator.writeObject(readModelService.toResponse(row));
+                if (++written % BATCH_SIZE == 0) {
+                    generator.flush();
+                    entityManager.clear();
+                }
+            }
+            generator.writeEndArray();
+        }
+    }
+}
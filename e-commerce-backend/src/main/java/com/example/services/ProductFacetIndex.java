@@ -0,0 +1,458 @@
+package com.example.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.example.DTO.ProductDTO.ProductFacetCounts;
+import com.example.DTO.ProductDTO.ProductFilterRequest;
+import com.example.models.Product;
+import com.example.repositories.ProductRepository;
+
+/**
+ * Bitmap index used to count browse facets in memory.
+ * Every product gets a dense ordinal; each category, boolean flag, price bucket
+ * and rating bucket keeps a BitSet of the ordinals it contains, so facet counts
+ * are intersections and cardinalities instead of one COUNT query per facet value.
+ *
+ * The bitmaps are plain java.util.BitSet, not compressed (Roaring) bitmaps. Ordinals are
+ * dense and those of deleted products are reused, so a bitmap costs one bit per indexed
+ * product, about 12 KB per facet value at 100,000 products, and no dependency is needed.
+ * Compressed bitmaps would pay off once sparse values (small categories) in a much larger
+ * catalog dominate the memory.
+ */
+@Component
+public class ProductFacetIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetIndex.class);
+
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    // Lower bounds of the price buckets, the last bucket is open-ended
+    private static final BigDecimal[] PRICE_BOUNDS = {
+            new BigDecimal("0"), new BigDecimal("25"), new BigDecimal("50"), new BigDecimal("100"),
+            new BigDecimal("250"), new BigDecimal("500"), new BigDecimal("1000")
+    };
+
+    // Rating buckets by whole star: [0,1), [1,2), ... [4,5), [5,5]
+    private static final int RATING_BUCKETS = 6;
+
+    private final ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    // Ordinals of deleted products, handed out again before the ordinal range grows
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final List<BigDecimal> prices = new ArrayList<>();
+    private final List<Float> ratings = new ArrayList<>();
+    private final List<String> categoryNames = new ArrayList<>();
+
+    private final BitSet live = new BitSet();
+    private final Map<String, BitSet> categories = new TreeMap<>();
+    private final BitSet freeShipping = new BitSet();
+    private final BitSet fastDelivery = new BitSet();
+    private final BitSet[] priceBuckets = new BitSet[PRICE_BOUNDS.length];
+    private final BitSet[] ratingBuckets = new BitSet[RATING_BUCKETS];
+
+    private volatile boolean ready = false;
+
+    public ProductFacetIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+        for (int i = 0; i < priceBuckets.length; i++) {
+            priceBuckets[i] = new BitSet();
+        }
+        for (int i = 0; i < ratingBuckets.length; i++) {
+            ratingBuckets[i] = new BitSet();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Rebuilds all bitmaps from the products table. Ordinals are reassigned densely.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            clear();
+            Long lastId = 0L;
+            while (true) {
+                List<Object[]> rows = productRepository.findFacetDocumentsAfter(lastId, PageRequest.of(0, BUILD_BATCH_SIZE));
+                for (Object[] row : rows) {
+                    lastId = (Long) row[0];
+                    put(lastId, (String) row[1], (BigDecimal) row[2], (Float) row[3],
+                            (Boolean) row[4], (Boolean) row[5]);
+                }
+                if (rows.size() < BUILD_BATCH_SIZE) {
+                    break;
+                }
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Product facet index built with {} products in {} ms",
+                live.cardinality(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Adds or replaces a single product's facet values.
+     */
+    // Applied once the write commits
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        Long productId = product.getId();
+        String categoryName = product.getCategory() != null ? product.getCategory().getName() : null;
+        BigDecimal price = product.getPrice();
+        Float rating = product.getAverageRating();
+        boolean freeShipping = product.isFreeShipping();
+        boolean fastDelivery = product.isFastDelivery();
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                put(productId, categoryName, price, rating, freeShipping, fastDelivery);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void remove(Long productId) {
+        AfterCommit.run(() -> delete(productId));
+    }
+
+    /**
+     * Moves the given products to the category's new name once a category write commits,
+     * or out of any category if it was deleted.
+     */
+    public void categoryChanged(Collection<Long> productIds, String categoryName) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(productIds);
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                for (Long productId : ids) {
+                    Integer ordinal = ordinals.get(productId);
+                    if (ordinal != null && live.get(ordinal)) {
+                        setCategory(ordinal, categoryName);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void delete(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(productId);
+            if (ordinal != null) {
+                clearOrdinal(ordinal);
+                prices.set(ordinal, null);
+                ratings.set(ordinal, null);
+                categoryNames.set(ordinal, null);
+                freeOrdinals.push(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts every facet value for the given filter. Each dimension is counted
+     * with all filters except its own applied. The search term is not matched here:
+     * searchIds are the products it matched, taken from wherever the results were
+     * (null without a term). Returns null while the index is not built yet.
+     */
+    public ProductFacetCounts count(ProductFilterRequest filter, Collection<Long> searchIds) {
+        if (!ready) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            BitSet searchMask = searchIds != null ? toBitSet(searchIds) : null;
+            BitSet categoryMask = categoryMask(filter.getCategories());
+            BitSet priceMask = priceMask(filter.getMinPrice(), filter.getMaxPrice());
+            BitSet ratingMask = ratingMask(filter.getMinRating());
+            BitSet freeShippingMask = flagMask(freeShipping, filter.getFreeShipping());
+            BitSet fastDeliveryMask = flagMask(fastDelivery, filter.getFastDelivery());
+
+            ProductFacetCounts counts = new ProductFacetCounts();
+            counts.setTotal(intersect(searchMask, categoryMask, priceMask, ratingMask,
+                    freeShippingMask, fastDeliveryMask).cardinality());
+
+            BitSet base = intersect(searchMask, priceMask, ratingMask, freeShippingMask, fastDeliveryMask);
+            for (Map.Entry<String, BitSet> category : categories.entrySet()) {
+                long count = andCardinality(base, category.getValue());
+                if (count > 0) {
+                    counts.getCategories().put(category.getKey(), count);
+                }
+            }
+
+            base = intersect(searchMask, categoryMask, ratingMask, freeShippingMask, fastDeliveryMask);
+            for (int i = 0; i < priceBuckets.length; i++) {
+                counts.getPriceRanges().put(priceLabel(i), andCardinality(base, priceBuckets[i]));
+            }
+
+            base = intersect(searchMask, categoryMask, priceMask, freeShippingMask, fastDeliveryMask);
+            for (int stars = 1; stars < RATING_BUCKETS - 1; stars++) {
+                BitSet atLeast = new BitSet();
+                for (int bucket = stars; bucket < RATING_BUCKETS; bucket++) {
+                    atLeast.or(ratingBuckets[bucket]);
+                }
+                counts.getMinRating().put(String.valueOf(stars), andCardinality(base, atLeast));
+            }
+
+            base = intersect(searchMask, categoryMask, priceMask, ratingMask, fastDeliveryMask);
+            counts.setFreeShipping(andCardinality(base, freeShipping));
+
+            base = intersect(searchMask, categoryMask, priceMask, ratingMask, freeShippingMask);
+            counts.setFastDelivery(andCardinality(base, fastDelivery));
+
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- write helpers, callers hold the write lock ---
+
+    private void clear() {
+        ordinals.clear();
+        freeOrdinals.clear();
+        prices.clear();
+        ratings.clear();
+        categoryNames.clear();
+        live.clear();
+        categories.clear();
+        freeShipping.clear();
+        fastDelivery.clear();
+        for (BitSet bucket : priceBuckets) {
+            bucket.clear();
+        }
+        for (BitSet bucket : ratingBuckets) {
+            bucket.clear();
+        }
+    }
+
+    private void put(Long productId, String categoryName, BigDecimal price, Float rating,
+                     Boolean isFreeShipping, Boolean isFastDelivery) {
+        Integer ordinal = ordinals.get(productId);
+        if (ordinal == null && !freeOrdinals.isEmpty()) {
+            ordinal = freeOrdinals.pop();
+            ordinals.put(productId, ordinal);
+        } else if (ordinal == null) {
+            ordinal = prices.size();
+            ordinals.put(productId, ordinal);
+            prices.add(null);
+            ratings.add(null);
+            categoryNames.add(null);
+        } else {
+            clearOrdinal(ordinal);
+        }
+
+        live.set(ordinal);
+        prices.set(ordinal, price);
+        ratings.set(ordinal, rating);
+        setCategory(ordinal, categoryName);
+
+        if (Boolean.TRUE.equals(isFreeShipping)) {
+            freeShipping.set(ordinal);
+        }
+        if (Boolean.TRUE.equals(isFastDelivery)) {
+            fastDelivery.set(ordinal);
+        }
+        if (price != null) {
+            priceBuckets[priceBucket(price)].set(ordinal);
+        }
+        if (rating != null) {
+            ratingBuckets[ratingBucket(rating)].set(ordinal);
+        }
+    }
+
+    private void setCategory(int ordinal, String categoryName) {
+        clearCategory(ordinal);
+        categoryNames.set(ordinal, categoryName);
+        if (categoryName != null) {
+            categories.computeIfAbsent(categoryName, name -> new BitSet()).set(ordinal);
+        }
+    }
+
+    // Drops the category's bitmap with its last product, so an old name leaves the facets
+    private void clearCategory(int ordinal) {
+        String categoryName = categoryNames.get(ordinal);
+        BitSet bits = categoryName != null ? categories.get(categoryName) : null;
+        if (bits != null) {
+            bits.clear(ordinal);
+            if (bits.isEmpty()) {
+                categories.remove(categoryName);
+            }
+        }
+    }
+
+    private void clearOrdinal(int ordinal) {
+        live.clear(ordinal);
+        clearCategory(ordinal);
+        freeShipping.clear(ordinal);
+        fastDelivery.clear(ordinal);
+        if (prices.get(ordinal) != null) {
+            priceBuckets[priceBucket(prices.get(ordinal))].clear(ordinal);
+        }
+        if (ratings.get(ordinal) != null) {
+            ratingBuckets[ratingBucket(ratings.get(ordinal))].clear(ordinal);
+        }
+    }
+
+    // --- read helpers, callers hold the read lock ---
+
+    private BitSet toBitSet(Collection<Long> productIds) {
+        BitSet bits = new BitSet();
+        for (Long productId : productIds) {
+            Integer ordinal = ordinals.get(productId);
+            if (ordinal != null) {
+                bits.set(ordinal);
+            }
+        }
+        return bits;
+    }
+
+    private BitSet categoryMask(List<String> selected) {
+        if (selected == null || selected.isEmpty()) {
+            return null;
+        }
+        BitSet mask = new BitSet();
+        for (String name : selected) {
+            BitSet bits = categories.get(name);
+            if (bits != null) {
+                mask.or(bits);
+            }
+        }
+        return mask;
+    }
+
+    private BitSet priceMask(BigDecimal min, BigDecimal max) {
+        if (min == null && max == null) {
+            return null;
+        }
+        BitSet mask = new BitSet();
+        for (int i = 0; i < priceBuckets.length; i++) {
+            BigDecimal lower = PRICE_BOUNDS[i];
+            BigDecimal upper = i + 1 < PRICE_BOUNDS.length ? PRICE_BOUNDS[i + 1] : null; // exclusive
+
+            boolean below = min != null && upper != null && upper.compareTo(min) <= 0;
+            boolean above = max != null && lower.compareTo(max) > 0;
+            if (below || above) {
+                continue;
+            }
+            boolean covered = (min == null || lower.compareTo(min) >= 0)
+                    && (max == null || (upper != null && upper.compareTo(max) <= 0));
+            if (covered) {
+                mask.or(priceBuckets[i]);
+                continue;
+            }
+            // Bucket straddles a bound, check each product's exact price
+            BitSet bucket = priceBuckets[i];
+            for (int ordinal = bucket.nextSetBit(0); ordinal >= 0; ordinal = bucket.nextSetBit(ordinal + 1)) {
+                BigDecimal price = prices.get(ordinal);
+                if ((min == null || price.compareTo(min) >= 0) && (max == null || price.compareTo(max) <= 0)) {
+                    mask.set(ordinal);
+                }
+            }
+        }
+        return mask;
+    }
+
+    private BitSet ratingMask(Double minRating) {
+        if (minRating == null) {
+            return null;
+        }
+        BitSet mask = new BitSet();
+        for (int bucket = 0; bucket < RATING_BUCKETS; bucket++) {
+            if (bucket >= minRating) {
+                mask.or(ratingBuckets[bucket]);
+            } else if (bucket + 1 > minRating) {
+                BitSet bits = ratingBuckets[bucket];
+                for (int ordinal = bits.nextSetBit(0); ordinal >= 0; ordinal = bits.nextSetBit(ordinal + 1)) {
+                    if (ratings.get(ordinal) >= minRating) {
+                        mask.set(ordinal);
+                    }
+                }
+            }
+        }
+        return mask;
+    }
+
+    private BitSet flagMask(BitSet flag, Boolean value) {
+        if (value == null) {
+            return null;
+        }
+        if (value) {
+            return flag;
+        }
+        BitSet mask = (BitSet) live.clone();
+        mask.andNot(flag);
+        return mask;
+    }
+
+    private BitSet intersect(BitSet... masks) {
+        BitSet result = (BitSet) live.clone();
+        for (BitSet mask : masks) {
+            if (mask != null) {
+                result.and(mask);
+            }
+        }
+        return result;
+    }
+
+    private static long andCardinality(BitSet base, BitSet values) {
+        BitSet result = (BitSet) base.clone();
+        result.and(values);
+        return result.cardinality();
+    }
+
+    private static int priceBucket(BigDecimal price) {
+        for (int i = PRICE_BOUNDS.length - 1; i > 0; i--) {
+            if (price.compareTo(PRICE_BOUNDS[i]) >= 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static int ratingBucket(float rating) {
+        return Math.max(0, Math.min(RATING_BUCKETS - 1, (int) Math.floor(rating)));
+    }
+
+    private static String priceLabel(int bucket) {
+        if (bucket + 1 < PRICE_BOUNDS.length) {
+            return PRICE_BOUNDS[bucket].toPlainString() + "-" + PRICE_BOUNDS[bucket + 1].toPlainString();
+        }
+        return PRICE_BOUNDS[bucket].toPlainString() + "+";
+    }
+}
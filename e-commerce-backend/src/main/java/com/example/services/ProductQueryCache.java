@@ -0,0 +1,245 @@
+package com.example.services;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.DTO.ProductDTO.ProductResponse;
+import com.example.config.CacheConfig;
+import com.example.events.CategoryChangedEvent;
+import com.example.events.ProductChangedEvent;
+import com.example.events.ProductImagesChangedEvent;
+import com.example.events.ProductStockChangedEvent;
+import com.example.events.SellerChangedEvent;
+import com.example.events.StoreChangedEvent;
+
+/**
+ * Cache of ProductService query results, holding ProductResponse DTOs (never entities).
+ * The key is the whole query: its name and every argument, page and sort included.
+ * Single products and lists live in separate caches (see CacheConfig) as they are sized
+ * differently.
+ *
+ * Each entry is tagged with what it depends on: the scope of the query (its category
+ * subtree, store, or the whole catalog) and the product, store and seller of every DTO
+ * in the result. Change events, after the publishing transaction commits, stamp each
+ * affected tag with the next number of an eviction sequence; nothing is scanned. An
+ * entry remembers the sequence number at which its load started and is dropped when it
+ * is next read if any of its tags was stamped later. That also catches a load that read
+ * the database before the commit and stored its result after the eviction.
+ */
+@Component
+public class ProductQueryCache {
+
+    // Scope tag of queries whose membership or order can change with any product
+    public static final String CATALOG = "catalog";
+    // Implicit tag of every entry, stamped when the whole cache is cleared
+    private static final String ALL = "*";
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductQueryCache.class);
+
+    /**
+     * A query and all of its arguments. Arguments must have value equality.
+     */
+    public record Key(String query, List<Object> args) {
+        public static Key of(String query, Object... args) {
+            // Arguments may be null, which List.of rejects
+            return new Key(query, Collections.unmodifiableList(Arrays.asList(args.clone())));
+        }
+    }
+
+    // Weighs one per DTO held, plus one for the entry itself
+    private record Entry(Object value, Set<String> tags, int size, long loadedAt) implements CacheConfig.Weighted {
+        @Override
+        public int cacheWeight() {
+            return size + 1;
+        }
+    }
+
+    private final Cache queries;
+    private final Cache byId;
+
+    private final AtomicLong evictionSequence = new AtomicLong();
+    // Tag -> sequence number of its last eviction. Holds at most one number per product,
+    // store, seller and category ever changed, so it is not pruned
+    private final Map<String, Long> evictedAt = new ConcurrentHashMap<>();
+
+    public ProductQueryCache(CacheManager cacheManager) {
+        this.queries = cacheManager.getCache(CacheConfig.PRODUCT_QUERIES);
+        this.byId = cacheManager.getCache(CacheConfig.PRODUCT_BY_ID);
+    }
+
+    public static String productTag(Long productId) {
+        return "product:" + productId;
+    }
+
+    public static String categoryTag(Integer categoryId) {
+        return "category:" + categoryId;
+    }
+
+    public static String storeTag(Long storeId) {
+        return "store:" + storeId;
+    }
+
+    public static String sellerTag(Long sellerId) {
+        return "seller:" + sellerId;
+    }
+
+    public Optional<ProductResponse> getOne(Key key, Set<String> scope, Supplier<Optional<ProductResponse>> loader) {
+        return get(byId, key, scope, loader, value -> value.map(List::of).orElse(List.of()));
+    }
+
+    public List<ProductResponse> getList(Key key, Set<String> scope, Supplier<List<ProductResponse>> loader) {
+        return get(queries, key, scope, loader, list -> list);
+    }
+
+    public Page<ProductResponse> getPage(Key key, Set<String> scope, Supplier<Page<ProductResponse>> loader) {
+        return get(queries, key, scope, loader, Page::getContent);
+    }
+
+    /**
+     * Concurrent misses on one key share a single load, and the stored key keeps the
+     * loader so the cache can refresh a hot entry in the background. An entry evicted
+     * since its load started is dropped and loaded again.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T get(Cache cache, Key key, Set<String> scope, Supplier<T> loader,
+                      Function<T, ? extends Collection<ProductResponse>> contents) {
+        Supplier<Entry> entryLoader = () -> load(scope, loader, contents);
+        Object cacheKey = CacheConfig.loadingKey(key, entryLoader);
+        try {
+            Entry entry = cache.get(cacheKey, entryLoader::get);
+            if (!isCurrent(entry)) {
+                remove(cache, cacheKey, entry);
+                entry = cache.get(cacheKey, entryLoader::get);
+            }
+            return (T) entry.value();
+        } catch (Cache.ValueRetrievalException e) {
+            // Surface the loader's own exception, as an uncached call would
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private <T> Entry load(Set<String> scope, Supplier<T> loader,
+                           Function<T, ? extends Collection<ProductResponse>> contents) {
+        // Read before the database is, so an eviction committed during the load is later than it
+        long loadedAt = evictionSequence.get();
+        T value = loader.get();
+        Set<String> tags = new HashSet<>(scope);
+        Collection<ProductResponse> products = contents.apply(value);
+        for (ProductResponse product : products) {
+            tags.add(productTag(product.getId()));
+            if (product.getStoreId() != null) {
+                tags.add(storeTag(product.getStoreId()));
+            }
+            if (product.getSellerId() != null) {
+                tags.add(sellerTag(product.getSellerId()));
+            }
+        }
+        return new Entry(value, tags, products.size(), loadedAt);
+    }
+
+    private boolean isCurrent(Entry entry) {
+        if (evictedAt.getOrDefault(ALL, 0L) > entry.loadedAt()) {
+            return false;
+        }
+        for (String tag : entry.tags()) {
+            if (evictedAt.getOrDefault(tag, 0L) > entry.loadedAt()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Only this entry: a newer one stored meanwhile by another reader stays
+    private static void remove(Cache cache, Object key, Entry entry) {
+        if (cache instanceof CaffeineCache caffeineCache) {
+            caffeineCache.getNativeCache().asMap().remove(key, entry);
+        } else {
+            cache.evict(key);
+        }
+    }
+
+    // --- invalidation ---
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Set<String> tags = new HashSet<>();
+        tags.add(CATALOG);
+        tags.add(productTag(event.productId()));
+        if (event.categoryId() != null) {
+            tags.add(categoryTag(event.categoryId()));
+        }
+        if (event.previousCategoryId() != null) {
+            tags.add(categoryTag(event.previousCategoryId()));
+        }
+        if (event.storeId() != null) {
+            tags.add(storeTag(event.storeId()));
+        }
+        evictTagged(tags);
+    }
+
+    // New images change the product's DTO but not which queries match it or their order
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductImagesChanged(ProductImagesChangedEvent event) {
+        evictTagged(Set.of(productTag(event.productId())));
+    }
+
+    // Stock is only part of each product's own DTO
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductStockChanged(ProductStockChangedEvent event) {
+        Set<String> tags = new HashSet<>();
+        for (Long productId : event.productIds()) {
+            tags.add(productTag(productId));
+        }
+        evictTagged(tags);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStoreChanged(StoreChangedEvent event) {
+        evictTagged(Set.of(storeTag(event.storeId())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSellerChanged(SellerChangedEvent event) {
+        evictTagged(Set.of(sellerTag(event.sellerId())));
+    }
+
+    // A rename reaches the DTOs of every product in the category and a move changes
+    // subtree membership, so category writes (rare, admin only) clear the whole cache.
+    // The stamp keeps out loads that were running during the clear
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        evictTagged(Set.of(ALL));
+        queries.clear();
+        byId.clear();
+    }
+
+    private void evictTagged(Set<String> tags) {
+        long sequence = evictionSequence.incrementAndGet();
+        for (String tag : tags) {
+            evictedAt.merge(tag, sequence, Math::max);
+        }
+        logger.debug("Evicted product query cache entries tagged {}", tags);
+    }
+}
@@ -0,0 +1,367 @@
+package com.example.services;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.DTO.ProductDTO.ProductListVersion;
+import com.example.DTO.ProductDTO.ProductResponse;
+import com.example.events.CategoryChangedEvent;
+import com.example.events.ProductChangedEvent;
+import com.example.events.ProductImagesChangedEvent;
+import com.example.events.ProductStockChangedEvent;
+import com.example.events.SellerChangedEvent;
+import com.example.events.StoreChangedEvent;
+import com.example.models.Category;
+import com.example.models.Product;
+import com.example.models.ProductImage;
+import com.example.models.ProductReadModel;
+import com.example.models.Store;
+import com.example.models.User;
+import com.example.repositories.ProductImageRepository;
+import com.example.repositories.ProductReadModelRepository;
+import com.example.repositories.ProductRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Keeps product_read_model in line with the normalized tables and serves ProductResponse
+ * from it. The sync methods run inside the caller's transaction, so a product write and
+ * its read row commit or roll back together. Products without a read row (inserted
+ * outside the services) are converted from the entity until the next rebuild.
+ *
+ * Every sync method also publishes a change event describing which DTOs it touched,
+ * which ProductQueryCache uses for eviction once the transaction commits.
+ */
+@Service
+@Transactional
+public class ProductReadModelService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductReadModelService.class);
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final ProductReadModelRepository readModelRepository;
+    private final ProductRepository productRepository;
+    private final ProductImageRepository productImageRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ProductReadModelService(ProductReadModelRepository readModelRepository,
+                                   ProductRepository productRepository,
+                                   ProductImageRepository productImageRepository,
+                                   ApplicationEventPublisher eventPublisher) {
+        this.readModelRepository = readModelRepository;
+        this.productRepository = productRepository;
+        this.productImageRepository = productImageRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // --- sync ---
+
+    // Rewrites the product's row
+    public void refresh(Product product) {
+        Integer previousCategoryId = readModelRepository.findById(product.getId())
+                .map(ProductReadModel::getCategoryId)
+                .orElse(null);
+        ProductReadModel model = writeRow(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(model.getProductId(), model.getCategoryId(),
+                previousCategoryId, model.getStoreId()));
+    }
+
+    // Same row rewrite as refresh, for a write that only replaced the product's images
+    public void imagesChanged(Product product) {
+        writeRow(product);
+        eventPublisher.publishEvent(new ProductImagesChangedEvent(product.getId()));
+    }
+
+    public void remove(Long productId) {
+        readModelRepository.findById(productId).ifPresent(model -> {
+            readModelRepository.delete(model);
+            eventPublisher.publishEvent(new ProductChangedEvent(productId, model.getCategoryId(), null, model.getStoreId()));
+        });
+    }
+
+    // Stock taken (negative) or given back (positive) per product by order reservations
+    public void stockChanged(Map<Long, Integer> deltas) {
+        LocalDateTime now = LocalDateTime.now();
+        deltas.forEach((productId, delta) -> readModelRepository.adjustStock(productId, delta, now));
+        eventPublisher.publishEvent(new ProductStockChangedEvent(Set.copyOf(deltas.keySet())));
+    }
+
+    public void storeChanged(Store store) {
+        readModelRepository.updateStoreName(store.getId(), store.getStoreName(), LocalDateTime.now());
+        eventPublisher.publishEvent(new StoreChangedEvent(store.getId()));
+    }
+
+    public void storeDeleted(Long storeId) {
+        readModelRepository.deleteByStoreId(storeId);
+        eventPublisher.publishEvent(new StoreChangedEvent(storeId));
+    }
+
+    public void categoryChanged(Category category) {
+        readModelRepository.updateCategory(category.getId(), category.getName(), category.getSlug(), LocalDateTime.now());
+        eventPublisher.publishEvent(new CategoryChangedEvent(category.getId()));
+    }
+
+    public void categoryDeleted(int categoryId) {
+        readModelRepository.clearCategory(categoryId, LocalDateTime.now());
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
+    }
+
+    public void sellerChanged(User seller) {
+        readModelRepository.updateSellerName((long) seller.getId(), sellerName(seller), LocalDateTime.now());
+        eventPublisher.publishEvent(new SellerChangedEvent((long) seller.getId()));
+    }
+
+    // Image URLs are read back from product_images
+    private ProductReadModel writeRow(Product product) {
+        List<String> imageUrls = productImageRepository.findImageUrlsByProductId(product.getId());
+        return readModelRepository.save(toModel(product, imageUrls));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfIncomplete() {
+        long products = productRepository.count();
+        long rows = readModelRepository.count();
+        if (products != rows) {
+            logger.info("Product read model has {} rows for {} products, rebuilding", rows, products);
+            rebuildAll();
+        }
+    }
+
+    public void rebuildAll() {
+        long start = System.currentTimeMillis();
+        readModelRepository.deleteAllInBatch();
+        Long lastId = 0L;
+        int total = 0;
+        while (true) {
+            List<Long> ids = productRepository.findIdsAfter(lastId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+            if (ids.isEmpty()) {
+                break;
+            }
+            // The table was emptied above, so rows can be inserted without a merge lookup
+            for (Product product : productRepository.findAllWithImagesInOrder(ids)) {
+                entityManager.persist(toModel(product));
+                total++;
+            }
+            entityManager.flush();
+            entityManager.clear();
+            lastId = ids.get(ids.size() - 1);
+        }
+        logger.info("Product read model rebuilt with {} rows in {} ms", total, System.currentTimeMillis() - start);
+    }
+
+    // --- reads ---
+
+    @Transactional(readOnly = true)
+    public Optional<ProductResponse> findResponse(Long productId) {
+        Optional<ProductReadModel> model = readModelRepository.findById(productId);
+        if (model.isPresent()) {
+            return model.map(this::toResponse);
+        }
+        return productRepository.findByIdWithImages(productId)
+                .map(product -> toResponse(toModel(product)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductResponse> findAll() {
+        return toResponses(readModelRepository.findAllByOrderByProductId());
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductResponse> findByStore(Long storeId) {
+        return toResponses(readModelRepository.findByStoreIdOrderByProductId(storeId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductResponse> findByCategory(Integer categoryId) {
+        return toResponses(readModelRepository.findByCategoryIdOrderByProductId(categoryId));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductResponse> findInCategorySubtree(String slug) {
+        return toResponses(readModelRepository.findInCategorySubtree(slug));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductResponse> searchByKeyword(String keyword) {
+        return toResponses(readModelRepository.searchByKeyword(keyword));
+    }
+
+    // --- validators, read before the rows so an unchanged response can be answered with 304 ---
+
+    @Transactional(readOnly = true)
+    public ProductListVersion versionOfProduct(Long productId) {
+        return readModelRepository.findVersionByProductId(productId);
+    }
+
+    @Transactional(readOnly = true)
+    public ProductListVersion versionOfStore(Long storeId) {
+        return readModelRepository.findVersionByStoreId(storeId);
+    }
+
+    @Transactional(readOnly = true)
+    public ProductListVersion versionOfCategories(Set<Integer> categoryIds) {
+        if (categoryIds.isEmpty()) {
+            return new ProductListVersion(0L, null);
+        }
+        return readModelRepository.findVersionByCategoryIds(categoryIds);
+    }
+
+    // IDs of the categories that have at least one product assigned directly
+    @Transactional(readOnly = true)
+    public Set<Integer> findCategoryIdsWithProducts() {
+        return readModelRepository.findCategoryIdsWithProducts();
+    }
+
+    /**
+     * Responses for the given product IDs, in the order of the list.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductResponse> responses(List<Long> productIds) {
+        return toResponses(findInOrder(productIds));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<ProductResponse> responses(Page<Long> productIds) {
+        return new PageImpl<>(responses(productIds.getContent()), productIds.getPageable(), productIds.getTotalElements());
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<ProductResponse> responses(Slice<Long> productIds) {
+        return new SliceImpl<>(responses(productIds.getContent()), productIds.getPageable(), productIds.hasNext());
+    }
+
+    /**
+     * Read rows for the given product IDs, in the order of the list. IDs without a row
+     * are converted from the product entity.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductReadModel> findInOrder(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, ProductReadModel> byId = new HashMap<>();
+        for (ProductReadModel model : readModelRepository.findAllById(productIds)) {
+            byId.put(model.getProductId(), model);
+        }
+        if (byId.size() < productIds.size()) {
+            List<Long> missing = productIds.stream()
+                    .filter(id -> !byId.containsKey(id))
+                    .collect(Collectors.toList());
+            for (Product product : productRepository.findAllWithImagesInOrder(missing)) {
+                byId.put(product.getId(), toModel(product));
+            }
+        }
+        List<ProductReadModel> ordered = new ArrayList<>(productIds.size());
+        for (Long id : productIds) {
+            ProductReadModel model = byId.get(id);
+            if (model != null) {
+                ordered.add(model);
+            }
+        }
+        return ordered;
+    }
+
+    public List<ProductResponse> toResponses(List<ProductReadModel> models) {
+        return models.stream()
+                .map(this::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    public ProductResponse toResponse(ProductReadModel model) {
+        ProductResponse response = new ProductResponse();
+        response.setId(model.getProductId());
+        response.setTitle(model.getTitle());
+        response.setDescription(model.getDescription());
+        response.setPrice(model.getPrice());
+        if (model.getCategoryName() != null) {
+            response.setCategoryName(model.getCategoryName());
+            response.setCategorySlug(model.getCategorySlug());
+        } else {
+            response.setCategoryName("Uncategorized");
+        }
+        response.setInStock(model.getStockQuantity() > 0);
+        response.setStockQuantity(model.getStockQuantity());
+        response.setCreatedAt(model.getCreatedAt());
+        response.setUpdatedAt(model.getUpdatedAt());
+        response.setFreeShipping(model.isFreeShipping());
+        response.setFastDelivery(model.isFastDelivery());
+        response.setStoreId(model.getStoreId());
+        response.setStoreName(model.getStoreName());
+        response.setSellerId(model.getSellerId());
+        response.setSellerName(model.getSellerName());
+        response.setImages(model.getImageUrls() != null ? model.getImageUrls() : Collections.emptyList());
+        return response;
+    }
+
+    // --- conversion, mirrors ProductService.convertToDto ---
+
+    private ProductReadModel toModel(Product product) {
+        List<String> imageUrls = product.getImages() == null ? new ArrayList<>() : product.getImages().stream()
+                .map(ProductImage::getImageUrl)
+                .collect(Collectors.toList());
+        return toModel(product, imageUrls);
+    }
+
+    private static ProductReadModel toModel(Product product, List<String> imageUrls) {
+        ProductReadModel model = new ProductReadModel();
+        model.setProductId(product.getId());
+        model.setTitle(product.getName());
+        model.setDescription(product.getDescription());
+        model.setPrice(product.getPrice());
+        model.setStockQuantity(product.getStockQuantity() != null ? product.getStockQuantity() : 0);
+        model.setAverageRating(product.getAverageRating());
+        model.setFreeShipping(product.isFreeShipping());
+        model.setFastDelivery(product.isFastDelivery());
+        model.setCreatedAt(product.getCreatedAt());
+        model.setUpdatedAt(product.getUpdatedAt());
+        model.setImageUrls(imageUrls);
+        model.setRefreshedAt(LocalDateTime.now());
+
+        Category category = product.getCategory();
+        if (category != null) {
+            model.setCategoryId(category.getId());
+            model.setCategoryName(category.getName());
+            model.setCategorySlug(category.getSlug());
+        }
+
+        Store store = product.getStore();
+        if (store != null) {
+            model.setStoreId(store.getId());
+            model.setStoreName(store.getStoreName());
+            if (store.getSeller() != null) {
+                model.setSellerId((long) store.getSeller().getId());
+                model.setSellerName(sellerName(store.getSeller()));
+            }
+        }
+        return model;
+    }
+
+    private static String sellerName(User seller) {
+        return seller.getFirstName() + " " + seller.getLastName();
+    }
+}
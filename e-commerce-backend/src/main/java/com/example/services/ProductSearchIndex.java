@@ -0,0 +1,348 @@
+package com.example.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.example.models.Category;
+import com.example.models.Product;
+import com.example.repositories.ProductRepository;
+
+/**
+ * In-memory inverted index over the product catalog.
+ * Keeps per-field postings (term -> product id -> term frequency) so keyword
+ * searches resolve to a ranked list of product IDs without LIKE scans.
+ * The index is built once the application is ready and kept up to date by
+ * ProductService on every product write.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    // A query term that only prefixes an indexed term scores lower than an exact hit
+    private static final double PREFIX_MATCH_FACTOR = 0.6;
+
+    /**
+     * Indexed product fields and their ranking weight.
+     */
+    public enum Field {
+        NAME(3.0),
+        CATEGORY_NAME(2.0),
+        DESCRIPTION(1.0),
+        CATEGORY_DESCRIPTION(0.5);
+
+        private final double weight;
+
+        Field(double weight) {
+            this.weight = weight;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+    }
+
+    public static final Set<Field> ALL_FIELDS = Collections.unmodifiableSet(EnumSet.allOf(Field.class));
+
+    private final ProductRepository productRepository;
+
+    private volatile IndexState state = new IndexState();
+    private volatile boolean ready = false;
+    // Writes committed while a rebuild reads the table, replayed onto the new state before it
+    // replaces the old one; a null document is a removal. Null when no rebuild is running.
+    private Map<Long, Map<Field, Map<String, Integer>>> updatesDuringRebuild;
+    private final Object rebuildLock = new Object();
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Whether the initial build has completed. Callers should fall back to the
+     * database queries until it has.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return state.documents.size();
+    }
+
+    /**
+     * Rebuilds the whole index from the products table, reading it in id-ordered batches.
+     * Products written meanwhile are indexed again from their latest write before the
+     * rebuilt index is swapped in, since a batch may have read them before that write.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            try {
+                build();
+            } finally {
+                synchronized (this) {
+                    updatesDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    private void build() {
+        long start = System.currentTimeMillis();
+        IndexState fresh = new IndexState();
+        Long lastId = 0L;
+        synchronized (this) {
+            updatesDuringRebuild = new LinkedHashMap<>();
+        }
+
+        while (true) {
+            List<Object[]> rows = productRepository.findSearchDocumentsAfter(lastId, PageRequest.of(0, BUILD_BATCH_SIZE));
+            if (rows.isEmpty()) {
+                break;
+            }
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                fresh.put(id, tokenizeFields((String) row[1], (String) row[2], (String) row[3], (String) row[4]));
+                lastId = id;
+            }
+            if (rows.size() < BUILD_BATCH_SIZE) {
+                break;
+            }
+        }
+
+        synchronized (this) {
+            updatesDuringRebuild.forEach((productId, document) -> {
+                if (document != null) {
+                    fresh.put(productId, document);
+                } else {
+                    fresh.remove(productId);
+                }
+            });
+            state = fresh;
+            ready = true;
+        }
+        logger.info("Product search index built with {} products in {} ms",
+                fresh.documents.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Adds or replaces the postings of a single product once the write commits.
+     */
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        Long productId = product.getId();
+        Category category = product.getCategory();
+        Map<Field, Map<String, Integer>> document = tokenizeFields(
+                product.getName(),
+                product.getDescription(),
+                category != null ? category.getName() : null,
+                category != null ? category.getDescription() : null);
+        AfterCommit.run(() -> put(productId, document));
+    }
+
+    public void remove(Long productId) {
+        if (productId != null) {
+            AfterCommit.run(() -> delete(productId));
+        }
+    }
+
+    /**
+     * Re-tokenizes the category fields of the given products once a category write commits:
+     * the category's new name and description, or none if it was deleted.
+     */
+    public void categoryChanged(Collection<Long> productIds, Category category) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(productIds);
+        Map<String, Integer> name = termFrequencies(category != null ? category.getName() : null);
+        Map<String, Integer> description = termFrequencies(category != null ? category.getDescription() : null);
+        AfterCommit.run(() -> replaceCategory(ids, name, description));
+    }
+
+    private synchronized void replaceCategory(List<Long> productIds, Map<String, Integer> name,
+                                              Map<String, Integer> description) {
+        for (Long productId : productIds) {
+            Map<Field, Map<String, Integer>> previous = state.documents.get(productId);
+            if (previous == null) {
+                continue;
+            }
+            Map<Field, Map<String, Integer>> document = new EnumMap<>(previous);
+            document.put(Field.CATEGORY_NAME, name);
+            document.put(Field.CATEGORY_DESCRIPTION, description);
+            put(productId, document);
+        }
+    }
+
+    private synchronized void put(Long productId, Map<Field, Map<String, Integer>> document) {
+        state.put(productId, document);
+        if (updatesDuringRebuild != null) {
+            updatesDuringRebuild.put(productId, document);
+        }
+    }
+
+    private synchronized void delete(Long productId) {
+        state.remove(productId);
+        if (updatesDuringRebuild != null) {
+            updatesDuringRebuild.put(productId, null);
+        }
+    }
+
+    /**
+     * Searches every indexed field.
+     */
+    public List<Long> search(String query) {
+        return search(query, ALL_FIELDS);
+    }
+
+    /**
+     * Returns the IDs of products matching every term of the query in at least one
+     * of the given fields, best match first. Terms match indexed words by prefix.
+     */
+    public List<Long> search(String query, Set<Field> fields) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        IndexState current = state;
+        int totalDocuments = Math.max(current.documents.size(), 1);
+        Map<Long, Double> scores = null;
+
+        for (String term : terms) {
+            Map<Long, Double> termScores = new HashMap<>();
+            for (Field field : fields) {
+                NavigableMap<String, Map<Long, Integer>> matches =
+                        current.postings.get(field).subMap(term, true, term + Character.MAX_VALUE, false);
+                for (Map.Entry<String, Map<Long, Integer>> match : matches.entrySet()) {
+                    Map<Long, Integer> postingList = match.getValue();
+                    double idf = Math.log(1.0 + (double) totalDocuments / Math.max(postingList.size(), 1));
+                    double matchFactor = match.getKey().equals(term) ? 1.0 : PREFIX_MATCH_FACTOR;
+                    for (Map.Entry<Long, Integer> posting : postingList.entrySet()) {
+                        double score = field.getWeight() * (1.0 + Math.log(posting.getValue())) * idf * matchFactor;
+                        termScores.merge(posting.getKey(), score, Double::sum);
+                    }
+                }
+            }
+
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                Map<Long, Double> previous = scores;
+                previous.keySet().retainAll(termScores.keySet());
+                previous.replaceAll((id, score) -> score + termScores.get(id));
+            }
+            if (scores.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        List<Long> ids = new ArrayList<>(ranked.size());
+        for (Map.Entry<Long, Double> entry : ranked) {
+            ids.add(entry.getKey());
+        }
+        return ids;
+    }
+
+    /**
+     * Lower-cases the text and splits it on anything that is not a letter or digit.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static Map<Field, Map<String, Integer>> tokenizeFields(String name, String description,
+                                                                   String categoryName, String categoryDescription) {
+        Map<Field, Map<String, Integer>> fields = new EnumMap<>(Field.class);
+        fields.put(Field.NAME, termFrequencies(name));
+        fields.put(Field.DESCRIPTION, termFrequencies(description));
+        fields.put(Field.CATEGORY_NAME, termFrequencies(categoryName));
+        fields.put(Field.CATEGORY_DESCRIPTION, termFrequencies(categoryDescription));
+        return fields;
+    }
+
+    private static Map<String, Integer> termFrequencies(String text) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : tokenize(text)) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    /**
+     * Postings plus a forward index (product -> terms) used to drop stale postings on update.
+     */
+    private static class IndexState {
+        private final Map<Field, ConcurrentSkipListMap<String, Map<Long, Integer>>> postings = new EnumMap<>(Field.class);
+        private final Map<Long, Map<Field, Map<String, Integer>>> documents = new ConcurrentHashMap<>();
+
+        IndexState() {
+            for (Field field : Field.values()) {
+                postings.put(field, new ConcurrentSkipListMap<>());
+            }
+        }
+
+        void put(Long productId, Map<Field, Map<String, Integer>> fields) {
+            remove(productId);
+            for (Map.Entry<Field, Map<String, Integer>> field : fields.entrySet()) {
+                ConcurrentSkipListMap<String, Map<Long, Integer>> fieldPostings = postings.get(field.getKey());
+                for (Map.Entry<String, Integer> term : field.getValue().entrySet()) {
+                    fieldPostings.computeIfAbsent(term.getKey(), t -> new ConcurrentHashMap<>())
+                            .put(productId, term.getValue());
+                }
+            }
+            documents.put(productId, fields);
+        }
+
+        void remove(Long productId) {
+            Map<Field, Map<String, Integer>> previous = documents.remove(productId);
+            if (previous == null) {
+                return;
+            }
+            for (Map.Entry<Field, Map<String, Integer>> field : previous.entrySet()) {
+                ConcurrentSkipListMap<String, Map<Long, Integer>> fieldPostings = postings.get(field.getKey());
+                for (String term : field.getValue().keySet()) {
+                    fieldPostings.computeIfPresent(term, (t, postingList) -> {
+                        postingList.remove(productId);
+                        return postingList.isEmpty() ? null : postingList;
+                    });
+                }
+            }
+        }
+    }
+}
@@ -3,28 +3,42 @@ package com.example.services;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.DTO.ProductDTO.CreateProductRequest;
+import com.example.DTO.ProductDTO.FacetedProductPage;
+import com.example.DTO.ProductDTO.ProductCursor;
+import com.example.DTO.ProductDTO.ProductCursorPage;
 import com.example.DTO.ProductDTO.ProductFilterRequest;
+import com.example.DTO.ProductDTO.ProductListVersion;
 import com.example.DTO.ProductDTO.ProductResponse;
 import com.example.models.Product;
 import com.example.models.ProductImage;
+import com.example.models.ProductReadModel;
 import com.example.models.Store;
 import com.example.models.User;
 import com.example.repositories.CategoryRepository;
 import com.example.repositories.ProductImageRepository;
 import com.example.repositories.ProductRepository;
+import com.example.repositories.ReviewRepository;
 import com.example.repositories.StoreRepository;
 import com.example.repositories.specifications.ProductSpecification;
 import com.example.services.generic.GenericServiceImpl;
@@ -33,82 +47,268 @@ import com.example.services.generic.GenericServiceImpl;
 @Transactional
 public class ProductService extends GenericServiceImpl<Product, ProductResponse, CreateProductRequest, Long> {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    // Broader search terms are filtered in SQL rather than sent as an ID list of this size or more
+    private static final int MAX_SEARCH_CANDIDATES = 1000;
+
     private final ProductRepository productRepository;
     private final StoreRepository storeRepository;
     private final ProductImageRepository productImageRepository;
     private final CategoryRepository categoryRepository;
     private final CategoryService categoryService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final SuggestionIndex suggestionIndex;
+    private final RelatedProductsIndex relatedProductsIndex;
+    private final ProductReadModelService readModelService;
+    private final ProductQueryCache queryCache;
+    private final ReviewRepository reviewRepository;
 
     public ProductService(ProductRepository productRepository, 
                          StoreRepository storeRepository,
                          ProductImageRepository productImageRepository,
                          CategoryRepository categoryRepository,
-                         CategoryService categoryService) {
+                         CategoryService categoryService,
+                         ProductSearchIndex productSearchIndex,
+                         ProductFacetIndex productFacetIndex,
+                         SuggestionIndex suggestionIndex,
+                         RelatedProductsIndex relatedProductsIndex,
+                         ProductReadModelService readModelService,
+                         ProductQueryCache queryCache,
+                         ReviewRepository reviewRepository) {
         super(productRepository);
         this.productRepository = productRepository;
         this.storeRepository = storeRepository;
         this.productImageRepository = productImageRepository;
         this.categoryRepository = categoryRepository;
         this.categoryService = categoryService;
+        this.productSearchIndex = productSearchIndex;
+        this.productFacetIndex = productFacetIndex;
+        this.suggestionIndex = suggestionIndex;
+        this.relatedProductsIndex = relatedProductsIndex;
+        this.readModelService = readModelService;
+        this.queryCache = queryCache;
+        this.reviewRepository = reviewRepository;
     }
 
     // Fetch all products
     @Transactional(readOnly = true)
     public List<ProductResponse> listAllProducts() {
-        return productRepository.findAllWithImages().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return readModelService.findAll();
+    }
+
+    // Paged reads select the page of IDs first and then read those products from the read model
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ProductResponse> findAll(Pageable pageable) {
+        return findAll(null, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ProductResponse> findAll(Specification<Product> spec, Pageable pageable) {
+        return readModelService.responses(productRepository.findIdPage(spec, pageable));
     }
 
     // Browse and filter products
     @Transactional(readOnly = true)
     public Page<ProductResponse> browseProducts(ProductFilterRequest filter, Pageable pageable) {
-        Specification<Product> spec = ProductSpecification.filterBy(filter);
-        return findAll(spec, pageable);
+        ProductQueryCache.Key key = ProductQueryCache.Key.of("browse", filter.getSearch(), filter.getMinPrice(),
+                filter.getMaxPrice(), filter.getMinRating(),
+                filter.getCategories() != null ? List.copyOf(filter.getCategories()) : null,
+                filter.getFreeShipping(), filter.getFastDelivery(), pageable);
+        return queryCache.getPage(key, Set.of(ProductQueryCache.CATALOG), () -> {
+            Specification<Product> spec = browseSpecification(filter);
+            if (spec == null) {
+                return Page.empty(pageable);
+            }
+            return findAll(spec, pageable);
+        });
+    }
+
+    // Browse without the total count query
+    @Transactional(readOnly = true)
+    public Slice<ProductResponse> browseProductsSlice(ProductFilterRequest filter, Pageable pageable) {
+        Specification<Product> spec = browseSpecification(filter);
+        if (spec == null) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        return readModelService.responses(productRepository.findIdSlice(spec, pageable));
+    }
+
+    // Browse with keyset paging, continuing after the given cursor token (null for the first page)
+    @Transactional(readOnly = true)
+    public ProductCursorPage browseProductsAfter(ProductFilterRequest filter, String cursor, Sort sort, int size) {
+        Specification<Product> spec = browseSpecification(filter);
+        if (spec == null) {
+            return new ProductCursorPage(Collections.emptyList(), null, false);
+        }
+        return scroll(spec, cursor, sort, size);
+    }
+
+    /**
+     * Specification for the browse filters. The search term is resolved through the
+     * search index when it is built (the remaining filters stay in SQL). Returns null
+     * when the index already tells that nothing can match. A term matching too many
+     * products for an IN list is left to the SQL filter, like before the index is built.
+     */
+    private Specification<Product> browseSpecification(ProductFilterRequest filter) {
+        if (hasSearch(filter) && productSearchIndex.isReady()) {
+            List<Long> candidateIds = searchCandidates(filter);
+            if (candidateIds.isEmpty()) {
+                return null;
+            }
+            if (candidateIds.size() < MAX_SEARCH_CANDIDATES) {
+                return ProductSpecification.filterBy(filter, candidateIds);
+            }
+        }
+        return ProductSpecification.filterBy(filter);
+    }
+
+    /**
+     * The products the search term of the filter matches, as browseSpecification resolves
+     * it: from the search index, or from the SQL filter where that takes over. Null
+     * without a term.
+     */
+    private List<Long> searchMatches(ProductFilterRequest filter) {
+        if (!hasSearch(filter)) {
+            return null;
+        }
+        if (productSearchIndex.isReady()) {
+            List<Long> candidateIds = searchCandidates(filter);
+            if (candidateIds.size() < MAX_SEARCH_CANDIDATES) {
+                return candidateIds;
+            }
+        }
+        ProductFilterRequest searchOnly = new ProductFilterRequest();
+        searchOnly.setSearch(filter.getSearch());
+        return productRepository.findIdSlice(ProductSpecification.filterBy(searchOnly), Pageable.unpaged()).getContent();
+    }
+
+    private List<Long> searchCandidates(ProductFilterRequest filter) {
+        return productSearchIndex.search(filter.getSearch(),
+                EnumSet.of(ProductSearchIndex.Field.NAME, ProductSearchIndex.Field.DESCRIPTION));
+    }
+
+    private static boolean hasSearch(ProductFilterRequest filter) {
+        return filter.getSearch() != null && !filter.getSearch().isBlank();
+    }
+
+    /**
+     * Keyset (seek) paging: reads the rows after the cursor's (sort key, id) instead of
+     * skipping an OFFSET, and one extra row instead of a count query.
+     */
+    private ProductCursorPage scroll(Specification<Product> spec, String cursorToken, Sort sort, int size) {
+        ProductCursor cursor = cursorToken == null || cursorToken.isBlank()
+                ? ProductCursor.first(sort)
+                : ProductCursor.decode(cursorToken);
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+
+        Slice<Long> slice = productRepository.findIdSlice(spec.and(ProductSpecification.seek(cursor)),
+                PageRequest.of(0, pageSize));
+        List<ProductReadModel> rows = readModelService.findInOrder(slice.getContent());
+        String nextCursor = slice.hasNext() && !rows.isEmpty() ? cursor.after(rows.get(rows.size() - 1)).encode() : null;
+
+        return new ProductCursorPage(readModelService.toResponses(rows), nextCursor, nextCursor != null);
+    }
+
+    // Browse products and count every facet value for the same filter, over the products its search term matched for the results
+    @Transactional(readOnly = true)
+    public FacetedProductPage browseProductsWithFacets(ProductFilterRequest filter, Pageable pageable) {
+        Page<ProductResponse> page = browseProducts(filter, pageable);
+        if (!productFacetIndex.isReady()) {
+            return new FacetedProductPage(page, null);
+        }
+        return new FacetedProductPage(page, productFacetIndex.count(filter, searchMatches(filter)));
     }
 
     // Get products by store ID
     @Transactional(readOnly = true)
     public List<ProductResponse> findByStore(Long storeId) {
-        return productRepository.findByStoreIdWithImagesAndCategory(storeId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return queryCache.getList(ProductQueryCache.Key.of("store", storeId),
+                Set.of(ProductQueryCache.storeTag(storeId)),
+                () -> readModelService.findByStore(storeId));
+    }
+
+    // Validators of the responses below, for conditional GETs; they do not load any product
+
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public ProductListVersion versionOfProduct(Long id) {
+        return readModelService.versionOfProduct(id);
+    }
+
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public ProductListVersion versionOfStore(Long storeId) {
+        return readModelService.versionOfStore(storeId);
+    }
+
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public ProductListVersion versionOfCategory(Integer categoryId) {
+        return readModelService.versionOfCategories(Set.of(categoryId));
+    }
+
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public ProductListVersion versionOfCategorySlug(String slug) {
+        return readModelService.versionOfCategories(categoryService.getAllDescendantIds(slug));
     }
 
     // Get products by category ID with pagination
     public Page<ProductResponse> findByCategory(Integer categoryId, Pageable pageable) {
-        return productRepository.findByCategory_Id(categoryId, pageable)
-                .map(this::convertToDto);
+        return queryCache.getPage(ProductQueryCache.Key.of("categoryPage", categoryId, pageable),
+                Set.of(ProductQueryCache.categoryTag(categoryId)),
+                () -> findAll(ProductSpecification.inCategory(categoryId), pageable));
+    }
+
+    // Get products by category ID without the total count query
+    @Transactional(readOnly = true)
+    public Slice<ProductResponse> findByCategorySlice(Integer categoryId, Pageable pageable) {
+        return readModelService.responses(productRepository.findIdSlice(ProductSpecification.inCategory(categoryId), pageable));
+    }
+
+    // Get products by category ID with keyset paging
+    @Transactional(readOnly = true)
+    public ProductCursorPage findByCategoryAfter(Integer categoryId, String cursor, Sort sort, int size) {
+        return scroll(ProductSpecification.inCategory(categoryId), cursor, sort, size);
     }
     
     // Get all products by category ID (no pagination)
     @Transactional(readOnly = true)
     public List<ProductResponse> findByCategoryId(Integer categoryId) {
-        return productRepository.findByCategoryId(categoryId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return queryCache.getList(ProductQueryCache.Key.of("category", categoryId),
+                Set.of(ProductQueryCache.categoryTag(categoryId)),
+                () -> readModelService.findByCategory(categoryId));
     }
     
-    // Get all products by category slug, now recursively includes subcategories
-    @Transactional(readOnly = true)
+    // Get all products by category slug, now recursively includes subcategories.
+    // SUPPORTS: a cache hit should not hold a pooled connection; the read model opens its own transaction on a load
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<ProductResponse> findByCategorySlug(String slug) {
+        return queryCache.getList(ProductQueryCache.Key.of("categorySlug", slug), categorySubtreeScope(slug),
+                () -> loadByCategorySlug(slug));
+    }
+
+    // Scope tags of a slug query: every category in the subtree, or the whole catalog for an unknown slug
+    private Set<String> categorySubtreeScope(String slug) {
+        Set<Integer> categoryIds = categoryService.getAllDescendantIds(slug);
+        if (categoryIds.isEmpty()) {
+            return Set.of(ProductQueryCache.CATALOG);
+        }
+        return categoryIds.stream()
+                .map(ProductQueryCache::categoryTag)
+                .collect(Collectors.toSet());
+    }
+
+    private List<ProductResponse> loadByCategorySlug(String slug) {
         try {
             System.out.println("Fetching products for category slug (and descendants): " + slug);
             
-            Set<Integer> categoryIds = categoryService.getAllDescendantIds(slug);
-            
-            if (categoryIds.isEmpty()) {
-                System.out.println("No categories found for slug (or descendants): " + slug);
-                return Collections.emptyList(); // Return empty list if no categories found
-            }
-            
-            // Use the repository method that handles a list of category IDs
-            List<Product> products = productRepository.findByCategoryIdsIn(categoryIds);
+            // Category subtree resolved through the closure table in the same query as the products
+            List<ProductResponse> products = readModelService.findInCategorySubtree(slug);
             System.out.println("Found " + products.size() + " products for category slug '" + slug + "' and its descendants.");
             
-            return products.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+            return products;
                 
         } catch (Exception e) {
             System.err.println("Error fetching products for category slug " + slug + ": " + e.getMessage());
@@ -144,8 +344,22 @@ public class ProductService extends GenericServiceImpl<Product, ProductResponse,
         if (query == null || query.trim().isEmpty()) {
             return findAll(pageable);
         }
-        return productRepository.searchByKeywordWithPagination(query.trim(), pageable)
-                .map(this::convertToDto);
+        if (productSearchIndex.isReady()) {
+            List<Long> rankedIds = productSearchIndex.search(query);
+            if (rankedIds.isEmpty()) {
+                return Page.empty(pageable);
+            }
+            if (pageable.getSort().isSorted()) {
+                // An explicit sort overrides relevance, so let the database order the hits;
+                // too many of them for an IN list are left to the SQL filter, as in browsing
+                if (rankedIds.size() < MAX_SEARCH_CANDIDATES) {
+                    return findAll(ProductSpecification.hasIdIn(rankedIds), pageable);
+                }
+                return findAll(ProductSpecification.matchesKeyword(query.trim()), pageable);
+            }
+            return hydrateRankedPage(rankedIds, pageable);
+        }
+        return findAll(ProductSpecification.matchesKeyword(query.trim()), pageable);
     }
     
     // Search products by keyword
@@ -154,48 +368,79 @@ public class ProductService extends GenericServiceImpl<Product, ProductResponse,
         if (keyword == null || keyword.trim().isEmpty()) {
             return listAllProducts();
         }
-        return productRepository.searchByKeyword(keyword.trim()).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        if (productSearchIndex.isReady()) {
+            return readModelService.responses(productSearchIndex.search(keyword));
+        }
+        return readModelService.searchByKeyword(keyword.trim());
+    }
+
+    /**
+     * Reads a page of ranked product IDs from the read model, preserving the order of
+     * the ID list (search ranking).
+     */
+    private Page<ProductResponse> hydrateRankedPage(List<Long> rankedIds, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(readModelService.responses(rankedIds), pageable, rankedIds.size());
+        }
+        int from = (int) Math.min(pageable.getOffset(), rankedIds.size());
+        int to = Math.min(from + pageable.getPageSize(), rankedIds.size());
+        return new PageImpl<>(readModelService.responses(rankedIds.subList(from, to)), pageable, rankedIds.size());
     }
 
     // Get products by store ID with pagination
     public Page<ProductResponse> findAllByStoreId(Long storeId, Pageable pageable) {
-        return productRepository.findByStore_Id(storeId, pageable)
-                .map(this::convertToDto);
+        return queryCache.getPage(ProductQueryCache.Key.of("storePage", storeId, pageable),
+                Set.of(ProductQueryCache.storeTag(storeId)),
+                () -> findAll(ProductSpecification.inStore(storeId), pageable));
+    }
+
+    // Get products by store ID without the total count query
+    @Transactional(readOnly = true)
+    public Slice<ProductResponse> findAllByStoreIdSlice(Long storeId, Pageable pageable) {
+        return readModelService.responses(productRepository.findIdSlice(ProductSpecification.inStore(storeId), pageable));
+    }
+
+    // Get products by store ID with keyset paging
+    @Transactional(readOnly = true)
+    public ProductCursorPage findAllByStoreIdAfter(Long storeId, String cursor, Sort sort, int size) {
+        return scroll(ProductSpecification.inStore(storeId), cursor, sort, size);
     }
 
     // New method to find a product by ID and verify store ownership
     public Optional<ProductResponse> findByIdAndStoreId(Long productId, Long storeId) {
-        Optional<Product> productOpt = productRepository.findById(productId);
-        if (productOpt.isPresent()) {
-            Product product = productOpt.get();
-            if (product.getStore() != null && product.getStore().getId().equals(storeId)) {
-                return Optional.of(convertToDto(product));
-            }
-        }
-        return Optional.empty(); // Not found or does not belong to the store
+        return findById(productId)
+                .filter(product -> storeId.equals(product.getStoreId())); // Not found or does not belong to the store
     }
 
     @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Optional<ProductResponse> findById(Long id) {
-        return productRepository.findByIdWithImages(id)
-                .map(this::convertToDto);
+        return queryCache.getOne(ProductQueryCache.Key.of("id", id),
+                Set.of(ProductQueryCache.productTag(id)),
+                () -> readModelService.findResponse(id));
     }
     
     /**
      * Find all products that are related to the product with the given ID.
-     * Primarily finds products in the same category.
+     * Served from the precomputed RelatedProductsIndex; products it does not know yet
+     * fall back to products in the same category.
      */
     @Transactional(readOnly = true)
     public List<ProductResponse> findRelatedProductsById(Long id) {
-        System.out.println("Finding related products for product ID: " + id);
+        List<Long> relatedIds = relatedProductsIndex.related(id);
+        if (relatedIds != null) {
+            return readModelService.responses(relatedIds).stream()
+                    .limit(10)
+                    .collect(Collectors.toList());
+        }
+
+        logger.debug("Related products for product {} not indexed yet, querying", id);
         
         // First get the product to determine its category
         Optional<Product> productOpt = productRepository.findByIdWithImages(id);
         
         if (!productOpt.isPresent()) {
-            System.out.println("Product with ID " + id + " not found");
+            logger.debug("Product {} not found", id);
             return new ArrayList<>(); // Return empty list if product not found
         }
         
@@ -204,20 +449,20 @@ public class ProductService extends GenericServiceImpl<Product, ProductResponse,
         
         // If the product has a category, find other products in the same category
         if (product.getCategory() != null) {
-            System.out.println("Product belongs to category: " + product.getCategory().getName());
+            logger.debug("Product {} belongs to category {}", id, product.getCategory().getName());
             
             // Get products from the same category
             relatedProducts = productRepository.findByCategoryId(product.getCategory().getId());
-            System.out.println("Found " + relatedProducts.size() + " products in the same category");
+            logger.debug("Found {} products in the same category", relatedProducts.size());
             
             // If we didn't find enough related products, try a broader search based on category name
             if (relatedProducts.size() <= 1) {
                 String categoryName = product.getCategory().getName();
                 relatedProducts = productRepository.findByCategoryNameBroad(categoryName);
-                System.out.println("Found " + relatedProducts.size() + " products with broader category search");
+                logger.debug("Found {} products with broader category search", relatedProducts.size());
             }
         } else {
-            System.out.println("Product has no category, trying to match by name or description");
+            logger.debug("Product {} has no category, matching by name", id);
             // If no category, try to find related products by name or description
             String[] keywords = product.getName().split("\\s+");
             for (String keyword : keywords) {
@@ -225,13 +470,14 @@ public class ProductService extends GenericServiceImpl<Product, ProductResponse,
                     relatedProducts.addAll(productRepository.searchByKeyword(keyword));
                 }
             }
-            System.out.println("Found " + relatedProducts.size() + " products with name/description search");
+            logger.debug("Found {} products with name search", relatedProducts.size());
         }
         
         // If we still didn't find enough related products, add some popular products
         if (relatedProducts.isEmpty()) {
-            System.out.println("No related products found, using all products");
-            relatedProducts = productRepository.findAllWithImages();
+            logger.debug("No related products found for product {}, using best sellers", id);
+            relatedProducts = productRepository.findPageWithImages(null,
+                    PageRequest.of(0, 11, Sort.by(Sort.Direction.DESC, "totalSales"))).getContent();
         }
         
         // Filter out the current product and limit results
@@ -243,6 +489,23 @@ public class ProductService extends GenericServiceImpl<Product, ProductResponse,
                 .collect(Collectors.toList());
     }
 
+    // Keep the read model and the in-memory search, facet and suggestion indexes in line with a written product.
+    // The read model is written in this transaction; the in-memory indexes take the change once it commits
+    private void reindex(Product product) {
+        readModelService.refresh(product);
+        productSearchIndex.index(product);
+        productFacetIndex.index(product);
+        suggestionIndex.indexProduct(product);
+    }
+
+    private void unindex(Long productId) {
+        readModelService.remove(productId);
+        productSearchIndex.remove(productId);
+        productFacetIndex.remove(productId);
+        suggestionIndex.removeProduct(productId);
+        relatedProductsIndex.remove(productId);
+    }
+
     @Override
     @Transactional(readOnly = true)
     protected ProductResponse convertToDto(Product product) {
@@ -332,6 +595,7 @@ public class ProductService extends GenericServiceImpl<Product, ProductResponse,
     public ProductResponse saveForSeller(CreateProductRequest request, Long storeId) {
         Product product = convertToEntityForSeller(request, storeId);
         Product savedProduct = repository.save(product);
+        reindex(savedProduct);
         return convertToDto(savedProduct);
     }
 
@@ -384,9 +648,28 @@ public class ProductService extends GenericServiceImpl<Product, ProductResponse,
         }
 
         Product updatedProduct = productRepository.save(existingProduct);
+        reindex(updatedProduct);
+        return convertToDto(updatedProduct);
+    }
+
+    @Override
+    @Transactional
+    public ProductResponse update(Long id, CreateProductRequest request) {
+        if (!repository.existsById(id)) {
+            throw new RuntimeException("Entity not found with id: " + id);
+        }
+        Product updatedProduct = repository.save(convertToEntityForUpdate(id, request));
+        reindex(updatedProduct);
         return convertToDto(updatedProduct);
     }
 
+    @Override
+    @Transactional
+    public void delete(Long id) {
+        super.delete(id);
+        unindex(id);
+    }
+
     public void deleteForSeller(Long productId, Long storeId) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + productId));
@@ -395,6 +678,7 @@ public class ProductService extends GenericServiceImpl<Product, ProductResponse,
             throw new AccessDeniedException("Seller does not have permission to delete this product.");
         }
         productRepository.deleteById(productId);
+        unindex(productId);
     }
 
     @Transactional
@@ -404,6 +688,7 @@ public class ProductService extends GenericServiceImpl<Product, ProductResponse,
         
         product.setApproved(approved);
         Product savedProduct = productRepository.save(product);
+        reindex(savedProduct);
         return convertToDto(savedProduct);
     }
 
@@ -414,6 +699,7 @@ public class ProductService extends GenericServiceImpl<Product, ProductResponse,
         
         product.setFreeShipping(freeShipping);
         Product savedProduct = productRepository.save(product);
+        reindex(savedProduct);
         return convertToDto(savedProduct);
     }
 
@@ -424,15 +710,40 @@ public class ProductService extends GenericServiceImpl<Product, ProductResponse,
         
         product.setFastDelivery(fastDelivery);
         Product savedProduct = productRepository.save(product);
+        reindex(savedProduct);
         return convertToDto(savedProduct);
     }
 
+    // Called after a review of the product is written or deleted: the stored average feeds the
+    // rating filter, sort and facets, so the product is reindexed with it
+    @Transactional
+    public void refreshAverageRating(Long productId) {
+        Product product = productRepository.findById(productId).orElse(null);
+        if (product == null) {
+            return;
+        }
+        Double average = reviewRepository.findAverageRatingByProductId(productId);
+        product.setAverageRating(average != null ? average.floatValue() : null);
+        reindex(productRepository.save(product));
+    }
+
+    // Hot products are sold from HotStockInventory's in-memory blocks; instances pick the flag up within 30 seconds
+    @Transactional
+    public ProductResponse toggleHotStock(Long id, boolean hotStock) {
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+
+        product.setHotStock(hotStock);
+        return convertToDto(productRepository.save(product));
+    }
+
     @Transactional
     public void deleteProduct(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
         
         productRepository.delete(product);
+        unindex(id);
     }
 
     @Transactional
@@ -521,6 +832,7 @@ public class ProductService extends GenericServiceImpl<Product, ProductResponse,
         // Step 6: Reload product from DB to ensure we have latest data
         Product reloadedProduct = productRepository.findByIdWithImages(id)
                 .orElseThrow(() -> new RuntimeException("Product not found after saving"));
+        readModelService.imagesChanged(reloadedProduct);
                 
         return convertToDto(reloadedProduct);
     }
@@ -557,6 +869,7 @@ public class ProductService extends GenericServiceImpl<Product, ProductResponse,
         }
         
         Product savedProduct = repository.save(product);
+        reindex(savedProduct);
         System.out.println("Product saved successfully with ID: " + savedProduct.getId());
         
         return convertToDto(savedProduct);
@@ -577,8 +890,7 @@ public class ProductService extends GenericServiceImpl<Product, ProductResponse,
         if (categorySlug == null || categorySlug.trim().isEmpty()) {
             return searchByKeyword(keyword);
         }
-        return productRepository.searchByCategoryAndKeyword(categorySlug.trim(), keyword.trim()).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return readModelService.responses(
+                productRepository.searchIdsByCategoryAndKeyword(categorySlug.trim(), keyword.trim()));
     }
 }
\ No newline at end of file
@@ -15,7 +15,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -69,7 +71,7 @@ public class RefundService {
         }
 
         // Validate payment information
-        if (orderItem.getStripeChargeId() == null) {
+        if (chargeIdOf(orderItem) == null) {
             throw new RuntimeException("Cannot refund: No charge ID found for this order item");
         }
 
@@ -78,7 +80,7 @@ public class RefundService {
         refund.setOrderItem(orderItem);
         refund.setStatus(Refund.RefundStatus.PENDING);
         refund.setReason(request.getReason());
-        refund.setAmount(orderItem.getPriceAtPurchase().multiply(BigDecimal.valueOf(orderItem.getQuantity())));
+        refund.setAmount(allocatedAmount(orderItem));
         refund.setRequestedAt(LocalDateTime.now());
         
         Refund savedRefund = refundRepository.save(refund);
@@ -113,12 +115,13 @@ public class RefundService {
         OrderItem orderItem = refund.getOrderItem();
 
         // Validate payment information
-        if (orderItem.getStripeChargeId() == null) {
+        String chargeId = chargeIdOf(orderItem);
+        if (chargeId == null) {
             throw new RuntimeException("Cannot refund: No charge ID found for this order item");
         }
 
         // Validate refund amount
-        BigDecimal maxRefundAmount = orderItem.getPriceAtPurchase().multiply(BigDecimal.valueOf(orderItem.getQuantity()));
+        BigDecimal maxRefundAmount = allocatedAmount(orderItem);
         BigDecimal refundAmount = request.getRefundAmount();
         if (refundAmount == null) {
             refundAmount = maxRefundAmount;
@@ -132,17 +135,17 @@ public class RefundService {
 
         try {
             // Convert amount to cents for Stripe
-            long refundAmountCents = request.getRefundAmount().multiply(BigDecimal.valueOf(100)).longValue();
+            long refundAmountCents = refundAmount.multiply(BigDecimal.valueOf(100)).longValue();
             
             String refundId = stripeService.processRefund(
-                orderItem.getStripeChargeId(),
+                chargeId,
                 refundAmountCents,
                 request.getReason()
             );
 
             refund.setStripeRefundId(refundId);
             refund.setStatus(Refund.RefundStatus.COMPLETED);
-            refund.setAmount(request.getRefundAmount());
+            refund.setAmount(refundAmount);
             refund.setProcessedAt(LocalDateTime.now());
             refundRepository.save(refund);
 
@@ -247,6 +250,55 @@ public class RefundService {
         return convertToRefundResponse(refund);
     }
 
+    /**
+     * An order paid with one PaymentIntent has one charge for its stored total. Each item is
+     * allocated its line amount plus its share of the order's tax in proportion to the line,
+     * the last item taking the rounding remainder, and the item refunded after all the others
+     * also gets the shipping. That is the most it can be refunded, so refunds of different
+     * items never draw on each other's share and together return the whole total. Items of
+     * orders paid with one intent per item were charged their line amount only.
+     */
+    private static BigDecimal allocatedAmount(OrderItem orderItem) {
+        BigDecimal line = lineAmount(orderItem);
+        OrderEntity order = orderItem.getOrder();
+        if (order.getStripePaymentIntentId() == null || order.getOrderItems() == null) {
+            return line;
+        }
+
+        List<OrderItem> items = order.getOrderItems().stream()
+                .sorted(Comparator.comparing(OrderItem::getOrderItemId))
+                .toList();
+        BigDecimal tax = taxShare(order, orderItem);
+        if (items.get(items.size() - 1).getOrderItemId().equals(orderItem.getOrderItemId())) {
+            tax = order.getTax();
+            for (OrderItem other : items.subList(0, items.size() - 1)) {
+                tax = tax.subtract(taxShare(order, other));
+            }
+        }
+
+        boolean othersRefunded = items.stream()
+                .filter(other -> !other.getOrderItemId().equals(orderItem.getOrderItemId()))
+                .allMatch(other -> other.getRefund() != null && other.getRefund().getStatus() == Refund.RefundStatus.COMPLETED);
+        BigDecimal shipping = othersRefunded ? order.getShippingCost() : BigDecimal.ZERO;
+        return line.add(tax).add(shipping);
+    }
+
+    private static BigDecimal taxShare(OrderEntity order, OrderItem orderItem) {
+        if (order.getSubtotal().signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        return order.getTax().multiply(lineAmount(orderItem)).divide(order.getSubtotal(), 2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal lineAmount(OrderItem orderItem) {
+        return orderItem.getPriceAtPurchase().multiply(BigDecimal.valueOf(orderItem.getQuantity()));
+    }
+
+    // The item's own charge, or the order's single charge if the item has not been given it yet
+    private static String chargeIdOf(OrderItem orderItem) {
+        return orderItem.getStripeChargeId() != null ? orderItem.getStripeChargeId() : orderItem.getOrder().getStripeChargeId();
+    }
+
     private OrderDTO.RefundResponseDTO convertToRefundResponse(Refund refund) {
         OrderDTO.RefundResponseDTO response = new OrderDTO.RefundResponseDTO();
         response.setOrderItemId(refund.getOrderItem().getOrderItemId());
@@ -0,0 +1,289 @@
+package com.example.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.repositories.OrderItemRepository;
+import com.example.repositories.ProductRepository;
+import com.example.repositories.SubCategoryRelationRepository;
+
+/**
+ * Precomputed "related products" lists, so a product page needs one map lookup
+ * instead of a chain of category and keyword queries.
+ *
+ * Built in the background from three signals:
+ *  - co-purchases: how many orders contain both products
+ *  - category proximity through the sub_category_relations closure table
+ *    (same category, a subcategory, or a sibling under the same parent)
+ *  - overlap of the words in the product names
+ * Only the top NEIGHBOURS ids per product are kept. The lists are rebuilt on startup
+ * and every REBUILD_INTERVAL_MS; products created in between have no entry and fall
+ * back to the query path in ProductService.
+ */
+@Component
+public class RelatedProductsIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelatedProductsIndex.class);
+
+    public static final int NEIGHBOURS = 20;
+
+    private static final long REBUILD_INTERVAL_MS = 60 * 60 * 1000L;
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    // Candidates taken per category, best sellers first
+    private static final int CATEGORY_CANDIDATES = 50;
+    // Name words shared by more products than this say nothing about relatedness
+    private static final int MAX_TERM_FREQUENCY = 200;
+    // Only the most bought-together pairs are loaded; the long tail of single shared orders adds little
+    private static final int MAX_CO_PURCHASE_PAIRS = 100_000;
+
+    private static final double CO_PURCHASE_WEIGHT = 3.0;
+    private static final double NAME_WEIGHT = 2.0;
+    private static final double SAME_CATEGORY = 1.0;
+    private static final double SUBCATEGORY = 0.7;
+    private static final double SIBLING_CATEGORY = 0.4;
+
+    private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final SubCategoryRelationRepository relationRepository;
+
+    private volatile Map<Long, long[]> neighbours = Collections.emptyMap();
+    private volatile boolean ready = false;
+
+    public RelatedProductsIndex(ProductRepository productRepository,
+                                OrderItemRepository orderItemRepository,
+                                SubCategoryRelationRepository relationRepository) {
+        this.productRepository = productRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.relationRepository = relationRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Related product ids, best first, or null when the product was not in the last build.
+     */
+    public List<Long> related(Long productId) {
+        long[] ids = neighbours.get(productId);
+        if (ids == null) {
+            return null;
+        }
+        List<Long> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    /**
+     * Drops a deleted product's own list. It may still appear in other lists until the
+     * next rebuild; hydration skips ids that no longer exist.
+     */
+    public void remove(Long productId) {
+        AfterCommit.run(() -> drop(productId));
+    }
+
+    private void drop(Long productId) {
+        Map<Long, long[]> current = neighbours;
+        if (current.containsKey(productId)) {
+            Map<Long, long[]> copy = new HashMap<>(current);
+            copy.remove(productId);
+            neighbours = copy;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelay = REBUILD_INTERVAL_MS, fixedDelay = REBUILD_INTERVAL_MS)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        try {
+            neighbours = build();
+            ready = true;
+            logger.info("Related products index built for {} products in {} ms",
+                    neighbours.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            // Keep serving the previous lists
+            logger.error("Related products index build failed", e);
+        }
+    }
+
+    private Map<Long, long[]> build() {
+        // Products: category, name words and sales for tie-breaking
+        Map<Long, Doc> docs = new HashMap<>();
+        Long lastId = 0L;
+        while (true) {
+            List<Object[]> rows = productRepository.findRelatedDocumentsAfter(lastId, PageRequest.of(0, BUILD_BATCH_SIZE));
+            for (Object[] row : rows) {
+                lastId = (Long) row[0];
+                docs.put(lastId, new Doc(lastId, (Integer) row[1], (String) row[2], (Integer) row[3]));
+            }
+            if (rows.size() < BUILD_BATCH_SIZE) {
+                break;
+            }
+        }
+
+        // Best sellers per category
+        Map<Integer, List<Doc>> byCategory = new HashMap<>();
+        for (Doc doc : docs.values()) {
+            if (doc.categoryId != null) {
+                byCategory.computeIfAbsent(doc.categoryId, k -> new ArrayList<>()).add(doc);
+            }
+        }
+        for (Map.Entry<Integer, List<Doc>> entry : byCategory.entrySet()) {
+            List<Doc> members = entry.getValue();
+            members.sort((a, b) -> Integer.compare(b.totalSales, a.totalSales));
+            if (members.size() > CATEGORY_CANDIDATES) {
+                entry.setValue(new ArrayList<>(members.subList(0, CATEGORY_CANDIDATES)));
+            }
+        }
+
+        // Closure table: descendants (depth > 0), direct children and direct parent of each category
+        Map<Integer, Set<Integer>> descendants = new HashMap<>();
+        Map<Integer, Set<Integer>> children = new HashMap<>();
+        Map<Integer, Integer> parents = new HashMap<>();
+        for (Object[] row : relationRepository.findAllEdges()) {
+            Integer ancestor = (Integer) row[0];
+            Integer descendant = (Integer) row[1];
+            int depth = (Integer) row[2];
+            if (depth > 0) {
+                descendants.computeIfAbsent(ancestor, k -> new HashSet<>()).add(descendant);
+            }
+            if (depth == 1) {
+                children.computeIfAbsent(ancestor, k -> new HashSet<>()).add(descendant);
+                parents.put(descendant, ancestor);
+            }
+        }
+
+        // Name words, leaving out the ones too common to be useful
+        Map<String, List<Long>> postings = new HashMap<>();
+        for (Doc doc : docs.values()) {
+            for (String term : doc.terms) {
+                postings.computeIfAbsent(term, k -> new ArrayList<>()).add(doc.id);
+            }
+        }
+        postings.values().removeIf(ids -> ids.size() > MAX_TERM_FREQUENCY);
+
+        // Orders containing both products
+        Map<Long, Map<Long, Long>> coPurchases = new HashMap<>();
+        for (Object[] row : orderItemRepository.countCoPurchases(PageRequest.of(0, MAX_CO_PURCHASE_PAIRS))) {
+            Long a = (Long) row[0];
+            Long b = (Long) row[1];
+            Long orders = (Long) row[2];
+            coPurchases.computeIfAbsent(a, k -> new HashMap<>()).put(b, orders);
+            coPurchases.computeIfAbsent(b, k -> new HashMap<>()).put(a, orders);
+        }
+
+        Map<Long, long[]> result = new HashMap<>(docs.size() * 2);
+        for (Doc doc : docs.values()) {
+            Map<Long, Double> scores = new HashMap<>();
+
+            Map<Long, Long> bought = coPurchases.getOrDefault(doc.id, Collections.emptyMap());
+            for (Map.Entry<Long, Long> entry : bought.entrySet()) {
+                // Saturates, so a handful of shared orders already counts for most of the weight
+                double count = entry.getValue();
+                scores.merge(entry.getKey(), CO_PURCHASE_WEIGHT * count / (count + 2.0), Double::sum);
+            }
+
+            if (doc.categoryId != null) {
+                addCategory(scores, byCategory.get(doc.categoryId), SAME_CATEGORY);
+                for (Integer sub : descendants.getOrDefault(doc.categoryId, Collections.emptySet())) {
+                    addCategory(scores, byCategory.get(sub), SUBCATEGORY);
+                }
+                Integer parent = parents.get(doc.categoryId);
+                if (parent != null) {
+                    addCategory(scores, byCategory.get(parent), SIBLING_CATEGORY);
+                    for (Integer sibling : children.getOrDefault(parent, Collections.emptySet())) {
+                        if (!sibling.equals(doc.categoryId)) {
+                            addCategory(scores, byCategory.get(sibling), SIBLING_CATEGORY);
+                        }
+                    }
+                }
+            }
+
+            // Jaccard similarity of name words, over products sharing at least one word
+            Map<Long, Integer> shared = new HashMap<>();
+            for (String term : doc.terms) {
+                for (Long other : postings.getOrDefault(term, Collections.emptyList())) {
+                    shared.merge(other, 1, Integer::sum);
+                }
+            }
+            for (Map.Entry<Long, Integer> entry : shared.entrySet()) {
+                Doc other = docs.get(entry.getKey());
+                int union = doc.terms.size() + other.terms.size() - entry.getValue();
+                scores.merge(entry.getKey(), NAME_WEIGHT * entry.getValue() / union, Double::sum);
+            }
+
+            scores.remove(doc.id);
+            scores.keySet().retainAll(docs.keySet());
+            if (!scores.isEmpty()) {
+                result.put(doc.id, top(scores, docs));
+            }
+        }
+        return result;
+    }
+
+    private static void addCategory(Map<Long, Double> scores, List<Doc> members, double weight) {
+        if (members == null) {
+            return;
+        }
+        for (Doc member : members) {
+            scores.merge(member.id, weight, Double::sum);
+        }
+    }
+
+    private static long[] top(Map<Long, Double> scores, Map<Long, Doc> docs) {
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort((a, b) -> {
+            int byScore = Double.compare(b.getValue(), a.getValue());
+            if (byScore != 0) {
+                return byScore;
+            }
+            // Equal scores: best seller first
+            return Integer.compare(docs.get(b.getKey()).totalSales, docs.get(a.getKey()).totalSales);
+        });
+        int size = Math.min(NEIGHBOURS, ranked.size());
+        long[] ids = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = ranked.get(i).getKey();
+        }
+        return ids;
+    }
+
+    private static final class Doc {
+        private final Long id;
+        private final Integer categoryId;
+        private final Set<String> terms;
+        private final int totalSales;
+
+        private Doc(Long id, Integer categoryId, String name, Integer totalSales) {
+            this.id = id;
+            this.categoryId = categoryId;
+            this.terms = new HashSet<>();
+            for (String token : ProductSearchIndex.tokenize(name)) {
+                if (token.length() > 2) {
+                    this.terms.add(token);
+                }
+            }
+            this.totalSales = totalSales != null ? totalSales : 0;
+        }
+    }
+}
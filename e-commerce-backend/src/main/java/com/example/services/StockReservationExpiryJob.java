@@ -0,0 +1,43 @@
+package com.example.services;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gives up on orders whose stock reservations expired before they were paid, returning the
+ * units to stock. Each order is handled in its own transaction by OrderService.
+ */
+@Component
+public class StockReservationExpiryJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationExpiryJob.class);
+
+    private static final int BATCH_SIZE = 100;
+
+    private final StockReservationService stockReservationService;
+    private final OrderService orderService;
+
+    public StockReservationExpiryJob(StockReservationService stockReservationService, OrderService orderService) {
+        this.stockReservationService = stockReservationService;
+        this.orderService = orderService;
+    }
+
+    @Scheduled(initialDelay = 60_000, fixedDelay = 60_000)
+    public void releaseExpired() {
+        List<Long> orderIds = stockReservationService.findExpiredOrderIds(BATCH_SIZE);
+        for (Long orderId : orderIds) {
+            try {
+                orderService.expireReservations(orderId);
+            } catch (RuntimeException e) {
+                logger.error("Releasing expired stock reservations of order {} failed", orderId, e);
+            }
+        }
+        if (!orderIds.isEmpty()) {
+            logger.info("Released expired stock reservations of {} orders", orderIds.size());
+        }
+    }
+}
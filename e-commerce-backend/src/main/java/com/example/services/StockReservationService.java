@@ -0,0 +1,197 @@
+package com.example.services;
+
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.exceptions.InsufficientStockException;
+import com.example.models.StockReservation;
+import com.example.repositories.StockReservationRepository;
+
+/**
+ * Takes stock for orders without reading it first. Each basket line is one conditional
+ * decrement, {@code stock_quantity = stock_quantity - n WHERE stock_quantity >= n}, and all
+ * lines of a basket go to the database as one JDBC batch. A line that matches no row means
+ * the product is short, and the caller's transaction rolls back every line of the basket.
+ * Lines are applied in product ID order so two baskets never lock the same rows in
+ * opposite orders.
+ *
+ * Every taken line is recorded as an active StockReservation with an expiry. Paying for the
+ * order commits its reservations; cancelling it, a failed payment, or the expiry (see
+ * StockReservationExpiryJob) releases them and puts the units back.
+ *
+ * Lines of hot products are served from memory by HotStockInventory when it can; the
+ * decrement here then only sees the units no instance holds in memory.
+ */
+@Service
+public class StockReservationService {
+
+    private static final String TAKE_STOCK =
+            "UPDATE products SET stock_quantity = stock_quantity - ? WHERE product_id = ? AND stock_quantity - hot_allocated >= ?";
+    private static final String RETURN_STOCK =
+            "UPDATE products SET stock_quantity = stock_quantity + ? WHERE product_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StockReservationRepository reservationRepository;
+    private final ProductReadModelService readModelService;
+    private final HotStockInventory hotStockInventory;
+    private final Duration reservationTtl;
+
+    public StockReservationService(JdbcTemplate jdbcTemplate,
+                                   StockReservationRepository reservationRepository,
+                                   ProductReadModelService readModelService,
+                                   HotStockInventory hotStockInventory,
+                                   @Value("${orders.stock-reservation-ttl:PT30M}") Duration reservationTtl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reservationRepository = reservationRepository;
+        this.readModelService = readModelService;
+        this.hotStockInventory = hotStockInventory;
+        this.reservationTtl = reservationTtl;
+    }
+
+    /**
+     * Takes the given quantity of each product for the order, all or nothing.
+     * @throws InsufficientStockException naming every short product
+     * @throws IllegalArgumentException if a quantity is below 1, before anything is taken
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<StockReservation> reserve(Long orderId, Map<Long, Integer> quantities) {
+        // A negative line would pass the stock check and put units back instead of taking them
+        quantities.forEach((productId, quantity) -> {
+            if (quantity == null || quantity < 1) {
+                throw new IllegalArgumentException("Quantity for product " + productId + " must be at least 1");
+            }
+        });
+        Map<Long, Integer> hotLines = new TreeMap<>();
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : new TreeMap<>(quantities).entrySet()) {
+            if (hotStockInventory.take(line.getKey(), line.getValue())) {
+                hotLines.put(line.getKey(), line.getValue());
+            } else {
+                lines.add(line);
+            }
+        }
+
+        if (!hotLines.isEmpty()) {
+            // Units taken from memory go back there if the order does not commit
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        hotLines.forEach(hotStockInventory::giveBack);
+                    }
+                }
+            });
+        }
+        List<Long> shortProducts = lines.isEmpty() ? List.of() : takeStock(lines);
+        if (!shortProducts.isEmpty()) {
+            throw new InsufficientStockException(shortProducts);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<StockReservation> reservations = new ArrayList<>();
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (Map.Entry<Long, Integer> line : lines) {
+            reservations.add(newReservation(orderId, line.getKey(), line.getValue(), now));
+            deltas.put(line.getKey(), -line.getValue());
+        }
+        hotLines.forEach((productId, quantity) -> {
+            StockReservation reservation = newReservation(orderId, productId, quantity, now);
+            reservation.setHotInstanceId(hotStockInventory.getInstanceId());
+            reservation.setStockFlushed(false);
+            reservations.add(reservation);
+        });
+        if (!deltas.isEmpty()) {
+            readModelService.stockChanged(deltas);
+        }
+        return reservationRepository.saveAll(reservations);
+    }
+
+    // Runs the conditional decrements as one batch and returns the products that were short
+    private List<Long> takeStock(List<Map.Entry<Long, Integer>> lines) {
+        int[][] updated = jdbcTemplate.batchUpdate(TAKE_STOCK, lines, lines.size(), (statement, line) -> {
+            statement.setInt(1, line.getValue());
+            statement.setLong(2, line.getKey());
+            statement.setInt(3, line.getValue());
+        });
+
+        List<Long> shortProducts = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : updated) {
+            for (int count : batch) {
+                if (count == Statement.SUCCESS_NO_INFO) {
+                    // Without per-line counts a short line cannot be told apart from a taken one
+                    throw new IllegalStateException("JDBC driver did not report update counts for the stock batch");
+                }
+                if (count == 0) {
+                    shortProducts.add(lines.get(index).getKey());
+                }
+                index++;
+            }
+        }
+        return shortProducts;
+    }
+
+    private StockReservation newReservation(Long orderId, Long productId, int quantity, LocalDateTime now) {
+        StockReservation reservation = new StockReservation();
+        reservation.setOrderId(orderId);
+        reservation.setProductId(productId);
+        reservation.setQuantity(quantity);
+        reservation.setStatus(StockReservation.Status.ACTIVE);
+        reservation.setCreatedAt(now);
+        reservation.setExpiresAt(now.plus(reservationTtl));
+        return reservation;
+    }
+
+    // The order was paid: its units stay taken
+    @Transactional
+    public void commit(Long orderId) {
+        reservationRepository.commitByOrderId(orderId, LocalDateTime.now());
+    }
+
+    /**
+     * Gives the units of the order's active reservations back. Each reservation is resolved
+     * with a conditional update first, so concurrent releases of one order (a cancel racing
+     * the expiry job) return its units only once. Units of hot reservations not flushed yet
+     * never left stock_quantity and go back to HotStockInventory's books instead.
+     */
+    @Transactional
+    public void release(Long orderId) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Integer> returned = new TreeMap<>();
+        for (StockReservation reservation : reservationRepository.findByOrderIdAndStatus(orderId, StockReservation.Status.ACTIVE)) {
+            if (reservationRepository.resolve(reservation.getId(), StockReservation.Status.RELEASED, now) == 1
+                    && !hotStockInventory.releaseUnflushed(reservation)) {
+                returned.merge(reservation.getProductId(), reservation.getQuantity(), Integer::sum);
+            }
+        }
+        if (returned.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(returned.entrySet());
+        jdbcTemplate.batchUpdate(RETURN_STOCK, lines, lines.size(), (statement, line) -> {
+            statement.setInt(1, line.getValue());
+            statement.setLong(2, line.getKey());
+        });
+        readModelService.stockChanged(returned);
+    }
+
+    // Orders still holding active reservations past their expiry
+    public List<Long> findExpiredOrderIds(int limit) {
+        return reservationRepository.findExpiredOrderIds(LocalDateTime.now(), PageRequest.of(0, limit));
+    }
+}
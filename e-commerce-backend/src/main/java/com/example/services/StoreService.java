@@ -10,6 +10,7 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -24,6 +25,12 @@ public class StoreService {
     @Autowired
     private UserRepository userRepository; // Assuming you have a UserRepository
 
+    @Autowired
+    private SuggestionIndex suggestionIndex;
+
+    @Autowired
+    private ProductReadModelService productReadModelService;
+
     public List<StoreResponse> findAll() {
         return storeRepository.findAll()
                 .stream()
@@ -63,9 +70,11 @@ public class StoreService {
         store.setPostalCode(dto.getPostalCode());
 
         Store savedStore = storeRepository.save(store);
+        suggestionIndex.indexStore(savedStore);
         return mapToStoreResponse(savedStore);
     }
 
+    @Transactional
     public StoreResponse update(long id, @Valid StoreUpdateRequest dto) {
         Store store = storeRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Store not found with id: " + id));
@@ -76,6 +85,8 @@ public class StoreService {
         // Update other fields from DTO as needed
 
         Store updatedStore = storeRepository.save(store);
+        suggestionIndex.indexStore(updatedStore);
+        productReadModelService.storeChanged(updatedStore);
         return mapToStoreResponse(updatedStore);
     }
 
@@ -93,11 +104,14 @@ public class StoreService {
     }
 
 
+    @Transactional
     public void delete(long id) {
         if (!storeRepository.existsById(id)) {
             throw new EntityNotFoundException("Store not found with id: " + id);
         }
         storeRepository.deleteById(id);
+        productReadModelService.storeDeleted(id);
+        suggestionIndex.removeStore(id);
     }
 
     private StoreResponse mapToStoreResponse(Store store) {
@@ -3,6 +3,7 @@ package com.example.services;
 import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.*;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.PaymentIntentCreateParams;
 import com.stripe.param.CustomerCreateParams;
 import com.stripe.param.CustomerUpdateParams;
@@ -138,6 +139,35 @@ public class StripeService {
         );
     }
 
+    /**
+     * Create a payment intent, with or without a customer, under an idempotency key so that
+     * retrying the same request returns the intent Stripe already created
+     */
+    public Map<String, String> createPaymentIntent(String customerId, Long amount, String currency,
+                                                   String idempotencyKey) throws StripeException {
+        Stripe.apiKey = stripeApiKey;
+
+        PaymentIntentCreateParams.Builder params = PaymentIntentCreateParams.builder()
+                .setAmount(amount)
+                .setCurrency(currency)
+                .setAutomaticPaymentMethods(
+                    PaymentIntentCreateParams.AutomaticPaymentMethods.builder()
+                        .setEnabled(true)
+                        .build()
+                );
+        if (customerId != null && !customerId.isEmpty()) {
+            params.setCustomer(customerId);
+        }
+
+        PaymentIntent paymentIntent = PaymentIntent.create(params.build(),
+                RequestOptions.builder().setIdempotencyKey(idempotencyKey).build());
+
+        return Map.of(
+            "paymentIntentId", paymentIntent.getId(),
+            "clientSecret", paymentIntent.getClientSecret()
+        );
+    }
+
     /**
      * Confirm a payment intent and return the charge ID
      */
@@ -153,6 +183,25 @@ public class StripeService {
         return paymentIntent.getLatestCharge();
     }
 
+    /**
+     * Cancel a payment intent so it can no longer be paid. Intents that already succeeded or
+     * were cancelled are left as they are; one still processing throws, to be retried once
+     * its outcome is known.
+     */
+    public void cancelPaymentIntent(String paymentIntentId) throws StripeException {
+        Stripe.apiKey = stripeApiKey;
+
+        PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
+        String status = paymentIntent.getStatus();
+        if ("succeeded".equals(status) || "canceled".equals(status)) {
+            return;
+        }
+        if ("processing".equals(status)) {
+            throw new IllegalStateException("Payment intent " + paymentIntentId + " is still processing");
+        }
+        paymentIntent.cancel();
+    }
+
     /**
      * Process a refund for an order item
      */
@@ -174,6 +223,22 @@ public class StripeService {
         return refund.getId();
     }
 
+    /**
+     * Refund a charge in full. A charge that is already fully refunded is left as it is.
+     */
+    public void refundCharge(String chargeId, String idempotencyKey) throws StripeException {
+        Stripe.apiKey = stripeApiKey;
+
+        try {
+            Refund.create(RefundCreateParams.builder().setCharge(chargeId).build(),
+                    RequestOptions.builder().setIdempotencyKey(idempotencyKey).build());
+        } catch (StripeException e) {
+            if (!"charge_already_refunded".equals(e.getCode())) {
+                throw e;
+            }
+        }
+    }
+
     /**
      * Get payment intent details
      */
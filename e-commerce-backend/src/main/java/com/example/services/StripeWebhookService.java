@@ -29,16 +29,25 @@ public class StripeWebhookService {
     private final OrderItemRepository orderItemRepository;
     private final RefundRepository refundRepository;
     private final OrderRepository orderRepository;
+    private final OrderService orderService;
+    private final StockReservationService stockReservationService;
+    private final OrderStatusCounters orderStatusCounters;
 
     public StripeWebhookService(
             UserRepository userRepository,
             OrderItemRepository orderItemRepository,
             RefundRepository refundRepository,
-            OrderRepository orderRepository) {
+            OrderRepository orderRepository,
+            OrderService orderService,
+            StockReservationService stockReservationService,
+            OrderStatusCounters orderStatusCounters) {
         this.userRepository = userRepository;
         this.orderItemRepository = orderItemRepository;
         this.refundRepository = refundRepository;
         this.orderRepository = orderRepository;
+        this.orderService = orderService;
+        this.stockReservationService = stockReservationService;
+        this.orderStatusCounters = orderStatusCounters;
     }
 
     @Transactional
@@ -132,6 +141,13 @@ public class StripeWebhookService {
             return;
         }
         
+        // Orders paid with one intent for the whole order
+        Optional<OrderEntity> paidOrder = orderRepository.findOrderByStripePaymentIntentId(paymentIntentId);
+        if (paidOrder.isPresent()) {
+            orderService.recordOrderPayment(paidOrder.get(), charge.getId());
+            return;
+        }
+
         // Find the order item associated with this payment intent
         OrderItem orderItem = orderItemRepository.findByStripePaymentIntentId(paymentIntentId)
                 .orElse(null);
@@ -141,16 +157,24 @@ public class StripeWebhookService {
             return;
         }
         
-        // Update order item with charge ID
-        orderItem.setStripeChargeId(charge.getId());
-        orderItemRepository.save(orderItem);
-        
         // Get the parent order
         OrderEntity order = orderItem.getOrder();
         if (order == null) {
             System.out.println("Warning: Order item has no associated order");
             return;
         }
+        if (charge.getId().equals(orderItem.getStripeChargeId())) {
+            return;
+        }
+        if (order.getStatus() != OrderEntity.Status.pending) {
+            // Paid after the order was cancelled or expired
+            orderService.refundLatePayment(order, charge.getId());
+            return;
+        }
+
+        // Update order item with charge ID
+        orderItem.setStripeChargeId(charge.getId());
+        orderItemRepository.save(orderItem);
         
         // Check if all items in the order are now paid
         boolean allItemsPaid = true;
@@ -164,8 +188,10 @@ public class StripeWebhookService {
         // Update order status if all items are paid
         if (allItemsPaid) {
             System.out.println("All items paid for order ID: " + order.getId() + ". Updating status to processing.");
-            order.setStatus(OrderEntity.Status.processing);
+            orderStatusCounters.transition(order, OrderEntity.Status.processing);
             order.setStripeChargeId(charge.getId());
+            order.setPaymentStatus(OrderEntity.PaymentStatus.paid);
+            stockReservationService.commit(order.getId());
             orderRepository.save(order);
         }
     }
@@ -197,12 +223,18 @@ public class StripeWebhookService {
     @SuppressWarnings("deprecation")
     private void handleChargeFailed(Event event) {
         Charge charge = (Charge) event.getData().getObject();
-        // Update order item status or handle failed payment
-        orderItemRepository.findByStripePaymentIntentId(charge.getPaymentIntent())
-                .ifPresent(orderItem -> {
-                    // Handle failed payment logic
-                    orderItemRepository.save(orderItem);
-                });
+        String paymentIntentId = charge.getPaymentIntent();
+        if (paymentIntentId == null || paymentIntentId.isEmpty()) {
+            System.out.println("Warning: Failed charge doesn't have a payment intent ID: " + charge.getId());
+            return;
+        }
+        // Cancels the order if it is still pending and returns its reserved stock
+        if (orderRepository.findOrderByStripePaymentIntentId(paymentIntentId).isPresent()
+                || orderItemRepository.findByStripePaymentIntentId(paymentIntentId).isPresent()) {
+            orderService.handlePaymentFailure(paymentIntentId);
+        } else {
+            System.out.println("Warning: Could not find order for failed payment intent: " + paymentIntentId);
+        }
     }
 
     private void handleRefundCreated(Event event) {
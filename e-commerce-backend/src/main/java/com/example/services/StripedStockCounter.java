@@ -0,0 +1,92 @@
+package com.example.services;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Units of one hot product held in memory, spread over several stripes so concurrent
+ * buyers decrement different cache lines. Taking is a CAS on one stripe, or on several
+ * when no single stripe holds enough; it never blocks. Adding and draining are rare (a
+ * new block, a rolled-back order, the product leaving hot mode) and synchronized, so units
+ * can never be added to a counter after it was drained for good.
+ */
+final class StripedStockCounter {
+
+    // Slots per stripe: 16 ints put each stripe on its own 64-byte cache line
+    private static final int PADDING = 16;
+
+    private final AtomicIntegerArray slots;
+    private final int count;
+    private boolean closed;
+
+    StripedStockCounter(int stripeCount) {
+        this.count = stripeCount;
+        this.slots = new AtomicIntegerArray(stripeCount * PADDING);
+    }
+
+    boolean take(int units) {
+        int start = ThreadLocalRandom.current().nextInt(count);
+
+        for (int i = 0; i < count; i++) {
+            int stripe = (start + i) % count;
+            int available;
+            while ((available = slots.get(stripe * PADDING)) >= units) {
+                if (slots.compareAndSet(stripe * PADDING, available, available - units)) {
+                    return true;
+                }
+            }
+        }
+
+        // No stripe holds enough on its own: gather from several, and put back on failure
+        int[] takenFrom = new int[count];
+        int taken = 0;
+        for (int i = 0; i < count && taken < units; i++) {
+            int stripe = (start + i) % count;
+            int available;
+            while (taken < units && (available = slots.get(stripe * PADDING)) > 0) {
+                int part = Math.min(available, units - taken);
+                if (slots.compareAndSet(stripe * PADDING, available, available - part)) {
+                    takenFrom[stripe] += part;
+                    taken += part;
+                }
+            }
+        }
+        if (taken == units) {
+            return true;
+        }
+        for (int stripe = 0; stripe < count; stripe++) {
+            if (takenFrom[stripe] > 0) {
+                slots.addAndGet(stripe * PADDING, takenFrom[stripe]);
+            }
+        }
+        return false;
+    }
+
+    // False once the counter was drained; the caller must hand the units back itself
+    synchronized boolean add(int units) {
+        if (closed) {
+            return false;
+        }
+        for (int stripe = 0; stripe < count; stripe++) {
+            int share = units / count + (stripe < units % count ? 1 : 0);
+            if (share > 0) {
+                slots.addAndGet(stripe * PADDING, share);
+            }
+        }
+        return true;
+    }
+
+    // Empties the counter for good and returns the units it held
+    synchronized int drain() {
+        closed = true;
+        int drained = 0;
+        for (int stripe = 0; stripe < count; stripe++) {
+            drained += slots.getAndSet(stripe * PADDING, 0);
+        }
+        return drained;
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+}
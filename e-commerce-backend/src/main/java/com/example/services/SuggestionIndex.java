@@ -0,0 +1,398 @@
+package com.example.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.example.DTO.SuggestionDTO;
+import com.example.models.Category;
+import com.example.models.Product;
+import com.example.models.Store;
+import com.example.repositories.CategoryRepository;
+import com.example.repositories.ProductRepository;
+import com.example.repositories.StoreRepository;
+
+/**
+ * Prefix trie over product, category and store names for typeahead.
+ * Each node keeps the best MAX_RESULTS suggestions of its subtree, so a lookup is
+ * a walk down the typed prefix. Names are indexed from every word start, so
+ * "pho" finds "Smart Phone". Keys are cut at MAX_KEY_LENGTH characters to bound
+ * the trie depth; longer prefixes are checked against the entries of the deepest node.
+ */
+@Component
+public class SuggestionIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestionIndex.class);
+
+    public static final int MAX_RESULTS = 10;
+
+    private static final int MAX_KEY_LENGTH = 12;
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    // Categories have no sales figures; rank them above an average product
+    private static final double CATEGORY_SCORE = 10.0;
+
+    private static final Comparator<Entry> BY_SCORE = Comparator.comparingDouble((Entry e) -> e.score).reversed()
+            .thenComparing(e -> e.label);
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final StoreRepository storeRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = new Node();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private volatile boolean ready = false;
+
+    public SuggestionIndex(ProductRepository productRepository,
+                           CategoryRepository categoryRepository,
+                           StoreRepository storeRepository) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.storeRepository = storeRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Entry> loaded = new ArrayList<>();
+
+        Long lastId = 0L;
+        while (true) {
+            List<Object[]> rows = productRepository.findSuggestionDocumentsAfter(lastId, PageRequest.of(0, BUILD_BATCH_SIZE));
+            for (Object[] row : rows) {
+                lastId = (Long) row[0];
+                loaded.add(productEntry(lastId, (String) row[1], (Integer) row[2], (Float) row[3]));
+            }
+            if (rows.size() < BUILD_BATCH_SIZE) {
+                break;
+            }
+        }
+        for (Category category : categoryRepository.findAll()) {
+            loaded.add(categoryEntry(category));
+        }
+        for (Object[] row : storeRepository.findSuggestionDocuments()) {
+            loaded.add(storeEntry((Long) row[0], (String) row[1], (Integer) row[2], (Float) row[3]));
+        }
+
+        lock.writeLock().lock();
+        try {
+            root = new Node();
+            entries.clear();
+            for (Entry entry : loaded) {
+                if (entry != null) {
+                    insert(entry, false);
+                }
+            }
+            recomputeAll(root);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Suggestion index built with {} entries in {} ms", entries.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Best suggestions whose name (or a word in it) starts with the prefix.
+     */
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int max = Math.max(1, Math.min(limit, MAX_RESULTS));
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < Math.min(key.length(), MAX_KEY_LENGTH) && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+            }
+            if (node == null) {
+                return Collections.emptyList();
+            }
+
+            List<Entry> matches;
+            if (key.length() <= MAX_KEY_LENGTH) {
+                matches = node.top;
+            } else {
+                // Deeper than the trie, filter the entries that were cut at this node
+                matches = new ArrayList<>();
+                for (Entry entry : node.entries) {
+                    if (entry.matchesPrefix(key)) {
+                        matches.add(entry);
+                    }
+                }
+                matches.sort(BY_SCORE);
+            }
+
+            List<SuggestionDTO> result = new ArrayList<>(max);
+            for (Entry entry : matches) {
+                if (result.size() == max) {
+                    break;
+                }
+                result.add(new SuggestionDTO(entry.type, entry.id, entry.label, entry.slug));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The changes below are applied once the write that made them commits
+
+    public void indexProduct(Product product) {
+        if (product != null && product.getId() != null) {
+            replaceAfterCommit(identity(SuggestionDTO.Type.PRODUCT, product.getId()),
+                    productEntry(product.getId(), product.getName(), product.getTotalSales(), product.getAverageRating()));
+        }
+    }
+
+    public void removeProduct(Long productId) {
+        removeAfterCommit(identity(SuggestionDTO.Type.PRODUCT, productId));
+    }
+
+    public void indexCategory(Category category) {
+        if (category != null) {
+            replaceAfterCommit(identity(SuggestionDTO.Type.CATEGORY, (long) category.getId()), categoryEntry(category));
+        }
+    }
+
+    public void removeCategory(int categoryId) {
+        removeAfterCommit(identity(SuggestionDTO.Type.CATEGORY, (long) categoryId));
+    }
+
+    public void indexStore(Store store) {
+        if (store != null && store.getId() != null) {
+            replaceAfterCommit(identity(SuggestionDTO.Type.STORE, store.getId()),
+                    storeEntry(store.getId(), store.getStoreName(), store.getTotalSales(), store.getAverageRating()));
+        }
+    }
+
+    public void removeStore(Long storeId) {
+        removeAfterCommit(identity(SuggestionDTO.Type.STORE, storeId));
+    }
+
+    private void replaceAfterCommit(String identity, Entry entry) {
+        AfterCommit.run(() -> replace(identity, entry));
+    }
+
+    private void removeAfterCommit(String identity) {
+        AfterCommit.run(() -> remove(identity));
+    }
+
+    // A null entry (blank name, inactive category) just drops what was indexed before
+    private void replace(String identity, Entry entry) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.get(identity);
+            if (previous != null) {
+                delete(previous);
+            }
+            if (entry != null) {
+                insert(entry, true);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(String identity) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.get(identity);
+            if (previous != null) {
+                delete(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- trie maintenance, callers hold the write lock ---
+
+    private void insert(Entry entry, boolean updateTop) {
+        entries.put(entry.identity, entry);
+        for (String key : entry.keys) {
+            List<Node> path = path(key, true);
+            path.get(path.size() - 1).entries.add(entry);
+            if (updateTop) {
+                recomputePath(path);
+            }
+        }
+    }
+
+    private void delete(Entry entry) {
+        entries.remove(entry.identity);
+        for (String key : entry.keys) {
+            List<Node> path = path(key, false);
+            if (path.size() != key.length() + 1) {
+                continue;
+            }
+            path.get(path.size() - 1).entries.remove(entry);
+            recomputePath(path);
+            // Drop nodes that no longer lead anywhere
+            for (int i = path.size() - 1; i > 0; i--) {
+                Node node = path.get(i);
+                if (!node.entries.isEmpty() || !node.children.isEmpty()) {
+                    break;
+                }
+                path.get(i - 1).children.remove(key.charAt(i - 1));
+            }
+        }
+    }
+
+    private List<Node> path(String key, boolean create) {
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                if (!create) {
+                    break;
+                }
+                child = new Node();
+                node.children.put(key.charAt(i), child);
+            }
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    private void recomputePath(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            recompute(path.get(i));
+        }
+    }
+
+    private void recomputeAll(Node node) {
+        for (Node child : node.children.values()) {
+            recomputeAll(child);
+        }
+        recompute(node);
+    }
+
+    // A node's top list is the best of its own entries and its children's top lists
+    private void recompute(Node node) {
+        List<Entry> candidates = new ArrayList<>(node.entries);
+        for (Node child : node.children.values()) {
+            candidates.addAll(child.top);
+        }
+        candidates.sort(BY_SCORE);
+        Set<Entry> best = new LinkedHashSet<>();
+        for (Entry candidate : candidates) {
+            if (best.size() == MAX_RESULTS) {
+                break;
+            }
+            best.add(candidate);
+        }
+        node.top = List.copyOf(best);
+    }
+
+    // --- entries ---
+
+    private static Entry productEntry(Long id, String name, Integer totalSales, Float averageRating) {
+        double score = 2.0 * Math.log1p(totalSales != null ? totalSales : 0) + (averageRating != null ? averageRating : 0);
+        return Entry.of(SuggestionDTO.Type.PRODUCT, id, name, null, score);
+    }
+
+    private static Entry categoryEntry(Category category) {
+        if (Boolean.FALSE.equals(category.getActive())) {
+            return null;
+        }
+        return Entry.of(SuggestionDTO.Type.CATEGORY, (long) category.getId(), category.getName(), category.getSlug(), CATEGORY_SCORE);
+    }
+
+    private static Entry storeEntry(Long id, String storeName, Integer totalSales, Float averageRating) {
+        double score = 2.0 * Math.log1p(totalSales != null ? totalSales : 0) + (averageRating != null ? averageRating : 0);
+        return Entry.of(SuggestionDTO.Type.STORE, id, storeName, null, score);
+    }
+
+    private static String identity(SuggestionDTO.Type type, Long id) {
+        return type + ":" + id;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private final List<Entry> entries = new ArrayList<>(1);
+        private List<Entry> top = Collections.emptyList();
+    }
+
+    private static final class Entry {
+        private final String identity;
+        private final SuggestionDTO.Type type;
+        private final Long id;
+        private final String label;
+        private final String slug;
+        private final double score;
+        private final String normalized;
+        private final List<String> keys;
+
+        private Entry(SuggestionDTO.Type type, Long id, String label, String slug, double score) {
+            this.identity = identity(type, id);
+            this.type = type;
+            this.id = id;
+            this.label = label;
+            this.slug = slug;
+            this.score = score;
+            this.normalized = normalize(label);
+            this.keys = keysFor(normalized);
+        }
+
+        static Entry of(SuggestionDTO.Type type, Long id, String label, String slug, double score) {
+            if (label == null || normalize(label).isEmpty()) {
+                return null;
+            }
+            return new Entry(type, id, label, slug, score);
+        }
+
+        // The name from each word start, cut to the trie depth
+        private static List<String> keysFor(String normalized) {
+            Map<String, Boolean> keys = new LinkedHashMap<>();
+            for (int i = 0; i < normalized.length(); i++) {
+                if (i == 0 || normalized.charAt(i - 1) == ' ') {
+                    String suffix = normalized.substring(i);
+                    keys.put(suffix.length() > MAX_KEY_LENGTH ? suffix.substring(0, MAX_KEY_LENGTH) : suffix, true);
+                }
+            }
+            return List.copyOf(keys.keySet());
+        }
+
+        boolean matchesPrefix(String prefix) {
+            for (int i = 0; i < normalized.length(); i++) {
+                if ((i == 0 || normalized.charAt(i - 1) == ' ') && normalized.startsWith(prefix, i)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -26,6 +26,9 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ProductReadModelService productReadModelService;
+
     public List<UserResponse> getAllUsers() {
         return userRepository.findAll()
                 .stream()
@@ -52,19 +55,23 @@ public class UserService {
         return mapToDTO(user);
     }
 
+    @Transactional
     public UserResponse updateCurrentUser(UpdateUserRequest request) {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
         User user = userRepository.findByEmail(email).orElseThrow(()
                 -> new UsernameNotFoundException("User not found with email: " + email));
         applyUpdates(user, request);
         userRepository.save(user);
+        productReadModelService.sellerChanged(user);
         return mapToDTO(user);
     }
 
+    @Transactional
     public UserResponse updateUser(int userId, UpdateUserRequest request) {
         User user = userRepository.findById(userId).orElseThrow();
         applyUpdates(user, request);
         userRepository.save(user);
+        productReadModelService.sellerChanged(user);
         return mapToDTO(user);
     }
 
@@ -0,0 +1,31 @@
+package com.example.services.outbox;
+
+import org.springframework.stereotype.Component;
+
+import com.example.models.OutboxEvent;
+import com.example.services.StripeService;
+
+/**
+ * Cancels at Stripe the PaymentIntent of an order that was cancelled, expired or deleted
+ * before it was paid, so the customer can no longer pay it. The aggregate is the order and
+ * the payload the intent ID.
+ */
+@Component
+public class CancelPaymentIntentOutboxHandler implements OutboxHandler {
+
+    private final StripeService stripeService;
+
+    public CancelPaymentIntentOutboxHandler(StripeService stripeService) {
+        this.stripeService = stripeService;
+    }
+
+    @Override
+    public String eventType() {
+        return OutboxService.CANCEL_PAYMENT_INTENT;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) throws Exception {
+        stripeService.cancelPaymentIntent(event.getPayload());
+    }
+}
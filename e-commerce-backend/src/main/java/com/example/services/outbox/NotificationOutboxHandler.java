@@ -0,0 +1,30 @@
+package com.example.services.outbox;
+
+import org.springframework.stereotype.Component;
+
+import com.example.models.OutboxEvent;
+import com.example.services.NotificationService;
+
+/**
+ * Writes a user notification recorded with OutboxService.notifyUser. The aggregate is the
+ * user and the payload the message.
+ */
+@Component
+public class NotificationOutboxHandler implements OutboxHandler {
+
+    private final NotificationService notificationService;
+
+    public NotificationOutboxHandler(NotificationService notificationService) {
+        this.notificationService = notificationService;
+    }
+
+    @Override
+    public String eventType() {
+        return OutboxService.NOTIFICATION;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        notificationService.createNotification(event.getAggregateId(), event.getPayload());
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.services.outbox;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.events.OutboxEventRecordedEvent;
+import com.example.models.OutboxEvent;
+import com.example.repositories.OutboxEventRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs outbox events on a small executor of its own, so slow external calls hold
+ * neither request threads nor pooled DB connections while they wait.
+ *
+ * New events are started right after their transaction commits; a poll picks up the
+ * ones that could not be queued, are due for a retry, or were claimed by an instance that
+ * died. Claims are conditional updates, so several instances can share the table. The
+ * outcome of a run is recorded only while its claim is still held: a run that outlived its
+ * claim, and whose event was claimed and run again meanwhile, leaves the bookkeeping to the
+ * newer run.
+ * Failures retry with exponential backoff until MAX_ATTEMPTS, then the event is failed.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final int THREADS = 4;
+    private static final int QUEUE_CAPACITY = 200;
+    private static final int MAX_ATTEMPTS = 8;
+    private static final Duration CLAIM_TIMEOUT = Duration.ofMinutes(2);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(10);
+
+    private final OutboxEventRepository outboxEventRepository;
+    // onRecorded runs after the recording transaction committed but while it is still bound to
+    // the thread; a claim joining it would never be committed
+    private final TransactionTemplate newTransaction;
+    private final Map<String, OutboxHandler> handlers = new HashMap<>();
+    private final ThreadPoolExecutor executor;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository, List<OutboxHandler> handlers,
+                            PlatformTransactionManager transactionManager) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (OutboxHandler handler : handlers) {
+            this.handlers.put(handler.eventType(), handler);
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(THREADS, THREADS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "outbox-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecorded(OutboxEventRecordedEvent event) {
+        submit(event.outboxEventId());
+    }
+
+    @Scheduled(initialDelay = 5_000, fixedDelay = 2_000)
+    public void poll() {
+        int capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        List<Long> due = outboxEventRepository.findDueIds(LocalDateTime.now(), PageRequest.of(0, capacity));
+        for (Long id : due) {
+            if (!submit(id)) {
+                break;
+            }
+        }
+    }
+
+    // False when the executor is full; the event is left for a later poll
+    private boolean submit(Long id) {
+        LocalDateTime now = LocalDateTime.now();
+        // The claim identifies this run, so it must compare equal once stored (DATETIME(6))
+        LocalDateTime claimedUntil = now.plus(CLAIM_TIMEOUT).truncatedTo(ChronoUnit.MICROS);
+        Integer claimed = newTransaction.execute(status -> outboxEventRepository.claim(id, now, claimedUntil));
+        if (claimed == null || claimed == 0) {
+            return true;
+        }
+        try {
+            executor.execute(() -> dispatch(id, claimedUntil));
+            return true;
+        } catch (RejectedExecutionException e) {
+            newTransaction.executeWithoutResult(status -> outboxEventRepository.release(id, LocalDateTime.now()));
+            return false;
+        }
+    }
+
+    private void dispatch(Long id, LocalDateTime claimedUntil) {
+        OutboxEvent event = outboxEventRepository.findById(id).orElse(null);
+        if (event == null || event.getStatus() != OutboxEvent.Status.PROCESSING
+                || !claimedUntil.equals(event.getNextAttemptAt())) {
+            return;
+        }
+        OutboxHandler handler = handlers.get(event.getEventType());
+        try {
+            if (handler == null) {
+                throw new IllegalStateException("No outbox handler for " + event.getEventType());
+            }
+            handler.handle(event);
+            if (outboxEventRepository.complete(id, claimedUntil, LocalDateTime.now()) == 0) {
+                logger.warn("Outbox event {} ({}) finished after its claim lapsed", id, event.getEventType());
+            }
+        } catch (Exception e) {
+            int attempts = event.getAttempts() + 1;
+            String lastError = abbreviate(e.toString());
+            if (attempts >= MAX_ATTEMPTS) {
+                if (outboxEventRepository.fail(id, claimedUntil, attempts, lastError, LocalDateTime.now()) == 0) {
+                    logger.warn("Outbox event {} ({}) failed after its claim lapsed: {}", id, event.getEventType(), e.toString());
+                    return;
+                }
+                logger.error("Outbox event {} ({}) failed after {} attempts", id, event.getEventType(), attempts, e);
+                if (handler != null) {
+                    giveUp(handler, event);
+                }
+            } else {
+                LocalDateTime nextAttemptAt = LocalDateTime.now().plus(backoff(attempts));
+                if (outboxEventRepository.retry(id, claimedUntil, attempts, lastError, nextAttemptAt) == 0) {
+                    logger.warn("Outbox event {} ({}) failed after its claim lapsed: {}", id, event.getEventType(), e.toString());
+                    return;
+                }
+                logger.warn("Outbox event {} ({}) attempt {} failed, retrying: {}", id, event.getEventType(),
+                        attempts, e.toString());
+            }
+        }
+    }
+
+    private static void giveUp(OutboxHandler handler, OutboxEvent event) {
+        try {
+            handler.onGiveUp(event);
+        } catch (RuntimeException e) {
+            logger.error("Outbox event {} give-up handling failed", event.getId(), e);
+        }
+    }
+
+    // 2s, 4s, 8s ... capped at MAX_BACKOFF
+    private static Duration backoff(int attempts) {
+        Duration delay = Duration.ofSeconds(1L << Math.min(attempts, 20));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    private static String abbreviate(String message) {
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Unfinished events keep their claim and are picked up again once it lapses
+        executor.shutdown();
+    }
+}
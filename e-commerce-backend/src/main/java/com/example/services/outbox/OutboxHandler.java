@@ -0,0 +1,24 @@
+package com.example.services.outbox;
+
+import com.example.models.OutboxEvent;
+
+/**
+ * Carries out one type of outbox event. Runs on the dispatcher's threads, outside any
+ * transaction, and may run more than once for the same event (after a crash, or when the
+ * outcome could not be recorded), so handling must be idempotent.
+ */
+public interface OutboxHandler {
+
+    String eventType();
+
+    /**
+     * Throwing schedules a retry with backoff.
+     */
+    void handle(OutboxEvent event) throws Exception;
+
+    /**
+     * Called once when the event has used up its attempts and is marked failed.
+     */
+    default void onGiveUp(OutboxEvent event) {
+    }
+}
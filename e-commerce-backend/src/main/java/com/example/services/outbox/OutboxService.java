@@ -0,0 +1,71 @@
+package com.example.services.outbox;
+
+import java.time.LocalDateTime;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.events.OutboxEventRecordedEvent;
+import com.example.models.OutboxEvent;
+import com.example.repositories.OutboxEventRepository;
+
+/**
+ * Records outbox events as part of the caller's transaction, so the work is done if and
+ * only if the write that asked for it commits.
+ */
+@Service
+public class OutboxService {
+
+    public static final String PAYMENT_INTENT = "PAYMENT_INTENT";
+    public static final String NOTIFICATION = "NOTIFICATION";
+    public static final String CANCEL_PAYMENT_INTENT = "CANCEL_PAYMENT_INTENT";
+    public static final String REFUND_PAYMENT = "REFUND_PAYMENT";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, ApplicationEventPublisher eventPublisher) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent record(String eventType, Long aggregateId, String payload) {
+        LocalDateTime now = LocalDateTime.now();
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        event.setAggregateId(aggregateId);
+        event.setPayload(payload);
+        event.setStatus(OutboxEvent.Status.PENDING);
+        event.setNextAttemptAt(now);
+        event.setCreatedAt(now);
+        OutboxEvent saved = outboxEventRepository.save(event);
+        eventPublisher.publishEvent(new OutboxEventRecordedEvent(saved.getId()));
+        return saved;
+    }
+
+    // Creates the PaymentIntent of the order once it has committed
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void requestPaymentIntent(Long orderId) {
+        record(PAYMENT_INTENT, orderId, null);
+    }
+
+    // Cancels an unpaid PaymentIntent of the order once the cancellation has committed
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void cancelPaymentIntent(Long orderId, String paymentIntentId) {
+        record(CANCEL_PAYMENT_INTENT, orderId, paymentIntentId);
+    }
+
+    // Refunds a charge of the order in full once the transaction that rejected it commits
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refundPayment(Long orderId, String chargeId) {
+        record(REFUND_PAYMENT, orderId, chargeId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void notifyUser(Long userId, String message) {
+        record(NOTIFICATION, userId, message);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.services.outbox;
+
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.stereotype.Component;
+
+import com.example.models.OutboxEvent;
+import com.example.services.OrderService;
+import com.example.services.StripeService;
+
+/**
+ * Creates the PaymentIntent of a newly placed order. The Stripe call runs between two short
+ * transactions, so no connection is held while it waits. The idempotency key is derived from
+ * the order, so a retry after an unrecorded success gets the same intent back from Stripe.
+ * An intent created for an order that was cancelled in the meantime is cancelled again.
+ */
+@Component
+public class PaymentIntentOutboxHandler implements OutboxHandler {
+
+    private final OrderService orderService;
+    private final StripeService stripeService;
+
+    public PaymentIntentOutboxHandler(OrderService orderService, StripeService stripeService) {
+        this.orderService = orderService;
+        this.stripeService = stripeService;
+    }
+
+    @Override
+    public String eventType() {
+        return OutboxService.PAYMENT_INTENT;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) throws Exception {
+        Long orderId = event.getAggregateId();
+        Optional<OrderService.PaymentIntentRequest> request = orderService.preparePaymentIntent(orderId);
+        if (request.isEmpty()) {
+            return;
+        }
+        Map<String, String> paymentIntent = stripeService.createPaymentIntent(request.get().customerId(),
+                request.get().amountInCents(), "usd", "order-" + orderId + "-payment-intent");
+        String paymentIntentId = paymentIntent.get("paymentIntentId");
+        if (!orderService.attachPaymentIntent(orderId, paymentIntentId, paymentIntent.get("clientSecret"))) {
+            // Cancelled while the intent was being created
+            stripeService.cancelPaymentIntent(paymentIntentId);
+        }
+    }
+
+    @Override
+    public void onGiveUp(OutboxEvent event) {
+        orderService.failPaymentIntent(event.getAggregateId());
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.services.outbox;
+
+import org.springframework.stereotype.Component;
+
+import com.example.models.OutboxEvent;
+import com.example.services.StripeService;
+
+/**
+ * Refunds in full a charge that can no longer be fulfilled: a payment that arrived after its
+ * order was cancelled, or an item paid before the rest of its order was cancelled. The
+ * aggregate is the order and the payload the charge ID.
+ */
+@Component
+public class RefundPaymentOutboxHandler implements OutboxHandler {
+
+    private final StripeService stripeService;
+
+    public RefundPaymentOutboxHandler(StripeService stripeService) {
+        this.stripeService = stripeService;
+    }
+
+    @Override
+    public String eventType() {
+        return OutboxService.REFUND_PAYMENT;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) throws Exception {
+        stripeService.refundCharge(event.getPayload(), "order-" + event.getAggregateId() + "-refund-" + event.getPayload());
+    }
+}
@@ -0,0 +1,27 @@
+-- Denormalized product rows served by the product read endpoints.
+-- Filled by ProductReadModelService on startup when its row count differs from products,
+-- then kept in sync by the product, store, category and user services.
+CREATE TABLE IF NOT EXISTS product_read_model (
+    product_id BIGINT NOT NULL PRIMARY KEY,
+    title VARCHAR(80) NOT NULL,
+    description TEXT,
+    price DECIMAL(10, 2) NOT NULL,
+    stock_quantity INT NOT NULL,
+    average_rating FLOAT,
+    free_shipping BOOLEAN NOT NULL,
+    fast_delivery BOOLEAN NOT NULL,
+    category_id INT,
+    category_name VARCHAR(120),
+    category_slug VARCHAR(150),
+    store_id BIGINT,
+    store_name VARCHAR(20),
+    seller_id BIGINT,
+    seller_name VARCHAR(255),
+    image_urls JSON,
+    created_at DATETIME(6),
+    updated_at DATETIME(6)
+);
+
+CREATE INDEX idx_prm_category ON product_read_model(category_id);
+CREATE INDEX idx_prm_store ON product_read_model(store_id);
+CREATE INDEX idx_prm_seller ON product_read_model(seller_id);
@@ -0,0 +1,5 @@
+-- Time of the last write to each read row, from any source (product, store, category or
+-- seller change). The conditional GET validators are derived from it.
+ALTER TABLE product_read_model ADD COLUMN refreshed_at DATETIME(6);
+
+UPDATE product_read_model SET refreshed_at = COALESCE(updated_at, created_at, CURRENT_TIMESTAMP);
@@ -0,0 +1,3 @@
+-- Client secret of each item's PaymentIntent, kept from the create call so that reading
+-- an order never has to retrieve the intent from Stripe again.
+ALTER TABLE order_items ADD COLUMN stripe_client_secret VARCHAR(255);
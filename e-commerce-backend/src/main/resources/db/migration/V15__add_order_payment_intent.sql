@@ -0,0 +1,6 @@
+-- Orders are paid with one PaymentIntent for the order total. The item columns keep
+-- serving orders placed with one intent per item.
+ALTER TABLE orders ADD COLUMN stripe_payment_intent_id VARCHAR(255);
+ALTER TABLE orders ADD COLUMN stripe_client_secret VARCHAR(255);
+
+CREATE UNIQUE INDEX idx_orders_stripe_payment_intent_id ON orders (stripe_payment_intent_id);
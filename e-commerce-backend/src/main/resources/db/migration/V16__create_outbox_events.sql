@@ -0,0 +1,26 @@
+-- Work an order write hands off to run after its transaction commits (creating the
+-- PaymentIntent, writing notifications). Rows are inserted in the same transaction as
+-- the order and processed by OutboxDispatcher, with retries.
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    payload TEXT,
+    status VARCHAR(20) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME(6) NOT NULL,
+    last_error VARCHAR(1000),
+    created_at DATETIME(6) NOT NULL,
+    processed_at DATETIME(6)
+);
+
+CREATE INDEX idx_outbox_status_next_attempt ON outbox_events (status, next_attempt_at);
+
+-- Where the order is in getting paid, alongside its fulfilment status
+ALTER TABLE orders ADD COLUMN payment_status VARCHAR(30);
+
+UPDATE orders SET payment_status = CASE
+    WHEN stripe_charge_id IS NOT NULL THEN 'paid'
+    WHEN status = 'cancelled' THEN 'failed'
+    ELSE 'awaiting_payment'
+END;
@@ -0,0 +1,17 @@
+-- Units taken from products.stock_quantity for an order, until the order is paid
+-- (COMMITTED) or given up (RELEASED: cancelled, payment failed, or expired unpaid, in
+-- which case the units are put back).
+CREATE TABLE IF NOT EXISTS stock_reservations (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    order_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    resolved_at DATETIME(6),
+    CONSTRAINT fk_stock_reservations_order FOREIGN KEY (order_id) REFERENCES orders (order_id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_stock_reservations_order ON stock_reservations (order_id, status);
+CREATE INDEX idx_stock_reservations_expiry ON stock_reservations (status, expires_at);
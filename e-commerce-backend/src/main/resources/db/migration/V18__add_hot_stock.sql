@@ -0,0 +1,24 @@
+-- Hot products are sold from in-memory counters. Each instance takes blocks of units
+-- from the product (hot_allocated, with one row per instance in hot_stock_allocations).
+-- Units sold from a block are written back to stock_quantity in periodic batches.
+-- stock_quantity - hot_allocated is what is left for everybody else.
+ALTER TABLE products ADD COLUMN hot_stock BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE products ADD COLUMN hot_allocated INT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS hot_stock_allocations (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    instance_id VARCHAR(100) NOT NULL,
+    product_id BIGINT NOT NULL,
+    allocated INT NOT NULL,
+    heartbeat_at DATETIME(6) NOT NULL,
+    CONSTRAINT uk_hot_stock_allocations_instance_product UNIQUE (instance_id, product_id)
+);
+
+CREATE INDEX idx_hot_stock_allocations_heartbeat ON hot_stock_allocations (heartbeat_at);
+
+-- Reservations served from an instance's block: stock_flushed turns true once their
+-- units have been written back to stock_quantity.
+ALTER TABLE stock_reservations ADD COLUMN hot_instance_id VARCHAR(100);
+ALTER TABLE stock_reservations ADD COLUMN stock_flushed BOOLEAN NOT NULL DEFAULT TRUE;
+
+CREATE INDEX idx_stock_reservations_unflushed ON stock_reservations (hot_instance_id, stock_flushed);
@@ -0,0 +1,19 @@
+-- Idempotency-Key requests per user: IN_PROGRESS while the first request runs (until
+-- locked_until), then COMPLETED with the response that duplicates are given back.
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    owner VARCHAR(255) NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash CHAR(64) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    response_status INT,
+    response_content_type VARCHAR(255),
+    response_location VARCHAR(512),
+    response_body TEXT,
+    created_at DATETIME(6) NOT NULL,
+    locked_until DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    CONSTRAINT uk_idempotency_keys_owner_key UNIQUE (owner, idempotency_key)
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
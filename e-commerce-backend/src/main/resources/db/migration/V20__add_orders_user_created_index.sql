@@ -0,0 +1,2 @@
+-- Order history pages: a customer's orders, newest first
+CREATE INDEX idx_orders_user_created ON orders (user_id, created_at, order_id);
@@ -0,0 +1,23 @@
+-- An order's amounts are priced once when it is placed (OrderPricing) and read from here
+-- afterwards, instead of being summed from its items on every read.
+ALTER TABLE orders ADD COLUMN subtotal DECIMAL(10,2) NOT NULL DEFAULT 0;
+ALTER TABLE orders ADD COLUMN tax DECIMAL(10,2) NOT NULL DEFAULT 0;
+ALTER TABLE orders ADD COLUMN shipping_cost DECIMAL(10,2) NOT NULL DEFAULT 0;
+ALTER TABLE orders ADD COLUMN total_amount DECIMAL(10,2) NOT NULL DEFAULT 0;
+ALTER TABLE orders ADD COLUMN item_count INT NOT NULL DEFAULT 0;
+
+-- Existing orders, priced with the rules they were shown with: 8% tax on the subtotal and
+-- a flat 10 shipping unless the subtotal is over 100
+UPDATE orders o
+JOIN (
+    SELECT order_id, SUM(price_at_purchase * quantity) AS subtotal, SUM(quantity) AS item_count
+    FROM order_items
+    GROUP BY order_id
+) i ON i.order_id = o.order_id
+SET o.subtotal = i.subtotal, o.item_count = i.item_count;
+
+UPDATE orders
+SET shipping_cost = CASE WHEN subtotal > 100 THEN 0 ELSE 10 END,
+    tax = ROUND(subtotal * 0.08, 2);
+
+UPDATE orders SET total_amount = subtotal + shipping_cost + tax;
@@ -0,0 +1,19 @@
+-- Number of orders and their stored totals per status, changed in the same transaction as
+-- every status change so that order statistics are read without counting orders. Each
+-- status is spread over several slot rows, so concurrent checkouts do not all wait on one
+-- row lock; a status's figures are the sum of its slots. See OrderStatusCounters.
+CREATE TABLE IF NOT EXISTS order_status_counts (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    status VARCHAR(50) NOT NULL,
+    slot INT NOT NULL,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(14,2) NOT NULL DEFAULT 0,
+    CONSTRAINT uk_order_status_counts_status_slot UNIQUE (status, slot)
+);
+
+-- Existing orders go to slot 0; the other slots are created at startup
+INSERT INTO order_status_counts (status, slot, order_count, total_amount)
+SELECT status, 0, COUNT(*), COALESCE(SUM(total_amount), 0)
+FROM orders
+WHERE status IS NOT NULL
+GROUP BY status;
@@ -0,0 +1,40 @@
+-- Admin order search filters on these instead of joining each order's customer, items,
+-- products and stores. They are written when the order is placed; product and store
+-- names are lowercased and newline-separated, as they were at the time of purchase.
+ALTER TABLE orders ADD COLUMN customer_email VARCHAR(70);
+ALTER TABLE orders ADD COLUMN product_names VARCHAR(2000);
+ALTER TABLE orders ADD COLUMN store_names VARCHAR(500);
+
+CREATE TABLE IF NOT EXISTS order_stores (
+    order_id BIGINT NOT NULL,
+    store_id BIGINT NOT NULL,
+    PRIMARY KEY (order_id, store_id),
+    CONSTRAINT fk_order_stores_order FOREIGN KEY (order_id) REFERENCES orders (order_id) ON DELETE CASCADE
+);
+
+UPDATE orders o JOIN users u ON u.user_id = o.user_id SET o.customer_email = u.email;
+
+SET SESSION group_concat_max_len = 65535;
+
+UPDATE orders o
+JOIN (
+    SELECT oi.order_id,
+           LEFT(LOWER(GROUP_CONCAT(DISTINCT p.name ORDER BY p.name SEPARATOR '\n')), 2000) AS product_names,
+           LEFT(LOWER(GROUP_CONCAT(DISTINCT s.store_name ORDER BY s.store_name SEPARATOR '\n')), 500) AS store_names
+    FROM order_items oi
+    JOIN products p ON p.product_id = oi.product_id
+    JOIN stores s ON s.store_id = p.store_id
+    GROUP BY oi.order_id
+) n ON n.order_id = o.order_id
+SET o.product_names = n.product_names, o.store_names = n.store_names;
+
+INSERT INTO order_stores (order_id, store_id)
+SELECT DISTINCT oi.order_id, p.store_id
+FROM order_items oi
+JOIN products p ON p.product_id = oi.product_id;
+
+-- Every search is newest first; each filter with its own index keeps that order
+CREATE INDEX idx_orders_created ON orders (created_at, order_id);
+CREATE INDEX idx_orders_status_created ON orders (status, created_at, order_id);
+CREATE INDEX idx_orders_customer_email_created ON orders (customer_email, created_at, order_id);
+CREATE INDEX idx_order_stores_store ON order_stores (store_id, order_id);
@@ -0,0 +1,42 @@
+-- The admin order search matched product and store names with LIKE '%x%', which scans
+-- every order. The words of those names now go in a table of their own, indexed by word,
+-- so a search word is an index range scan: each word typed must start a word of a name.
+CREATE TABLE IF NOT EXISTS order_product_terms (
+    order_id BIGINT NOT NULL,
+    term VARCHAR(100) NOT NULL,
+    PRIMARY KEY (order_id, term),
+    CONSTRAINT fk_order_product_terms_order FOREIGN KEY (order_id) REFERENCES orders (order_id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS order_store_terms (
+    order_id BIGINT NOT NULL,
+    term VARCHAR(100) NOT NULL,
+    PRIMARY KEY (order_id, term),
+    CONSTRAINT fk_order_store_terms_order FOREIGN KEY (order_id) REFERENCES orders (order_id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_order_product_terms_term ON order_product_terms (term, order_id);
+CREATE INDEX idx_order_store_terms_term ON order_store_terms (term, order_id);
+
+-- Existing orders: split the lowercased names written by V23 on anything that is not a
+-- letter or digit, the way the application tokenizes them
+INSERT IGNORE INTO order_product_terms (order_id, term)
+SELECT o.order_id, LEFT(t.term, 100)
+FROM orders o
+JOIN JSON_TABLE(
+    CONCAT('["', REGEXP_REPLACE(o.product_names, '[^[:alnum:]]+', '","'), '"]'),
+    '$[*]' COLUMNS (term VARCHAR(2000) PATH '$')
+) t
+WHERE o.product_names IS NOT NULL AND t.term <> '';
+
+INSERT IGNORE INTO order_store_terms (order_id, term)
+SELECT o.order_id, LEFT(t.term, 100)
+FROM orders o
+JOIN JSON_TABLE(
+    CONCAT('["', REGEXP_REPLACE(o.store_names, '[^[:alnum:]]+', '","'), '"]'),
+    '$[*]' COLUMNS (term VARCHAR(500) PATH '$')
+) t
+WHERE o.store_names IS NOT NULL AND t.term <> '';
+
+ALTER TABLE orders DROP COLUMN product_names;
+ALTER TABLE orders DROP COLUMN store_names;
@@ -0,0 +1,151 @@
+package com.example.e_commerce_backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.example.DTO.OrderDTO;
+import com.example.DTO.admin.AdminOrderDTO;
+import com.example.models.Address;
+import com.example.models.Product;
+import com.example.models.Store;
+import com.example.models.User;
+import com.example.repositories.OrderRepository;
+import com.example.services.OrderPricing;
+import com.example.services.OrderService;
+import com.example.services.OrderStatusCounters;
+import com.example.services.StockReservationService;
+import com.example.services.StripeService;
+import com.example.services.outbox.OutboxService;
+
+/**
+ * Orders placed through OrderService carry what the admin search filters on: the customer's
+ * email, the stores of their items and the words of the product and store names.
+ */
+@DataJpaTest(properties = "spring.sql.init.mode=never")
+class AdminOrderSearchTests {
+
+    @Configuration
+    @EntityScan("com.example.models")
+    @EnableJpaRepositories(basePackageClasses = OrderRepository.class)
+    @Import({OrderService.class, OrderPricing.class})
+    static class Config {
+    }
+
+    @MockitoBean
+    private StripeService stripeService;
+    @MockitoBean
+    private OutboxService outboxService;
+    @MockitoBean
+    private StockReservationService stockReservationService;
+    @MockitoBean
+    private OrderStatusCounters orderStatusCounters;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Store bookStore;
+    private Product novel;
+
+    @BeforeEach
+    void setUp() {
+        User alice = entityManager.persist(TestData.user("alice@example.com", User.Role.customer));
+        User bob = entityManager.persist(TestData.user("bob@example.com", User.Role.customer));
+        User bookSeller = entityManager.persist(TestData.user("books@example.com", User.Role.seller));
+        bookStore = entityManager.persist(TestData.store(bookSeller, "Book Nook"));
+        User gadgetSeller = entityManager.persist(TestData.user("gadgets@example.com", User.Role.seller));
+        Store gadgetStore = entityManager.persist(TestData.store(gadgetSeller, "Gadget Hub"));
+        novel = entityManager.persist(TestData.product(bookStore, "Mystery Novel", 5));
+        Product phone = entityManager.persist(TestData.product(gadgetStore, "Smart Phone", 5));
+
+        placeOrder(alice, novel);
+        placeOrder(alice, phone);
+        placeOrder(bob, novel, phone);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void filtersOnTheColumnsWrittenAtCheckout() {
+        AdminOrderDTO.AdminOrderFilterRequest byEmail = new AdminOrderDTO.AdminOrderFilterRequest();
+        byEmail.setCustomerEmail("alice@example.com");
+        assertThat(search(byEmail).getTotalElements()).isEqualTo(2);
+
+        AdminOrderDTO.AdminOrderFilterRequest byStore = new AdminOrderDTO.AdminOrderFilterRequest();
+        byStore.setStoreId(bookStore.getId());
+        assertThat(search(byStore).getTotalElements()).isEqualTo(2);
+
+        AdminOrderDTO.AdminOrderFilterRequest byProduct = new AdminOrderDTO.AdminOrderFilterRequest();
+        byProduct.setProductId(novel.getId());
+        byProduct.setCustomerEmail("bob@example.com");
+        // Listed with the stored item count; the items themselves are not loaded
+        assertThat(search(byProduct).getContent()).singleElement()
+                .satisfies(order -> {
+                    assertThat(order.getItemCount()).isEqualTo(2);
+                    assertThat(order.getItems()).isNull();
+                    assertThat(orderService.findAdminOrder(Long.valueOf(order.getId())).getItems()).hasSize(2);
+                });
+
+        AdminOrderDTO.AdminOrderFilterRequest byNames = new AdminOrderDTO.AdminOrderFilterRequest();
+        byNames.setProductName("PHONE");
+        byNames.setStoreName("gadget");
+        assertThat(search(byNames).getTotalElements()).isEqualTo(2);
+
+        // Each word is matched against the start of the words in the names
+        AdminOrderDTO.AdminOrderFilterRequest byWordPrefixes = new AdminOrderDTO.AdminOrderFilterRequest();
+        byWordPrefixes.setProductName("Novel, myst");
+        assertThat(search(byWordPrefixes).getTotalElements()).isEqualTo(2);
+        byWordPrefixes.setProductName("ovel");
+        assertThat(search(byWordPrefixes).getTotalElements()).isZero();
+
+        AdminOrderDTO.AdminOrderFilterRequest noMatch = new AdminOrderDTO.AdminOrderFilterRequest();
+        noMatch.setCustomerEmail("nobody@example.com");
+        assertThat(search(noMatch).getTotalElements()).isZero();
+    }
+
+    @Test
+    void listsNewestFirst() {
+        Map<String, Object> response = orderService.findAllAdminOrders(new AdminOrderDTO.AdminOrderFilterRequest(), 0, 10);
+
+        assertThat(response.get("totalItems")).isEqualTo(3L);
+        @SuppressWarnings("unchecked")
+        List<OrderDTO.OrderResponse> orders = (List<OrderDTO.OrderResponse>) response.get("orders");
+        assertThat(orders).extracting(order -> Long.valueOf(order.getId()))
+                .isSortedAccordingTo((a, b) -> b.compareTo(a));
+    }
+
+    private Page<OrderDTO.OrderResponse> search(AdminOrderDTO.AdminOrderFilterRequest filter) {
+        return orderService.findAllAdminOrders(filter, PageRequest.of(0, 10));
+    }
+
+    private void placeOrder(User customer, Product... products) {
+        Address address = entityManager.persist(TestData.address(customer));
+
+        OrderDTO.CreateOrderRequest request = new OrderDTO.CreateOrderRequest();
+        request.setShippingAddressId(address.getId());
+        request.setItems(Arrays.stream(products).map(product -> {
+            OrderDTO.OrderItemDTO item = new OrderDTO.OrderItemDTO();
+            item.setProductId(product.getId());
+            item.setQuantity(1);
+            return item;
+        }).toList());
+        orderService.createOrderForUser(customer.getId(), request);
+    }
+}
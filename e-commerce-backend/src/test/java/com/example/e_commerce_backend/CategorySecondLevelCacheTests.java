@@ -0,0 +1,95 @@
+package com.example.e_commerce_backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.config.HibernateCacheConfig;
+import com.example.models.Category;
+import com.example.repositories.CategoryRepository;
+import com.example.services.CategoryService;
+import com.example.services.CategoryTreeCache;
+import com.example.services.ProductFacetIndex;
+import com.example.services.ProductReadModelService;
+import com.example.services.ProductSearchIndex;
+import com.example.services.SubCategoryRelationService;
+import com.example.services.SuggestionIndex;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Repeated slug lookups are answered from the query cache and the Category region.
+ * Test transactions are off so that each call runs in its own session, as requests do.
+ */
+@DataJpaTest(properties = "spring.sql.init.mode=never")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CategorySecondLevelCacheTests {
+
+    // Replaces the application class, whose plain @ComponentScan would pull every bean into the slice
+    @Configuration
+    @EntityScan("com.example.models")
+    @EnableJpaRepositories(basePackageClasses = CategoryRepository.class)
+    @Import({HibernateCacheConfig.class, CategoryService.class})
+    static class Config {
+    }
+
+    @MockitoBean
+    private SubCategoryRelationService subCategoryRelationService;
+    @MockitoBean
+    private SuggestionIndex suggestionIndex;
+    @MockitoBean
+    private ProductReadModelService productReadModelService;
+    @MockitoBean
+    private CategoryTreeCache categoryTreeCache;
+    @MockitoBean
+    private ProductSearchIndex productSearchIndex;
+    @MockitoBean
+    private ProductFacetIndex productFacetIndex;
+
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void cleanUp() {
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    void repeatedFindBySlugIssuesNoSql() {
+        Category category = new Category();
+        category.setName("Garden Tools");
+        category.setSlug("garden-tools");
+        categoryRepository.save(category);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        assertThat(categoryService.findBySlug("garden-tools")).isPresent();
+
+        statistics.clear();
+        for (int i = 0; i < 5; i++) {
+            assertThat(categoryService.findBySlug("garden-tools"))
+                    .get()
+                    .extracting(Category::getName)
+                    .isEqualTo("Garden Tools");
+        }
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(5);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(5);
+    }
+}
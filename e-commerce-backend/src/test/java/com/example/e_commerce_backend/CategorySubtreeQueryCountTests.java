@@ -0,0 +1,173 @@
+package com.example.e_commerce_backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.example.models.Category;
+import com.example.models.Product;
+import com.example.models.Store;
+import com.example.models.SubCategoryRelation;
+import com.example.models.User;
+import com.example.repositories.CategoryRepository;
+import com.example.repositories.ProductRepository;
+import com.example.services.CategoryService;
+import com.example.services.CategoryTreeCache;
+import com.example.services.ProductFacetIndex;
+import com.example.services.ProductReadModelService;
+import com.example.services.ProductSearchIndex;
+import com.example.services.SubCategoryRelationService;
+import com.example.services.SuggestionIndex;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Subtree lookups read the sub_category_relations closure table in a single statement,
+ * whatever the depth or size of the subtree. The tree is five levels deep; as in the seed
+ * data, the closure table has no depth 0 rows.
+ */
+@DataJpaTest(properties = {
+    "spring.sql.init.mode=never",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class CategorySubtreeQueryCountTests {
+
+    private static final int LEVELS = 5;
+    private static final int CHILDREN = 4;
+
+    @Configuration
+    @EntityScan("com.example.models")
+    @EnableJpaRepositories(basePackageClasses = CategoryRepository.class)
+    @Import(CategoryService.class)
+    static class Config {
+    }
+
+    @MockitoBean
+    private SubCategoryRelationService subCategoryRelationService;
+    @MockitoBean
+    private SuggestionIndex suggestionIndex;
+    @MockitoBean
+    private ProductReadModelService productReadModelService;
+    @MockitoBean
+    private CategoryTreeCache categoryTreeCache;
+    @MockitoBean
+    private ProductSearchIndex productSearchIndex;
+    @MockitoBean
+    private ProductFacetIndex productFacetIndex;
+
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Category> all = new ArrayList<>();
+    private Statistics statistics;
+    private Category branch;
+    private Long hoseInBranch;
+
+    @BeforeEach
+    void setUp() {
+        Category root = persistSubtree(null, "c", 1);
+        branch = root.getSubcategories().get(1);
+
+        User seller = entityManager.persist(TestData.user("seller@example.com", User.Role.seller));
+        Store store = entityManager.persist(TestData.store(seller, "Garden Store"));
+        hoseInBranch = persistProduct(store, "Garden Hose", deepestLeaf(branch)).getId();
+        persistProduct(store, "Garden Hose", deepestLeaf(root.getSubcategories().get(0)));
+        persistProduct(store, "Rake", deepestLeaf(branch));
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void wholeTreeInOneStatement() {
+        Set<Integer> ids = categoryService.getAllDescendantIds("c");
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(ids).hasSize(all.size());
+    }
+
+    @Test
+    void branchInOneStatement() {
+        Set<Integer> ids = categoryService.getAllDescendantIds(branch.getSlug());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(ids).containsExactlyInAnyOrderElementsOf(subtreeIds(branch));
+    }
+
+    @Test
+    void keywordSearchReachesTheDeepestLevel() {
+        List<Long> ids = productRepository.searchIdsByCategoryAndKeyword(branch.getSlug(), "hose");
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(ids).containsExactly(hoseInBranch);
+    }
+
+    // Persists the node, its descendants and every ancestor/descendant pair below depth 0
+    private Category persistSubtree(Category parent, String slug, int level) {
+        Category category = new Category();
+        category.setName("Category " + slug);
+        category.setSlug(slug);
+        category.setParentCategory(parent);
+        entityManager.persist(category);
+        all.add(category);
+        int depth = 1;
+        for (Category ancestor = parent; ancestor != null; ancestor = ancestor.getParentCategory()) {
+            entityManager.persist(new SubCategoryRelation(ancestor, category, depth++));
+        }
+        if (parent != null) {
+            parent.getSubcategories().add(category);
+        }
+        if (level < LEVELS) {
+            for (int i = 0; i < CHILDREN; i++) {
+                persistSubtree(category, slug + "-" + i, level + 1);
+            }
+        }
+        return category;
+    }
+
+    private static Category deepestLeaf(Category category) {
+        while (!category.getSubcategories().isEmpty()) {
+            category = category.getSubcategories().get(category.getSubcategories().size() - 1);
+        }
+        return category;
+    }
+
+    private static Set<Integer> subtreeIds(Category category) {
+        Set<Integer> ids = new HashSet<>();
+        ids.add(category.getId());
+        for (Category child : category.getSubcategories()) {
+            ids.addAll(subtreeIds(child));
+        }
+        return ids;
+    }
+
+    private Product persistProduct(Store store, String name, Category category) {
+        Product product = TestData.product(store, name, 5);
+        product.setCategory(category);
+        return entityManager.persist(product);
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.e_commerce_backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.exceptions.InsufficientStockException;
+import com.example.models.Product;
+import com.example.models.StockReservation;
+import com.example.models.Store;
+import com.example.models.User;
+import com.example.repositories.HotStockAllocationRepository;
+import com.example.repositories.ProductRepository;
+import com.example.repositories.StockReservationRepository;
+import com.example.repositories.StoreRepository;
+import com.example.repositories.UserRepository;
+import com.example.services.HotStockInventory;
+import com.example.services.ProductReadModelService;
+import com.example.services.StockReservationService;
+
+/**
+ * Hot products sold from in-memory blocks never sell more than are in stock: not under
+ * concurrent checkouts, not after a restart, and not after peers reclaimed the blocks of an
+ * instance that is still running. Each inventory is built by hand so a test can run several
+ * instances, or a restarted one, side by side. Test transactions are off as in
+ * StockReservationConcurrencyTests.
+ */
+@DataJpaTest(properties = "spring.sql.init.mode=never")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HotStockInventoryTests {
+
+    private static final String INSTANCE = "instance-a";
+    private static final int BLOCK_SIZE = 3;
+
+    @Configuration
+    @EntityScan("com.example.models")
+    @EnableJpaRepositories(basePackageClasses = StockReservationRepository.class)
+    static class Config {
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+    @Autowired
+    private HotStockAllocationRepository allocationRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ProductReadModelService readModelService = mock(ProductReadModelService.class);
+    private TransactionTemplate transaction;
+    private Store store;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        User seller = userRepository.save(TestData.user("seller@example.com", User.Role.seller));
+        store = storeRepository.save(TestData.store(seller, "Test Store"));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        stockReservationRepository.deleteAll();
+        allocationRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentHotCheckoutsNeverOversell() throws Exception {
+        Long productId = persistHotProduct(20).getId();
+        HotStockInventory inventory = startInventory(INSTANCE);
+        StockReservationService reservations = reservationService(inventory);
+
+        int buyers = 40;
+        // Each buyer holds a connection and a refill takes a second one: stay under the pool size
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < buyers; i++) {
+            long orderId = i + 1;
+            Callable<Object> checkout = () -> {
+                start.await();
+                try {
+                    transaction.executeWithoutResult(status -> reservations.reserve(orderId, Map.of(productId, 1)));
+                    sold.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    refused.incrementAndGet();
+                }
+                return null;
+            };
+            results.add(pool.submit(checkout));
+        }
+        start.countDown();
+        for (Future<Object> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        inventory.flush();
+
+        assertThat(sold.get()).isEqualTo(20);
+        assertThat(refused.get()).isEqualTo(buyers - 20);
+        assertThat(stockQuantity(productId)).isZero();
+        assertThat(hotAllocated(productId)).isZero();
+        assertThat(stockReservationRepository.findAll())
+                .hasSize(20)
+                .allSatisfy(reservation -> assertThat(reservation.isStockFlushed()).isTrue());
+    }
+
+    @Test
+    void restartReconcilesItsOwnBlocks() {
+        Long productId = persistHotProduct(10).getId();
+        HotStockInventory crashed = startInventory(INSTANCE);
+        transaction.executeWithoutResult(status -> reservationService(crashed).reserve(1L, Map.of(productId, 2)));
+        // A block was taken and two units sold from it, but nothing flushed before the crash
+        assertThat(hotAllocated(productId)).isEqualTo(BLOCK_SIZE);
+        assertThat(stockQuantity(productId)).isEqualTo(10);
+
+        HotStockInventory restarted = startInventory(INSTANCE);
+
+        assertThat(stockQuantity(productId)).isEqualTo(8);
+        assertThat(hotAllocated(productId)).isZero();
+        assertThat(allocationRepository.findAll()).isEmpty();
+        assertThat(stockReservationRepository.findByOrderIdAndStatus(1L, StockReservation.Status.ACTIVE))
+                .singleElement()
+                .satisfies(reservation -> assertThat(reservation.isStockFlushed()).isTrue());
+        assertThat(restarted.isHot(productId)).isTrue();
+    }
+
+    @Test
+    void reclaimedBlocksAreNotSoldAgain() {
+        Long productId = persistHotProduct(10).getId();
+        HotStockInventory inventory = startInventory(INSTANCE);
+        StockReservationService reservations = reservationService(inventory);
+        transaction.executeWithoutResult(status -> reservations.reserve(1L, Map.of(productId, 1)));
+
+        // The instance looks dead to its peers, which write back its sale and return its block
+        jdbcTemplate.update("UPDATE hot_stock_allocations SET heartbeat_at = ?", LocalDateTime.now().minusHours(1));
+        startInventory("instance-b");
+        assertThat(stockQuantity(productId)).isEqualTo(9);
+        assertThat(hotAllocated(productId)).isZero();
+
+        // The next heartbeat finds the block gone and drops the two units still in memory
+        inventory.flush();
+        assertThat(hotAllocated(productId)).isZero();
+
+        transaction.executeWithoutResult(status -> reservations.reserve(2L, Map.of(productId, 9)));
+        assertThatThrownBy(() -> transaction.executeWithoutResult(status ->
+                reservations.reserve(3L, Map.of(productId, 1))))
+                .isInstanceOf(InsufficientStockException.class);
+
+        inventory.flush();
+        assertThat(stockQuantity(productId)).isZero();
+        assertThat(hotAllocated(productId)).isZero();
+    }
+
+    private HotStockInventory startInventory(String instanceId) {
+        HotStockInventory inventory = new HotStockInventory(jdbcTemplate, allocationRepository, stockReservationRepository,
+                readModelService, transactionManager, instanceId, BLOCK_SIZE, 4, Duration.ofMinutes(10));
+        inventory.start();
+        return inventory;
+    }
+
+    private StockReservationService reservationService(HotStockInventory inventory) {
+        return new StockReservationService(jdbcTemplate, stockReservationRepository, readModelService, inventory,
+                Duration.ofMinutes(30));
+    }
+
+    private Product persistHotProduct(int stock) {
+        Product product = TestData.product(store, "Flash Sale Product", stock);
+        product.setHotStock(true);
+        return productRepository.save(product);
+    }
+
+    private int stockQuantity(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE product_id = ?", Integer.class, productId);
+    }
+
+    private int hotAllocated(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT hot_allocated FROM products WHERE product_id = ?", Integer.class, productId);
+    }
+}
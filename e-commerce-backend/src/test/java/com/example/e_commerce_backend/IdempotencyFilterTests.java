@@ -0,0 +1,192 @@
+package com.example.e_commerce_backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.models.IdempotencyRecord;
+import com.example.repositories.IdempotencyRecordRepository;
+import com.example.security.IdempotencyFilter;
+import com.example.services.IdempotencyService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * A request sent twice with the same Idempotency-Key runs once: the duplicate gets the first
+ * response back, whether it arrives after the first finished or while it is still running,
+ * and a key reused for a different request is refused. Test transactions are off so every
+ * call reads what the previous one committed, as it would between two HTTP requests.
+ */
+@DataJpaTest(properties = "spring.sql.init.mode=never")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyFilterTests {
+
+    private static final String KEY = "checkout-1";
+    private static final String BODY = "{\"shippingAddressId\":1}";
+
+    @Configuration
+    @EntityScan("com.example.models")
+    @EnableJpaRepositories(basePackageClasses = IdempotencyRecordRepository.class)
+    static class Config {
+    }
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    private IdempotencyService idempotencyService;
+    private IdempotencyFilter filter;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = service(Duration.ofSeconds(5));
+        filter = new IdempotencyFilter(idempotencyService);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("alice@example.com", null, List.of()));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        recordRepository.deleteAll();
+    }
+
+    @Test
+    void replaysTheFirstResponse() throws Exception {
+        MockHttpServletResponse first = send(BODY, createOrder());
+        MockHttpServletResponse retry = send(BODY, createOrder());
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(first.getStatus()).isEqualTo(201);
+        assertThat(first.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isNull();
+        assertThat(retry.getStatus()).isEqualTo(201);
+        assertThat(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(retry.getHeader("Location")).isEqualTo("/api/orders/1");
+        assertThat(retry.getContentAsString()).isEqualTo(first.getContentAsString());
+    }
+
+    @Test
+    void refusesAKeyReusedForADifferentRequest() throws Exception {
+        send(BODY, createOrder());
+        MockHttpServletResponse other = send("{\"shippingAddressId\":2}", createOrder());
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(other.getStatus()).isEqualTo(422);
+        assertThat(other.getContentAsString()).contains(IdempotencyFilter.HEADER);
+    }
+
+    @Test
+    void duplicateWaitsForTheRunningRequest() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slowCheckout = (request, response) -> {
+            running.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            createOrder().doFilter(request, response);
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<MockHttpServletResponse> first = pool.submit(() -> sendAs(BODY, slowCheckout));
+            assertThat(running.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<MockHttpServletResponse> duplicate = pool.submit(() -> sendAs(BODY, createOrder()));
+            Thread.sleep(200);
+            release.countDown();
+
+            assertThat(first.get(10, TimeUnit.SECONDS).getStatus()).isEqualTo(201);
+            MockHttpServletResponse replayed = duplicate.get(10, TimeUnit.SECONDS);
+            assertThat(replayed.getStatus()).isEqualTo(201);
+            assertThat(replayed.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void heartbeatKeepsARunningRequestFromBeingTakenOver() {
+        IdempotencyService.Claim claim = idempotencyService.begin("alice@example.com", KEY, "hash");
+        assertThat(claim.getOutcome()).isEqualTo(IdempotencyService.Outcome.PROCEED);
+
+        // The request has outlived its first lock, but its instance is still renewing it
+        IdempotencyRecord record = recordRepository.findByOwnerAndIdempotencyKey("alice@example.com", KEY).orElseThrow();
+        record.setLockedUntil(LocalDateTime.now().minusSeconds(1));
+        recordRepository.save(record);
+        idempotencyService.heartbeat();
+
+        IdempotencyService otherInstance = service(Duration.ofMillis(300));
+        assertThat(otherInstance.begin("alice@example.com", KEY, "hash").getOutcome())
+                .isEqualTo(IdempotencyService.Outcome.IN_PROGRESS);
+
+        idempotencyService.complete(claim, 201, null, null, "{}");
+        assertThat(otherInstance.begin("alice@example.com", KEY, "hash").getOutcome())
+                .isEqualTo(IdempotencyService.Outcome.REPLAY);
+    }
+
+    private IdempotencyService service(Duration waitTimeout) {
+        return new IdempotencyService(recordRepository, Duration.ofHours(24), Duration.ofMinutes(1), waitTimeout);
+    }
+
+    // Stands in for the order controller
+    private FilterChain createOrder() {
+        return (request, response) -> {
+            request.getInputStream().readAllBytes();
+            int id = calls.incrementAndGet();
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            httpResponse.setStatus(201);
+            httpResponse.setHeader("Location", "/api/orders/" + id);
+            httpResponse.setContentType("application/json");
+            httpResponse.getWriter().write("{\"id\":" + id + "}");
+        };
+    }
+
+    private MockHttpServletResponse send(String body, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders");
+        request.addHeader(IdempotencyFilter.HEADER, KEY);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    // The security context is per thread
+    private MockHttpServletResponse sendAs(String body, FilterChain chain) throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("alice@example.com", null, List.of()));
+        try {
+            return send(body, chain);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
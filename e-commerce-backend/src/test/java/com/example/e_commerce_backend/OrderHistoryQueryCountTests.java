@@ -0,0 +1,162 @@
+package com.example.e_commerce_backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.example.DTO.OrderDTO;
+import com.example.models.Address;
+import com.example.models.OrderEntity;
+import com.example.models.OrderItem;
+import com.example.models.Product;
+import com.example.models.Store;
+import com.example.models.User;
+import com.example.repositories.OrderRepository;
+import com.example.services.OrderPricing;
+import com.example.services.OrderService;
+import com.example.services.OrderStatusCounters;
+import com.example.services.StockReservationService;
+import com.example.services.StripeService;
+import com.example.services.outbox.OutboxService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * A page of order history costs the same few statements however many orders, items and
+ * products it shows: the page of orders, their items, and the count when more pages follow.
+ * No entity is loaded, so eager associations cannot add queries either.
+ */
+@DataJpaTest(properties = {
+    "spring.sql.init.mode=never",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@WithMockUser(username = OrderHistoryQueryCountTests.BUYER)
+class OrderHistoryQueryCountTests {
+
+    static final String BUYER = "buyer@example.com";
+    private static final int ORDERS = 12;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Configuration
+    @EntityScan("com.example.models")
+    @EnableJpaRepositories(basePackageClasses = OrderRepository.class)
+    @Import({OrderService.class, OrderPricing.class})
+    static class Config {
+    }
+
+    @MockitoBean
+    private StripeService stripeService;
+    @MockitoBean
+    private OutboxService outboxService;
+    @MockitoBean
+    private StockReservationService stockReservationService;
+    @MockitoBean
+    private OrderStatusCounters orderStatusCounters;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderPricing orderPricing;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        User buyer = entityManager.persist(TestData.user(BUYER, User.Role.customer));
+        User seller = entityManager.persist(TestData.user("seller@example.com", User.Role.seller));
+        Store store = entityManager.persist(TestData.store(seller, "Test Store"));
+        Address address = entityManager.persist(TestData.address(buyer));
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < ORDERS; i++) {
+            persistOrder(buyer, address, store, new Timestamp(now - i * 60_000L), i);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void firstPageTakesThreeStatements() {
+        Page<OrderDTO.OrderResponse> page = orderService.getOrderHistoryForCurrentUser(PageRequest.of(0, 5));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+
+        assertThat(page.getTotalElements()).isEqualTo(ORDERS);
+        assertThat(page.getContent()).hasSize(5);
+        assertThat(page.getContent()).extracting(OrderDTO.OrderResponse::getCreatedAt).isSortedAccordingTo((a, b) -> b.compareTo(a));
+        assertThat(page.getContent()).allSatisfy(order -> {
+            assertThat(order.getShippingAddress().getStreet()).isEqualTo("2 Main St");
+            assertThat(order.getItems()).hasSize(ITEMS_PER_ORDER)
+                    .allSatisfy(item -> assertThat(item.getProductName()).startsWith("Product "));
+            assertThat(order.getSubtotal()).isEqualByComparingTo(BigDecimal.valueOf(10L * ITEMS_PER_ORDER));
+            assertThat(order.getShipping()).isEqualByComparingTo("10");
+            assertThat(order.getTax()).isEqualByComparingTo("2.40");
+            assertThat(order.getTotal()).isEqualByComparingTo("42.40");
+        });
+    }
+
+    @Test
+    void lastPageSkipsTheCount() {
+        Page<OrderDTO.OrderResponse> page = orderService.getOrderHistoryForCurrentUser(PageRequest.of(2, 5));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(page.getTotalElements()).isEqualTo(ORDERS);
+        assertThat(page.getContent()).hasSize(ORDERS - 10);
+    }
+
+    @Test
+    void unpagedListTakesTwoStatements() {
+        List<OrderDTO.OrderResponse> orders = orderService.getOrdersForCurrentUser();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(orders).hasSize(ORDERS);
+    }
+
+    private void persistOrder(User buyer, Address address, Store store, Timestamp createdAt, int index) {
+        OrderEntity order = new OrderEntity();
+        order.setUser(buyer);
+        order.setShippingAddress(address);
+        order.setStatus(OrderEntity.Status.pending);
+        order.setCreatedAt(createdAt);
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+            Product product = entityManager.persist(TestData.product(store, "Product " + index + "-" + i, 5));
+
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setQuantity(1);
+            item.setPriceAtPurchase(BigDecimal.TEN);
+            items.add(item);
+        }
+        order.setOrderItems(items);
+        orderPricing.price(order);
+        entityManager.persist(order);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.e_commerce_backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.example.DTO.OrderDTO;
+import com.example.DTO.admin.AdminOrderDTO;
+import com.example.models.Address;
+import com.example.models.OrderEntity;
+import com.example.models.OrderItem;
+import com.example.models.Product;
+import com.example.models.Store;
+import com.example.models.User;
+import com.example.repositories.OrderRepository;
+import com.example.services.OrderPricing;
+import com.example.services.OrderService;
+import com.example.services.OrderStatusCounters;
+import com.example.services.StockReservationService;
+import com.example.services.StripeService;
+import com.example.services.outbox.OutboxService;
+
+/**
+ * Reading orders uses the client secrets stored at checkout and never calls Stripe.
+ * The mocked StripeService stands in for the Stripe API and records every call.
+ */
+@DataJpaTest(properties = "spring.sql.init.mode=never")
+@WithMockUser(username = OrderListStripeCallTests.BUYER)
+class OrderListStripeCallTests {
+
+    static final String BUYER = "buyer@example.com";
+
+    @Configuration
+    @EntityScan("com.example.models")
+    @EnableJpaRepositories(basePackageClasses = OrderRepository.class)
+    @Import({OrderService.class, OrderPricing.class})
+    static class Config {
+    }
+
+    @MockitoBean
+    private StripeService stripeService;
+    @MockitoBean
+    private OutboxService outboxService;
+    @MockitoBean
+    private StockReservationService stockReservationService;
+    @MockitoBean
+    private OrderStatusCounters orderStatusCounters;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void orderReadsMakeNoStripeCalls() {
+        User buyer = entityManager.persist(TestData.user(BUYER, User.Role.customer));
+        User seller = entityManager.persist(TestData.user("seller@example.com", User.Role.seller));
+        Store store = entityManager.persist(TestData.store(seller, "Test Store"));
+        Address address = entityManager.persist(TestData.address(buyer));
+        OrderEntity order = persistOrder(buyer, address, store, 3);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<OrderDTO.OrderResponse> mine = orderService.getOrdersForCurrentUser();
+        List<OrderDTO.OrderResponse> byUser = orderService.getOrdersByUserId(buyer.getId());
+        Map<String, Object> admin = orderService.findAllAdminOrders(new AdminOrderDTO.AdminOrderFilterRequest(), 0, 10);
+
+        assertThat(mine).singleElement().satisfies(dto -> assertThat(dto.getItems())
+                .hasSize(3)
+                .allSatisfy(item -> assertThat(item.getClientSecret()).isNull()));
+        assertThat(byUser).hasSize(1);
+        assertThat(admin.get("totalItems")).isEqualTo(1L);
+
+        // The owner's view of a pending order carries the stored secrets
+        assertThat(orderService.getOrderForCurrentUser(order.getId()).getItems())
+                .extracting(OrderDTO.OrderItemDTO::getClientSecret)
+                .containsExactlyInAnyOrder("pi_0_secret", "pi_1_secret", "pi_2_secret");
+
+        verifyNoInteractions(stripeService);
+    }
+
+    private OrderEntity persistOrder(User buyer, Address address, Store store, int itemCount) {
+        OrderEntity order = new OrderEntity();
+        order.setUser(buyer);
+        order.setShippingAddress(address);
+        order.setStatus(OrderEntity.Status.pending);
+        order.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            Product product = entityManager.persist(TestData.product(store, "Product " + i, 5));
+
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setQuantity(1);
+            item.setPriceAtPurchase(BigDecimal.TEN);
+            item.setStripePaymentIntentId("pi_" + i);
+            item.setStripeClientSecret("pi_" + i + "_secret");
+            items.add(item);
+        }
+        order.setOrderItems(items);
+        return entityManager.persist(order);
+    }
+}
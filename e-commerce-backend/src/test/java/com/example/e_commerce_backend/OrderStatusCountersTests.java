@@ -0,0 +1,117 @@
+package com.example.e_commerce_backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import com.example.models.Address;
+import com.example.models.OrderEntity;
+import com.example.models.User;
+import com.example.repositories.OrderRepository;
+import com.example.services.OrderStatusCounters;
+
+/**
+ * Status changes move an order between the counters, and the nightly check brings the
+ * counters back in line with the orders when they have drifted.
+ */
+@DataJpaTest(properties = "spring.sql.init.mode=never")
+class OrderStatusCountersTests {
+
+    @Configuration
+    @EntityScan("com.example.models")
+    @EnableJpaRepositories(basePackageClasses = OrderRepository.class)
+    @Import(OrderStatusCounters.class)
+    static class Config {
+    }
+
+    @Autowired
+    private OrderStatusCounters counters;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User buyer;
+    private Address address;
+
+    @BeforeEach
+    void setUp() {
+        buyer = entityManager.persist(TestData.user("buyer@example.com", User.Role.customer));
+        address = entityManager.persist(TestData.address(buyer));
+    }
+
+    @Test
+    void transitionsMoveOrdersAndTotals() {
+        OrderEntity first = persistOrder("42.40");
+        counters.created(first);
+        OrderEntity second = persistOrder("10.00");
+        counters.created(second);
+
+        counters.transition(first, OrderEntity.Status.processing);
+        counters.transition(second, OrderEntity.Status.cancelled);
+        counters.transition(first, OrderEntity.Status.shipped);
+        // No change, no move
+        counters.transition(first, OrderEntity.Status.shipped);
+
+        Map<OrderEntity.Status, OrderStatusCounters.StatusTotals> totals = counters.totals();
+        assertThat(totals.get(OrderEntity.Status.pending).orders()).isZero();
+        assertThat(totals.get(OrderEntity.Status.pending).amount()).isEqualByComparingTo("0");
+        assertThat(totals.get(OrderEntity.Status.processing).orders()).isZero();
+        assertThat(totals.get(OrderEntity.Status.shipped).orders()).isEqualTo(1);
+        assertThat(totals.get(OrderEntity.Status.shipped).amount()).isEqualByComparingTo("42.40");
+        assertThat(totals.get(OrderEntity.Status.cancelled).orders()).isEqualTo(1);
+        assertThat(first.getStatus()).isEqualTo(OrderEntity.Status.shipped);
+    }
+
+    @Test
+    void deletedOrdersLeaveTheCounters() {
+        OrderEntity order = persistOrder("42.40");
+        counters.created(order);
+
+        counters.transition(order, null);
+
+        OrderStatusCounters.StatusTotals pending = counters.totals().get(OrderEntity.Status.pending);
+        assertThat(pending.orders()).isZero();
+        assertThat(pending.amount()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void verifyCorrectsDrift() {
+        counters.created(persistOrder("42.40"));
+        // Placed without going through the counters
+        persistOrder("10.00");
+        OrderEntity delivered = persistOrder("5.00");
+        delivered.setStatus(OrderEntity.Status.delivered);
+        entityManager.flush();
+
+        counters.verify();
+        entityManager.flush();
+        entityManager.clear();
+
+        Map<OrderEntity.Status, OrderStatusCounters.StatusTotals> totals = counters.totals();
+        assertThat(totals.get(OrderEntity.Status.pending).orders()).isEqualTo(2);
+        assertThat(totals.get(OrderEntity.Status.pending).amount()).isEqualByComparingTo("52.40");
+        assertThat(totals.get(OrderEntity.Status.delivered).orders()).isEqualTo(1);
+        assertThat(totals.get(OrderEntity.Status.delivered).amount()).isEqualByComparingTo("5.00");
+    }
+
+    private OrderEntity persistOrder(String total) {
+        OrderEntity order = new OrderEntity();
+        order.setUser(buyer);
+        order.setShippingAddress(address);
+        order.setStatus(OrderEntity.Status.pending);
+        order.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+        order.setTotalAmount(new BigDecimal(total));
+        return entityManager.persist(order);
+    }
+}
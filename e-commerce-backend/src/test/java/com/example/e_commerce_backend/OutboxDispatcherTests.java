@@ -0,0 +1,118 @@
+package com.example.e_commerce_backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.models.OutboxEvent;
+import com.example.repositories.OutboxEventRepository;
+import com.example.services.outbox.OutboxDispatcher;
+import com.example.services.outbox.OutboxHandler;
+import com.example.services.outbox.OutboxService;
+
+/**
+ * An event is started as soon as the transaction that recorded it commits, without waiting
+ * for the poll: scheduling is off in this slice, so only the commit can start it. Test
+ * transactions are off so the recording transaction really commits.
+ */
+@DataJpaTest(properties = "spring.sql.init.mode=never")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxDispatcherTests {
+
+    private static final String TEST_EVENT = "TEST_EVENT";
+
+    @Configuration
+    @EntityScan("com.example.models")
+    @EnableJpaRepositories(basePackageClasses = OutboxEventRepository.class)
+    @Import({OutboxService.class, OutboxDispatcher.class})
+    static class Config {
+        @Bean
+        BlockingQueue<Long> handled() {
+            return new LinkedBlockingQueue<>();
+        }
+
+        @Bean
+        OutboxHandler testHandler(BlockingQueue<Long> handled) {
+            return new OutboxHandler() {
+                @Override
+                public String eventType() {
+                    return TEST_EVENT;
+                }
+
+                @Override
+                public void handle(OutboxEvent event) {
+                    handled.add(event.getAggregateId());
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private BlockingQueue<Long> handled;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        handled.clear();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        outboxEventRepository.deleteAll();
+    }
+
+    @Test
+    void dispatchesOnCommitWithoutThePoll() throws Exception {
+        OutboxEvent recorded = transaction.execute(status -> outboxService.record(TEST_EVENT, 42L, null));
+
+        assertThat(handled.poll(5, TimeUnit.SECONDS)).isEqualTo(42L);
+        assertThat(awaitStatus(recorded.getId(), OutboxEvent.Status.DONE)).isEqualTo(OutboxEvent.Status.DONE);
+    }
+
+    @Test
+    void rolledBackEventIsNotDispatched() throws Exception {
+        transaction.executeWithoutResult(status -> {
+            outboxService.record(TEST_EVENT, 7L, null);
+            status.setRollbackOnly();
+        });
+
+        assertThat(handled.poll(500, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(outboxEventRepository.count()).isZero();
+    }
+
+    // The outcome is recorded on the dispatcher's thread just after the handler returns
+    private OutboxEvent.Status awaitStatus(Long id, OutboxEvent.Status expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        OutboxEvent.Status status = outboxEventRepository.findById(id).orElseThrow().getStatus();
+        while (status != expected && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            status = outboxEventRepository.findById(id).orElseThrow().getStatus();
+        }
+        return status;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.e_commerce_backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import com.example.DTO.ProductDTO.ProductFacetCounts;
+import com.example.DTO.ProductDTO.ProductFilterRequest;
+import com.example.models.Category;
+import com.example.models.Product;
+import com.example.repositories.ProductRepository;
+import com.example.services.ProductFacetIndex;
+
+/**
+ * Facet counts follow product writes: a deleted product's ordinal is handed to the next new
+ * product without carrying any of the old facet values along, and the products a search
+ * matched restrict every count. The index starts empty and is filled through index();
+ * outside a transaction writes apply at once, as on commit.
+ */
+class ProductFacetIndexTests {
+
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findFacetDocumentsAfter(anyLong(), any(Pageable.class))).thenReturn(List.of());
+        index = new ProductFacetIndex(productRepository);
+        index.rebuild();
+    }
+
+    @Test
+    void reusedOrdinalKeepsNothingOfTheDeletedProduct() {
+        index.index(product(1L, "Lighting", "30", 4.5f, true));
+        index.index(product(2L, "Lighting", "30", 4.5f, true));
+        index.remove(1L);
+        index.index(product(3L, null, "5", null, false));
+
+        ProductFacetCounts counts = index.count(new ProductFilterRequest(), null);
+
+        assertThat(counts.getTotal()).isEqualTo(2);
+        assertThat(counts.getCategories()).containsEntry("Lighting", 1L).hasSize(1);
+        assertThat(counts.getPriceRanges()).containsEntry("25-50", 1L).containsEntry("0-25", 1L);
+        assertThat(counts.getMinRating()).containsEntry("4", 1L);
+        assertThat(counts.getFreeShipping()).isEqualTo(1);
+    }
+
+    @Test
+    void searchMatchesRestrictEveryFacet() {
+        index.index(product(1L, "Lighting", "30", 4.5f, true));
+        index.index(product(2L, "Lighting", "300", 2.0f, false));
+        index.index(product(3L, "Garden", "30", 4.5f, true));
+
+        ProductFacetCounts counts = index.count(new ProductFilterRequest(), List.of(1L, 2L));
+
+        assertThat(counts.getTotal()).isEqualTo(2);
+        assertThat(counts.getCategories()).containsOnlyKeys("Lighting");
+        assertThat(counts.getFreeShipping()).isEqualTo(1);
+        assertThat(index.count(new ProductFilterRequest(), List.of()).getTotal()).isZero();
+    }
+
+    private static Product product(Long id, String categoryName, String price, Float rating, boolean freeShipping) {
+        Product product = new Product();
+        product.setId(id);
+        if (categoryName != null) {
+            Category category = new Category();
+            category.setName(categoryName);
+            product.setCategory(category);
+        }
+        product.setPrice(new BigDecimal(price));
+        product.setAverageRating(rating);
+        product.setFreeShipping(freeShipping);
+        return product;
+    }
+}
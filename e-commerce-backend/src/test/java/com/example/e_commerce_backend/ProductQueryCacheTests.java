@@ -0,0 +1,77 @@
+package com.example.e_commerce_backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.DTO.ProductDTO.ProductResponse;
+import com.example.config.CacheConfig;
+import com.example.events.ProductStockChangedEvent;
+import com.example.services.ProductQueryCache;
+
+/**
+ * Change events evict the entries tagged with what changed and no others, and a load that
+ * was running when the change committed does not keep its result. Uses the real Caffeine
+ * caches; events are delivered by hand, as they would be after the commit.
+ */
+class ProductQueryCacheTests {
+
+    private ProductQueryCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductQueryCache(new CacheConfig().cacheManager());
+    }
+
+    @Test
+    void evictsOnlyTheEntriesOfTheChangedProduct() {
+        ProductQueryCache.Key lamps = ProductQueryCache.Key.of("store", 1L);
+        ProductQueryCache.Key chairs = ProductQueryCache.Key.of("store", 2L);
+        cache.getList(lamps, Set.of(), counting(() -> List.of(product(1L))));
+        cache.getList(chairs, Set.of(), counting(() -> List.of(product(2L))));
+
+        cache.onProductStockChanged(new ProductStockChangedEvent(Set.of(1L)));
+        cache.getList(lamps, Set.of(), counting(() -> List.of(product(1L))));
+        cache.getList(chairs, Set.of(), counting(() -> List.of(product(2L))));
+
+        // Two first loads, then only the lamps again
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    void loadOverlappingAChangeIsNotKept() {
+        ProductQueryCache.Key key = ProductQueryCache.Key.of("store", 1L);
+        // The load reads the product, then the write that changes it commits and evicts
+        cache.getList(key, Set.of(), counting(() -> {
+            List<ProductResponse> stale = List.of(product(1L));
+            cache.onProductStockChanged(new ProductStockChangedEvent(Set.of(1L)));
+            return stale;
+        }));
+
+        cache.getList(key, Set.of(), counting(() -> List.of(product(1L))));
+        cache.getList(key, Set.of(), counting(() -> List.of(product(1L))));
+
+        // The overlapping load, one reload, then a hit
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private Supplier<List<ProductResponse>> counting(Supplier<List<ProductResponse>> loader) {
+        return () -> {
+            loads.incrementAndGet();
+            return loader.get();
+        };
+    }
+
+    private static ProductResponse product(Long id) {
+        ProductResponse product = new ProductResponse();
+        product.setId(id);
+        return product;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.e_commerce_backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import com.example.models.Category;
+import com.example.models.Product;
+import com.example.repositories.ProductRepository;
+import com.example.services.ProductSearchIndex;
+
+/**
+ * Writes that commit while a rebuild is reading the products table survive the swap to the
+ * rebuilt index, whether the batch that read the product came before or after them, and a
+ * category write reaches the category fields of its products. The repository is a mock whose
+ * batch read stands in for the writes; outside a transaction the index applies them at once,
+ * as it would on commit.
+ */
+class ProductSearchIndexTests {
+
+    private ProductRepository productRepository;
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        index = new ProductSearchIndex(productRepository);
+    }
+
+    @Test
+    void writesDuringARebuildAreKept() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {1L, "Desk Lamp", null, null, null});
+        rows.add(new Object[] {2L, "Office Chair", null, null, null});
+        when(productRepository.findSearchDocumentsAfter(eq(0L), any(Pageable.class))).thenAnswer(invocation -> {
+            // Committed after the batch read its rows: a rename, a removal and a new product
+            index.index(product(1L, "Reading Lamp"));
+            index.remove(2L);
+            index.index(product(3L, "Standing Desk"));
+            return rows;
+        });
+
+        index.rebuild();
+
+        assertThat(index.search("reading")).containsExactly(1L);
+        assertThat(index.search("desk")).containsExactly(3L);
+        assertThat(index.search("chair")).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void writesAfterARebuildAreNotReplayedByTheNext() {
+        when(productRepository.findSearchDocumentsAfter(eq(0L), any(Pageable.class)))
+                .thenReturn(List.<Object[]>of(new Object[] {1L, "Desk Lamp", null, null, null}))
+                .thenReturn(List.<Object[]>of(new Object[] {1L, "Floor Lamp", null, null, null}));
+        index.rebuild();
+        index.index(product(1L, "Table Lamp"));
+
+        // The table now holds a later write than the one made between the rebuilds
+        index.rebuild();
+
+        assertThat(index.search("floor")).containsExactly(1L);
+        assertThat(index.search("table")).isEmpty();
+    }
+
+    @Test
+    void categoryRenameAndDeleteReachTheProducts() {
+        when(productRepository.findSearchDocumentsAfter(eq(0L), any(Pageable.class)))
+                .thenReturn(List.<Object[]>of(new Object[] {1L, "Desk Lamp", null, "Lighting", "Lamps and bulbs"}));
+        index.rebuild();
+
+        Category renamed = new Category();
+        renamed.setName("Illumination");
+        index.categoryChanged(List.of(1L), renamed);
+
+        assertThat(index.search("illumination")).containsExactly(1L);
+        assertThat(index.search("lighting")).isEmpty();
+        assertThat(index.search("bulbs")).isEmpty();
+        assertThat(index.search("desk")).containsExactly(1L);
+
+        index.categoryChanged(List.of(1L), null);
+
+        assertThat(index.search("illumination")).isEmpty();
+        assertThat(index.search("desk")).containsExactly(1L);
+    }
+
+    private static Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        return product;
+    }
+}
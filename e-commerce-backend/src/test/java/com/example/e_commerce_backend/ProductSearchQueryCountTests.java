@@ -0,0 +1,138 @@
+package com.example.e_commerce_backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.example.DTO.ProductDTO.ProductFilterRequest;
+import com.example.DTO.ProductDTO.ProductResponse;
+import com.example.models.Product;
+import com.example.models.Store;
+import com.example.models.User;
+import com.example.repositories.ProductRepository;
+import com.example.services.CategoryService;
+import com.example.services.ProductFacetIndex;
+import com.example.services.ProductQueryCache;
+import com.example.services.ProductReadModelService;
+import com.example.services.ProductSearchIndex;
+import com.example.services.ProductService;
+import com.example.services.RelatedProductsIndex;
+import com.example.services.SuggestionIndex;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Keyword search and filtered browsing take their candidates from the in-memory index, so
+ * the database only hydrates the hits: the same statements however many products match,
+ * and no LIKE scan over names and descriptions.
+ */
+@DataJpaTest(properties = {
+    "spring.sql.init.mode=never",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ProductSearchQueryCountTests {
+
+    private static final int LAMPS = 25;
+    private static final int CHAIRS = 25;
+
+    @Configuration
+    @EntityScan("com.example.models")
+    @EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+    @Import({ProductService.class, ProductSearchIndex.class, ProductReadModelService.class})
+    static class Config {
+    }
+
+    @MockitoBean
+    private CategoryService categoryService;
+    @MockitoBean
+    private ProductFacetIndex productFacetIndex;
+    @MockitoBean
+    private SuggestionIndex suggestionIndex;
+    @MockitoBean
+    private RelatedProductsIndex relatedProductsIndex;
+    @MockitoBean
+    private ProductQueryCache queryCache;
+
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+    @Autowired
+    private ProductReadModelService readModelService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        User seller = entityManager.persist(TestData.user("seller@example.com", User.Role.seller));
+        Store store = entityManager.persist(TestData.store(seller, "Test Store"));
+        for (int i = 0; i < LAMPS; i++) {
+            entityManager.persist(TestData.product(store, "Desk Lamp " + i, 5));
+        }
+        for (int i = 0; i < CHAIRS; i++) {
+            Product chair = TestData.product(store, "Office Chair " + i, 5);
+            chair.setDescription("Goes well with a lamp");
+            entityManager.persist(chair);
+        }
+        entityManager.flush();
+        readModelService.rebuildAll();
+        productSearchIndex.rebuild();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void rankedSearchReadsOnlyThePage() {
+        Page<ProductResponse> page = productService.search("lamp", PageRequest.of(0, 10));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(page.getTotalElements()).isEqualTo(LAMPS + CHAIRS);
+        // A match in the name ranks above a match in the description
+        assertThat(page.getContent()).hasSize(10)
+                .allSatisfy(product -> assertThat(product.getTitle()).startsWith("Desk Lamp"));
+    }
+
+    @Test
+    void keywordSearchTakesOneStatement() {
+        List<ProductResponse> products = productService.searchByKeyword("chair");
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(products).hasSize(CHAIRS)
+                .allSatisfy(product -> assertThat(product.getTitle()).startsWith("Office Chair"));
+    }
+
+    @Test
+    void filteredBrowseTakesTwoStatements() {
+        ProductFilterRequest filter = new ProductFilterRequest();
+        filter.setSearch("desk lamp");
+
+        Slice<ProductResponse> slice = productService.browseProductsSlice(filter, PageRequest.of(0, 10));
+
+        // The page of candidate IDs that pass the filters, then their rows
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(slice.getContent()).hasSize(10);
+        assertThat(slice.hasNext()).isTrue();
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.e_commerce_backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.exceptions.InsufficientStockException;
+import com.example.models.Product;
+import com.example.models.StockReservation;
+import com.example.models.Store;
+import com.example.models.User;
+import com.example.repositories.ProductRepository;
+import com.example.repositories.StockReservationRepository;
+import com.example.repositories.StoreRepository;
+import com.example.repositories.UserRepository;
+import com.example.services.HotStockInventory;
+import com.example.services.ProductReadModelService;
+import com.example.services.StockReservationService;
+
+/**
+ * Concurrent checkouts of the last units never sell more than are in stock, and a basket
+ * with one short line takes nothing. Test transactions are off so that every buyer commits
+ * or rolls back on its own, as concurrent requests do.
+ */
+@DataJpaTest(properties = "spring.sql.init.mode=never")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockReservationConcurrencyTests {
+
+    @Configuration
+    @EntityScan("com.example.models")
+    @EnableJpaRepositories(basePackageClasses = StockReservationRepository.class)
+    @Import(StockReservationService.class)
+    static class Config {
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+    }
+
+    @MockitoBean
+    private ProductReadModelService productReadModelService;
+    // Not hot: every line takes the conditional decrement
+    @MockitoBean
+    private HotStockInventory hotStockInventory;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+    @Autowired
+    private StockReservationRepository stockReservationRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private Store store;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+
+        User seller = userRepository.save(TestData.user("seller@example.com", User.Role.seller));
+        store = storeRepository.save(TestData.store(seller, "Test Store"));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        stockReservationRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        Long productId = persistProduct(5).getId();
+        int buyers = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(buyers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < buyers; i++) {
+            long orderId = i + 1;
+            Callable<Object> checkout = () -> {
+                start.await();
+                try {
+                    transaction.executeWithoutResult(status ->
+                            stockReservationService.reserve(orderId, Map.of(productId, 1)));
+                    sold.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    refused.incrementAndGet();
+                }
+                return null;
+            };
+            results.add(pool.submit(checkout));
+        }
+        start.countDown();
+        for (Future<Object> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(sold.get()).isEqualTo(5);
+        assertThat(refused.get()).isEqualTo(buyers - 5);
+        assertThat(productRepository.findById(productId)).get()
+                .extracting(Product::getStockQuantity).isEqualTo(0);
+        assertThat(stockReservationRepository.findAll())
+                .hasSize(5)
+                .allSatisfy(reservation -> assertThat(reservation.getStatus()).isEqualTo(StockReservation.Status.ACTIVE));
+    }
+
+    @Test
+    void shortLineTakesNothingFromTheBasket() {
+        Long plenty = persistProduct(5).getId();
+        Long scarce = persistProduct(1).getId();
+
+        assertThatThrownBy(() -> transaction.executeWithoutResult(status ->
+                stockReservationService.reserve(1L, Map.of(plenty, 2, scarce, 2))))
+                .isInstanceOf(InsufficientStockException.class)
+                .extracting(e -> ((InsufficientStockException) e).getProductIds())
+                .isEqualTo(List.of(scarce));
+
+        assertThat(productRepository.findById(plenty)).get()
+                .extracting(Product::getStockQuantity).isEqualTo(5);
+        assertThat(stockReservationRepository.count()).isZero();
+    }
+
+    @Test
+    void nonPositiveLineIsRefusedBeforeAnythingIsTaken() {
+        Long plenty = persistProduct(5).getId();
+        Long other = persistProduct(5).getId();
+
+        assertThatThrownBy(() -> transaction.executeWithoutResult(status ->
+                stockReservationService.reserve(1L, Map.of(plenty, 2, other, -3))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> transaction.executeWithoutResult(status ->
+                stockReservationService.reserve(2L, Map.of(other, 0))))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(productRepository.findById(plenty)).get()
+                .extracting(Product::getStockQuantity).isEqualTo(5);
+        assertThat(productRepository.findById(other)).get()
+                .extracting(Product::getStockQuantity).isEqualTo(5);
+        assertThat(stockReservationRepository.count()).isZero();
+        verifyNoInteractions(hotStockInventory);
+    }
+
+    @Test
+    void releasedUnitsAreReturnedOnce() {
+        Long productId = persistProduct(5).getId();
+        transaction.executeWithoutResult(status -> stockReservationService.reserve(1L, Map.of(productId, 2)));
+
+        stockReservationService.release(1L);
+        stockReservationService.release(1L);
+
+        assertThat(productRepository.findById(productId)).get()
+                .extracting(Product::getStockQuantity).isEqualTo(5);
+        assertThat(stockReservationRepository.findByOrderIdAndStatus(1L, StockReservation.Status.RELEASED)).hasSize(1);
+    }
+
+    private Product persistProduct(int stock) {
+        return productRepository.save(TestData.product(store, "Product", stock));
+    }
+}
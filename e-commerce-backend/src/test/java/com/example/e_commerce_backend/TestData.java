@@ -0,0 +1,63 @@
+package com.example.e_commerce_backend;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+import com.example.models.Address;
+import com.example.models.Product;
+import com.example.models.Store;
+import com.example.models.User;
+
+/**
+ * Minimal valid entities for the JPA tests. Nothing is saved here: each test persists them
+ * the way it works, through TestEntityManager or through the repositories.
+ */
+final class TestData {
+
+    private TestData() {
+    }
+
+    static User user(String email, User.Role role) {
+        User user = new User();
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setEmail(email);
+        user.setPasswordHash("hash");
+        user.setRole(role);
+        user.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+        return user;
+    }
+
+    static Store store(User seller, String name) {
+        Store store = new Store();
+        store.setSeller(seller);
+        store.setStoreName(name);
+        store.setEmail(seller.getEmail());
+        store.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+        store.setStreet("1 Main St");
+        store.setCity("Springfield");
+        store.setCountry("US");
+        return store;
+    }
+
+    static Address address(User user) {
+        Address address = new Address();
+        address.setUser(user);
+        address.setStreet("2 Main St");
+        address.setCity("Springfield");
+        address.setState("IL");
+        address.setCountry("US");
+        address.setZipCode("62701");
+        return address;
+    }
+
+    // Priced at 10
+    static Product product(Store store, String name, int stock) {
+        Product product = new Product();
+        product.setStore(store);
+        product.setName(name);
+        product.setPrice(BigDecimal.TEN);
+        product.setStockQuantity(stock);
+        return product;
+    }
+}
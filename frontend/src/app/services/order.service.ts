@@ -1,6 +1,6 @@
 import { Injectable } from '@angular/core';
-import { BehaviorSubject, Observable, of, throwError } from 'rxjs';
-import { catchError, delay, map, tap, retry } from 'rxjs/operators';
+import { BehaviorSubject, Observable, of, throwError, timer } from 'rxjs';
+import { catchError, delay, map, tap, retry, switchMap, filter, take, timeout } from 'rxjs/operators';
 import { Order, OrderSummary, PaymentMethod, ShippingAddress } from '../models/order.model';
 import { CartService } from './cart.service';
 import { AuthService } from './auth.service';
@@ -271,12 +271,25 @@ export class OrderService {
 
     // Include auth headers
     const headers = {
-      'Content-Type': 'application/json'
+      'Content-Type': 'application/json',
+      // One key per checkout: a retried request gets the first response instead of a second order
+      'Idempotency-Key': crypto.randomUUID()
       // Auth token should be automatically added by an HTTP interceptor
     };
 
     return this.http.post<any>(this.apiUrl, createOrderRequest, { headers })
       .pipe(
+        // Retry requests that never got an answer, or found the first one still running
+        retry({
+          count: 3,
+          delay: (error, retryCount) => error.status === 0 || (error.status === 409 && !error.error?.productIds)
+            ? timer(retryCount * 1000)
+            : throwError(() => error)
+        }),
+        // The payment intent is created after the order is saved; wait for it
+        switchMap(response => response.paymentIntents || !response.orderId
+          ? of(response)
+          : this.waitForPaymentIntent(response.orderId)),
         map(response => {
           console.log('Order creation response:', response);
 
@@ -333,6 +346,21 @@ export class OrderService {
       );
   }
 
+  private waitForPaymentIntent(orderId: string): Observable<any> {
+    return timer(0, 1000).pipe(
+      switchMap(() => this.http.get<any>(`${this.apiUrl}/${orderId}/payment`)),
+      filter(payment => payment.paymentStatus !== 'creating_intent'),
+      take(1),
+      timeout(30000),
+      map(payment => {
+        if (payment.paymentStatus === 'failed') {
+          throw new Error('Payment could not be started for this order');
+        }
+        return payment;
+      })
+    );
+  }
+
   getCurrentOrderId(): string | null {
     return this.currentOrderId;
   }
@@ -653,8 +681,14 @@ export class OrderService {
       reason: reason
     };
 
-    return this.http.post<any>(`${this.apiUrl}/${orderId}/items/${itemId}/refund`, refundRequest)
+    const headers = { 'Idempotency-Key': crypto.randomUUID() };
+
+    return this.http.post<any>(`${this.apiUrl}/${orderId}/items/${itemId}/refund`, refundRequest, { headers })
       .pipe(
+        retry({
+          count: 2,
+          delay: (error, retryCount) => error.status === 0 ? timer(retryCount * 1000) : throwError(() => error)
+        }),
         tap(() => {
           // Refresh orders after requesting a refund
           this.loadOrdersFromBackend();